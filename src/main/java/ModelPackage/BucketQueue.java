@@ -0,0 +1,134 @@
+package ModelPackage;
+
+import java.util.Arrays;
+
+/**
+ * Bucket queue of grid element numbers for searches with small integer step costs (Dial's algorithm). Every priority
+ * has its own bucket, a doubly linked list through the element numbers, and the buckets are reused in a circle. This
+ * only works when no point is pushed with a priority lower than the last one popped, or more than the bucket count
+ * higher, which holds for Dijkstra searches whose steps cost at most the bucket count minus one. Pushing and popping
+ * then take constant time and never allocate.
+ * <p>
+ * Like PointHeap, every element number can be in the queue only once; pushing it again with a lower priority moves
+ * it to the lower bucket.
+ */
+class BucketQueue {
+
+    private int[] bucketHeads;
+    private final int[] nextPoints;
+    private final int[] previousPoints;
+    private final int[] priorities;
+    private final boolean[] queued;
+    private int size;
+    private int currentPriority;
+
+    /**
+     * Creates a queue able to hold every element number of a grid
+     *
+     * @param pointCount  number of points in the grid
+     * @param maxStepCost highest cost of a single step
+     */
+    BucketQueue(int pointCount, int maxStepCost) {
+        nextPoints = new int[pointCount];
+        previousPoints = new int[pointCount];
+        priorities = new int[pointCount];
+        queued = new boolean[pointCount];
+        setMaxStepCost(maxStepCost);
+    }
+
+    /**
+     * Makes room for steps up to a cost. Only allowed while the queue is empty.
+     *
+     * @param maxStepCost highest cost of a single step
+     */
+    void setMaxStepCost(int maxStepCost) {
+        if (maxStepCost < 1) {
+            throw new IllegalArgumentException("MaxStepCost must be at least 1");
+        }
+        if ((bucketHeads == null) || (bucketHeads.length < maxStepCost + 1)) {
+            bucketHeads = new int[maxStepCost + 1];
+            Arrays.fill(bucketHeads, -1);
+        }
+    }
+
+    /**
+     * Gets whether the queue has no points left
+     *
+     * @return true if the queue is empty
+     */
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Adds a point to the queue, or lowers its priority if it is already in the queue with a higher one
+     *
+     * @param point    element number of the point
+     * @param priority priority of the point, lower priorities are popped first
+     */
+    void push(int point, int priority) {
+        if (queued[point]) {
+            if (priority >= priorities[point]) {
+                return;
+            }
+            unlink(point);
+        } else {
+            if (size == 0) {
+                currentPriority = priority;
+            }
+            queued[point] = true;
+            size++;
+        }
+        priorities[point] = priority;
+        int bucket = priority % bucketHeads.length;
+        int head = bucketHeads[bucket];
+        nextPoints[point] = head;
+        previousPoints[point] = -1;
+        if (head != -1) {
+            previousPoints[head] = point;
+        }
+        bucketHeads[bucket] = point;
+    }
+
+    /**
+     * Removes a point with the lowest priority from the queue
+     *
+     * @return element number of the removed point
+     */
+    int pop() {
+        while (bucketHeads[currentPriority % bucketHeads.length] == -1) {
+            currentPriority++;
+        }
+        int point = bucketHeads[currentPriority % bucketHeads.length];
+        unlink(point);
+        queued[point] = false;
+        size--;
+        return point;
+    }
+
+    /**
+     * Removes all points so the queue can be reused for the next search
+     */
+    void clear() {
+        for (int bucket = 0; bucket < bucketHeads.length; bucket++) {
+            for (int point = bucketHeads[bucket]; point != -1; point = nextPoints[point]) {
+                queued[point] = false;
+            }
+            bucketHeads[bucket] = -1;
+        }
+        size = 0;
+    }
+
+    private void unlink(int point) {
+        int next = nextPoints[point];
+        int previous = previousPoints[point];
+        if (previous == -1) {
+            bucketHeads[priorities[point] % bucketHeads.length] = next;
+        } else {
+            nextPoints[previous] = next;
+        }
+        if (next != -1) {
+            previousPoints[next] = previous;
+        }
+    }
+}
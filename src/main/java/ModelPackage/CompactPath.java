@@ -0,0 +1,139 @@
+package ModelPackage;
+
+import java.awt.*;
+import java.util.List;
+
+/**
+ * A path stored as its startpoint and one direction code per step, in walking order. Every step moves to one of the
+ * eight neighbours of a point, so a code fits in a byte; the grid wraps around at its edges. A path of n steps takes
+ * n bytes instead of the n + 1 Point objects of a path returned by MovementPlanner.
+ * <p>
+ * A CompactPath can not be changed. Walk it with a PathCursor.
+ */
+public class CompactPath {
+
+    //offsets of the eight directions, the index is the direction code
+    private static final int[] DIRECTION_X = {-1, 0, 1, -1, 1, -1, 0, 1};
+    private static final int[] DIRECTION_Y = {-1, -1, -1, 0, 0, 1, 1, 1};
+
+    private final int startX;
+    private final int startY;
+    private final int gridWidth;
+    private final int gridHeight;
+    private final byte[] directions;
+
+    private CompactPath(int startX, int startY, int gridWidth, int gridHeight, byte[] directions) {
+        this.startX = startX;
+        this.startY = startY;
+        this.gridWidth = gridWidth;
+        this.gridHeight = gridHeight;
+        this.directions = directions;
+    }
+
+    /**
+     * Encodes a path as returned by MovementPlanner
+     *
+     * @param pathFound  path of neighbouring points, target first and startpoint last
+     * @param gridWidth  width of the grid the path was found on
+     * @param gridHeight height of the grid the path was found on
+     * @return the encoded path, null if pathFound is null or empty
+     */
+    public static CompactPath fromPath(List<Point> pathFound, int gridWidth, int gridHeight) {
+        if ((pathFound == null) || pathFound.isEmpty()) {
+            return null;
+        }
+        byte[] directions = new byte[pathFound.size() - 1];
+        for (int i = 0; i < directions.length; i++) {
+            Point from = pathFound.get(pathFound.size() - 1 - i);
+            Point to = pathFound.get(pathFound.size() - 2 - i);
+            directions[i] = getDirection(getOffset(to.x - from.x, gridWidth), getOffset(to.y - from.y, gridHeight));
+            if (directions[i] == -1) {
+                throw new IllegalArgumentException("Points " + from + " and " + to + " of the path are not neighbours");
+            }
+        }
+        Point start = pathFound.get(pathFound.size() - 1);
+        return new CompactPath(start.x, start.y, gridWidth, gridHeight, directions);
+    }
+
+    /**
+     * Gets the number of steps of the path
+     *
+     * @return int containing the step count, one less than the number of points
+     */
+    public int getStepCount() {
+        return directions.length;
+    }
+
+    /**
+     * Gets the first point of the path
+     *
+     * @return the startpoint
+     */
+    public Point getStartPoint() {
+        return new Point(startX, startY);
+    }
+
+    /**
+     * Gets the last point of the path
+     *
+     * @return the target
+     */
+    public Point getTargetPoint() {
+        int x = startX;
+        int y = startY;
+        for (byte direction : directions) {
+            x = getNextX(x, direction);
+            y = getNextY(y, direction);
+        }
+        return new Point(x, y);
+    }
+
+    /**
+     * Gets the direction code of a step
+     *
+     * @param step index of the step, 0 for the step leaving the startpoint
+     * @return the direction code
+     */
+    byte getDirection(int step) {
+        return directions[step];
+    }
+
+    /**
+     * Gets the x coordinate after taking a step in a direction
+     */
+    int getNextX(int x, byte direction) {
+        return (x + DIRECTION_X[direction] + gridWidth) % gridWidth;
+    }
+
+    /**
+     * Gets the y coordinate after taking a step in a direction
+     */
+    int getNextY(int y, byte direction) {
+        return (y + DIRECTION_Y[direction] + gridHeight) % gridHeight;
+    }
+
+    /**
+     * Brings a coordinate difference back to -1, 0 or 1 when the step crosses the edge of the grid
+     */
+    private static int getOffset(int difference, int size) {
+        if (difference == size - 1) {
+            return -1;
+        }
+        if (difference == 1 - size) {
+            return 1;
+        }
+        return difference;
+    }
+
+    /**
+     * Gets the direction code of an offset, -1 if the offset is not a step to a neighbour
+     */
+    private static byte getDirection(int offsetX, int offsetY) {
+        for (byte direction = 0; direction < DIRECTION_X.length; direction++) {
+            if ((DIRECTION_X[direction] == offsetX) && (DIRECTION_Y[direction] == offsetY)) {
+                return direction;
+            }
+        }
+        return -1;
+    }
+}
@@ -25,10 +25,19 @@ public class Creature extends SimObject {
     private int weight;
     private int hunger;
     private boolean alive;
-    private List<Point> nextSteps;
+    private PathCursor nextSteps;
+    private Creature prey;
+    private PursuitPlanner pursuit;
     private World world;
     private Color myColor;
 
+    //what planStep decided in a double-buffered step, carried out by applyStep
+    private CreatureAction intendedAction = CreatureAction.None;
+    private SimObject intendedTarget;
+    private Point intendedPoint;
+    private boolean intendedInWater;
+    private Random stepRandom;
+
     /**
      * Create a Creature with the parameters we get from World.
      *
@@ -94,6 +103,7 @@ public class Creature extends SimObject {
      */
     public StatusObject step() {
         boolean didThing = false;
+        ISimObjectIndex candidates = world.getSteppedSimObjects();
 
         // does it want toe eat?
         if (hunger > 0) {
@@ -101,19 +111,19 @@ public class Creature extends SimObject {
                 case Nonivore:
                     break;
                 case Carnivore:
-                    didThing = eatMeat();
+                    didThing = eatMeat(candidates);
                     break;
                 case Herbivore:
-                    didThing = eatPlant();
+                    didThing = eatPlant(candidates);
                     break;
                 case Omnivore:
                     Random rnd = new Random();
                     int whatToEat = rnd.nextInt(100);
                     if (digestionBalance < whatToEat) {
-                        didThing = eatMeat();
+                        didThing = eatMeat(candidates);
                     }
                     else {
-                        didThing = eatPlant();
+                        didThing = eatPlant(candidates);
                     }
                     break;
             }
@@ -121,68 +131,272 @@ public class Creature extends SimObject {
         // Does it want to mate?
         if ((stamina / 100 * reproductionThreshold)< energy && !didThing){
 
-            didThing = mate();
+            didThing = mate(candidates, ThreadLocalRandom.current());
         }
 
         // does it want to move?
         if (energy > motionThreshold && !didThing) {
-            MovementCost();
+            MovementCost(world.getColor(point) == Color.blue);
             //System.out.println("Take a step");
-            if (nextSteps == null){
+            point = getNextPoint(new Random());
+        }
 
-                //fetch new target list or stand still
-                boolean wantToSwim = false;
-                if (energy <= this.swimThreshold) {
-                    wantToSwim = true;
-                }
-                Digestion digestionToUse = digestion;
-                if (digestion.equals(Digestion.Omnivore)){
-                    //we need to decide what the creature wants to eat
-                    Random rnd = new Random();
-                    int dice = rnd.nextInt(100);
-                    if (dice >= digestionBalance){
-                        //we want to eat meat!
-                        digestionToUse = Digestion.Carnivore;
-                    }
-                    else{
-                        digestionToUse = Digestion.Herbivore;
-                    }
+        return new StatusObject(energy, myColor, alive);
+    }
+
+    /**
+     * First half of a double-buffered step: decide what to do like step() does, but only read the state the world
+     * had at the end of the last step. The food and mates looked at are all SimObjects where they stood then, and
+     * nothing but the own route is changed; the decision is kept as intent until applyStep. Creatures can decide
+     * in any order, or at the same time, with the same outcome.
+     *
+     * @param random source of every random choice of this step, also used by applyStep
+     */
+    void planStep(Random random) {
+        stepRandom = random;
+        intendedAction = CreatureAction.None;
+        intendedTarget = null;
+        intendedPoint = null;
+        ISimObjectIndex candidates = world.getSimObjectIndex();
+
+        if (hunger > 0) {
+            boolean eatsMeat = (digestion == Digestion.Carnivore) ||
+                    ((digestion == Digestion.Omnivore) && (digestionBalance < random.nextInt(100)));
+            if (eatsMeat) {
+                intendedTarget = findMeat(candidates);
+                intendedAction = (intendedTarget != null) ? CreatureAction.EatMeat : CreatureAction.None;
+            } else if (digestion != Digestion.Nonivore) {
+                intendedTarget = findPlant(candidates);
+                intendedAction = (intendedTarget != null) ? CreatureAction.EatPlant : CreatureAction.None;
+            }
+        }
+        if (((stamina / 100 * reproductionThreshold) < energy) && (intendedAction == CreatureAction.None)) {
+            intendedTarget = findMate(candidates);
+            intendedAction = (intendedTarget != null) ? CreatureAction.Mate : CreatureAction.None;
+        }
+        if ((energy > motionThreshold) && (intendedAction == CreatureAction.None)) {
+            intendedAction = CreatureAction.Move;
+            intendedInWater = world.getColor(point) == Color.blue;
+            intendedPoint = getNextPoint(random);
+        }
+    }
+
+    /**
+     * Second half of a double-buffered step: carry out the intent of planStep. World applies the intents one by one
+     * in the order of its SimObjects, and every intent is checked again against what the creatures before it did:
+     * food that was eaten up or moved away, or a mate that mated already or moved out of reach, makes the creature
+     * do nothing this step. Of two creatures contending for the same target only the first one acts.
+     *
+     * @return StatusObject.
+     */
+    StatusObject applyStep() {
+        if (!isIntentStillValid()) {
+            intendedAction = CreatureAction.None;
+        }
+        switch (intendedAction) {
+            case EatMeat:
+                eatCreature(intendedTarget);
+                break;
+            case EatPlant:
+                eatPlant(intendedTarget);
+                break;
+            case Mate:
+                Creature otherParent = (Creature) intendedTarget;
+                if ((otherParent.intendedAction == CreatureAction.Mate) && (otherParent.intendedTarget == this)) {
+                    //they picked each other, one child is enough
+                    otherParent.intendedAction = CreatureAction.None;
                 }
-                nextSteps = world.findSimObjectTarget(this.getPoint(), digestionToUse, wantToSwim);
+                mateWith(otherParent, stepRandom);
+                break;
+            case Move:
+                MovementCost(intendedInWater);
+                point = intendedPoint;
+                break;
+            default:
+                break;
+        }
+        intendedAction = CreatureAction.None;
+        intendedTarget = null;
+        stepRandom = null;
+        return new StatusObject(energy, myColor, alive);
+    }
 
-            } else if (nextSteps.size() > getSpeed()) {
-                point = nextSteps.get(1);
-                nextSteps = null;
+    /**
+     * Checks whether the target of the intent is still where planStep found it, alive and with energy left
+     *
+     * @return true if the intent can be carried out
+     */
+    private boolean isIntentStillValid() {
+        switch (intendedAction) {
+            case EatMeat:
+            case EatPlant:
+                return isFood(intendedTarget) && intendedTarget.point.equals(point);
+            case Mate:
+                Creature otherParent = (Creature) intendedTarget;
+                return otherParent.alive && ((stamina / 100 * reproductionThreshold) < energy) &&
+                        (otherParent.reproductionThreshold < otherParent.energy) &&
+                        (Math.abs(otherParent.point.x - point.x) <= 1) && (Math.abs(otherParent.point.y - point.y) <= 1);
+            default:
+                return true;
+        }
+    }
+
+    /**
+     * Takes the next step towards food, fetching a new route when there is none
+     *
+     * @param random decides what an omnivore goes after
+     * @return the point to stand on next, the current point when there is nowhere to go
+     */
+    private Point getNextPoint(Random random) {
+        Point nextPoint = point;
+        if ((prey != null) && (!prey.alive || (prey.energy <= 0))) {
+            //the prey died or was eaten up, look for other food
+            prey = null;
+        }
+        if (prey != null) {
+            //keep chasing, the pursuit repairs the path when the prey has moved
+            List<Point> route = pursuit.update(point, prey.getPoint(), energy > this.swimThreshold);
+            if ((route == null) || (route.size() < 2)) {
+                prey = null;
             } else {
-                //move to next step
-                if (nextSteps.size() > 0){
-                    try{
-                        point = nextSteps.get(nextSteps.size()-1);
-                        if (nextSteps.size() > 1){
-                            nextSteps = nextSteps.subList(0, nextSteps.size() - 1);
-                        }
-                        else{
-                            nextSteps = null;
-                        }
-                    }
-                    catch (Exception e){
-                        nextSteps = null;
+                nextPoint = route.get(route.size() - 2);
+            }
+        } else if (nextSteps == null){
+
+            //fetch new target list or stand still
+            boolean wantToSwim = false;
+            if (energy <= this.swimThreshold) {
+                wantToSwim = true;
+            }
+            Digestion digestionToUse = digestion;
+            if (digestion.equals(Digestion.Omnivore)){
+                //we need to decide what the creature wants to eat
+                int dice = random.nextInt(100);
+                if (dice >= digestionBalance){
+                    //we want to eat meat!
+                    digestionToUse = Digestion.Carnivore;
+                }
+                else{
+                    digestionToUse = Digestion.Herbivore;
+                }
+            }
+            if (world.isFlowFieldsEnabled()) {
+                //shared flow fields give the next step directly, no path to keep
+                Point flowPoint = world.findFoodStep(this.getPoint(), digestion, digestionToUse, wantToSwim);
+                if (flowPoint != null) {
+                    nextPoint = flowPoint;
+                }
+            } else if (digestionToUse.equals(Digestion.Carnivore)) {
+                //hunt the nearest creature, following it as it moves
+                List<Point> route = world.findSimObjectTarget(this.getPoint(), digestion, digestionToUse, wantToSwim);
+                if (route != null) {
+                    prey = world.findPreyAt(route.get(0), this);
+                }
+                if (prey != null) {
+                    if (pursuit == null) {
+                        pursuit = world.createPursuit();
                     }
+                    pursuit.setPath(route, !wantToSwim);
                 }
-                else
-                {
-                    nextSteps = null;
+            } else {
+                //plan by the energy the steps will cost this creature
+                MovementCostProfile costProfile = MovementCostProfile.forCreature(legs, strength, energy);
+                CompactPath route = world.findSimObjectPath(this.getPoint(), digestion, digestionToUse, wantToSwim, costProfile);
+                if (route != null) {
+                    nextSteps = new PathCursor(route);
                 }
             }
-        }
 
-        return new StatusObject(energy, myColor, alive);
+        } else if ((nextSteps.getRemainingPoints() > getSpeed()) && (nextSteps.getRemainingPoints() > 1)) {
+            //jump to the point before the target
+            nextSteps.skip(nextSteps.getRemainingPoints() - 2);
+            nextPoint = nextSteps.next();
+            nextSteps = null;
+        } else {
+            //move to next step
+            nextPoint = nextSteps.next();
+            if (!nextSteps.hasNext()) {
+                nextSteps = null;
+            }
+        }
+        return nextPoint;
     }
 
     public Digestion getDigestion() {
         return digestion;
     }
 
+    /**
+     * Checks whether the creature is alive, a creature dies when it leaves the world
+     *
+     * @return true if the creature is alive
+     */
+    @Override
+    public boolean isAlive() {
+        return alive;
+    }
+
+    /**
+     * Checks whether creatures of one Digestion hunt creatures of another. Every creature that eats meat hunts all
+     * kinds but its own.
+     *
+     * @param hunterDigestion Digestion of the hunting creature
+     * @param preyDigestion   Digestion of the creature that may be hunted
+     * @return true if it is hunted
+     */
+    public static boolean isPrey(Digestion hunterDigestion, Digestion preyDigestion) {
+        return hunterDigestion != preyDigestion;
+    }
+
+    /**
+     * Checks whether a SimObject can still be eaten: alive and with energy left. Together with isPrey and isPlantFood
+     * this is the one food rule every search for food uses, from eating on the spot to the flow fields; whether a
+     * creature is weak enough to be eaten is only checked once the hunter reaches it.
+     *
+     * @param simObject the SimObject
+     * @return true if it can be eaten
+     */
+    public static boolean isFood(SimObject simObject) {
+        return simObject.isAlive() && (simObject.getEnergy() > 0);
+    }
+
+    /**
+     * Checks whether a SimObject is meat for creatures of a Digestion, see isFood
+     *
+     * @param hunterDigestion Digestion of the hunting creature
+     * @param simObject       the SimObject
+     * @return true if it is a creature they hunt and it can be eaten
+     */
+    public static boolean isMeatFor(Digestion hunterDigestion, SimObject simObject) {
+        return (simObject instanceof Creature) && isPrey(hunterDigestion, ((Creature) simObject).digestion) && isFood(simObject);
+    }
+
+    /**
+     * Checks whether a SimObject is a plant that can be eaten, see isFood
+     *
+     * @param simObject the SimObject
+     * @return true if it is a plant that can be eaten
+     */
+    public static boolean isPlantFood(SimObject simObject) {
+        return (simObject instanceof Plant) && isFood(simObject);
+    }
+
+    /**
+     * Takes the creature out of the simulation, creatures hunting it let go
+     */
+    void die() {
+        alive = false;
+    }
+
+    /**
+     * Gets the creature this creature is chasing
+     *
+     * @return the prey, null if it is not chasing one
+     */
+    Creature getPrey() {
+        return prey;
+    }
+
     private int getHunger() {
 
         hunger = stamina - energy;
@@ -212,10 +426,10 @@ public class Creature extends SimObject {
      * the legs of the creature, the closer to 5 the faster we go.
      * we get more slow if we weigh more.
      *
+     * @param inWater whether the creature stands in the water
      */
-    private void MovementCost(){
-        Color color = world.getColor(point);
-        if (color == Color.blue){
+    private void MovementCost(boolean inWater){
+        if (inWater){
             energy = energy - legs;
         }
         else {
@@ -238,56 +452,64 @@ public class Creature extends SimObject {
      *  if the strength of the creature is more then the strength of the other creature.
      * eat Creature
      *
+     * @param candidates the SimObjects to choose from
      * @return the answer to the question did it eat?
      */
-    private boolean eatMeat () {
-        if (world.getColor(point) != Color.blue) {
-            List<SimObject> ThingToSelect = world.newSimObjectList;
-            for (SimObject sim : ThingToSelect) {
-                if (sim instanceof Creature) {
-                    if (sim.point.x == point.x && sim.point.y == point.y){
-                        if (((Creature) sim).getDigestion() != digestion){
-                            if (strength > ((Creature) sim).strength){
-                                int eaten = strength - ((Creature) sim).strength;
-                                if (sim.energy >= eaten && getHunger() >= eaten) {
-                                    energy = energy + eaten;
-                                    sim.energy = sim.energy - eaten;
-                                    //System.out.println("Did eat meat nr 0");
-                                    return true;
-                                }
-                                else if (getHunger() < eaten && sim.energy >= eaten) {
-                                    energy = energy + getHunger();
-                                    sim.energy = sim.energy - getHunger();
-                                    //System.out.println("Did eat meat nr 1");
-                                    return true;
-                                }
-                                else if (sim.energy >= eaten && getHunger() < eaten) {
-                                    energy = energy + sim.energy;
-                                    sim.energy = 0;
-                                    //System.out.println("Did eat meat nr 2");
-                                    return true;
-                                }
-                                else if (sim.energy < getHunger()) {
-                                    energy = energy + sim.energy;
-                                    sim.energy = 0;
-                                    //System.out.println("Did eat meat nr 3");
-                                    return true;
-                                }
-                                else {
-                                    energy = energy + getHunger();
-                                    sim.energy = sim.energy - getHunger();
-                                    //System.out.println("Did eat meat nr 4");
-                                    return true;
-                                }
-                            }
-                        }
-                    }
+    private boolean eatMeat (ISimObjectIndex candidates) {
+        SimObject sim = findMeat(candidates);
+        if (sim != null) {
+            eatCreature(sim);
+            return true;
+        }
+        return false;
+    }
 
-                }
-            }
+    /**
+     * Finds a creature to eat: meat for this creature, see isMeatFor, weaker than this creature and on the same
+     * gridpoint. Not in the water.
+     *
+     * @param candidates the SimObjects to choose from
+     * @return the creature, null if there is none
+     */
+    private SimObject findMeat(ISimObjectIndex candidates) {
+        if (world.getColor(point) == Color.blue) {
+            return null;
         }
+        return candidates.findFirstAt(point, other -> isMeatFor(digestion, other) && (strength > ((Creature) other).strength));
+    }
 
-        return false;
+    /**
+     * Takes energy from a creature that is eaten
+     *
+     * @param sim the creature
+     */
+    private void eatCreature(SimObject sim) {
+        int eaten = strength - ((Creature) sim).strength;
+        if (sim.energy >= eaten && getHunger() >= eaten) {
+            energy = energy + eaten;
+            sim.energy = sim.energy - eaten;
+            //System.out.println("Did eat meat nr 0");
+        }
+        else if (getHunger() < eaten && sim.energy >= eaten) {
+            energy = energy + getHunger();
+            sim.energy = sim.energy - getHunger();
+            //System.out.println("Did eat meat nr 1");
+        }
+        else if (sim.energy >= eaten && getHunger() < eaten) {
+            energy = energy + sim.energy;
+            sim.energy = 0;
+            //System.out.println("Did eat meat nr 2");
+        }
+        else if (sim.energy < getHunger()) {
+            energy = energy + sim.energy;
+            sim.energy = 0;
+            //System.out.println("Did eat meat nr 3");
+        }
+        else {
+            energy = energy + getHunger();
+            sim.energy = sim.energy - getHunger();
+            //System.out.println("Did eat meat nr 4");
+        }
     }
 
     /**
@@ -295,33 +517,47 @@ public class Creature extends SimObject {
      * do for each simObject in the list of objects that already did a step:
      * if the plant is on the same gridpoint
      * eat Plant
+     * @param candidates the SimObjects to choose from
      * @return the answer to the question did it eat?
      */
-    private boolean eatPlant() {
-        if (world.getColor(point) != Color.blue) {
-            List<SimObject> ThingToSelect = world.newSimObjectList;
-            for (SimObject sim : ThingToSelect) {
-                if (sim instanceof Plant) {
-                    if (sim.point.x == point.x && sim.point.y == point.y){
-                        if (getHunger() > sim.getEnergy()){
-                            energy = energy + sim.getEnergy();
-                            sim.energy = 0;
-                            //System.out.println("ate a whole plant");
-                            return true;
-                        }
-                        else {
-                            energy = energy + getHunger();
-                            sim.energy = sim.energy - getHunger();
-                            //System.out.println("ate a plant til no hungry anymore");
-                            return true;
-                        }
-                    }
-                }
-            }
+    private boolean eatPlant(ISimObjectIndex candidates) {
+        SimObject sim = findPlant(candidates);
+        if (sim != null) {
+            eatPlant(sim);
+            return true;
         }
-
         return false;
+    }
 
+    /**
+     * Finds a plant to eat on the same gridpoint, see isPlantFood. Not in the water.
+     *
+     * @param candidates the SimObjects to choose from
+     * @return the plant, null if there is none
+     */
+    private SimObject findPlant(ISimObjectIndex candidates) {
+        if (world.getColor(point) == Color.blue) {
+            return null;
+        }
+        return candidates.findFirstAt(point, Creature::isPlantFood);
+    }
+
+    /**
+     * Takes energy from a plant that is eaten
+     *
+     * @param sim the plant
+     */
+    private void eatPlant(SimObject sim) {
+        if (getHunger() > sim.getEnergy()){
+            energy = energy + sim.getEnergy();
+            sim.energy = 0;
+            //System.out.println("ate a whole plant");
+        }
+        else {
+            energy = energy + getHunger();
+            sim.energy = sim.energy - getHunger();
+            //System.out.println("ate a plant til no hungry anymore");
+        }
     }
 
     /**
@@ -332,72 +568,105 @@ public class Creature extends SimObject {
      *  if the reproductionThreshold of the other creature is met.
      * Mate.
      *
+     * @param candidates the SimObjects to choose from
+     * @param random     source of the traits of the child
      * @return the answer to the question: "did it mate?"
      */
-    private boolean mate () {
-
-        List<SimObject> ThingToSelect = world.newSimObjectList;
-        for (SimObject otherParent : ThingToSelect) {
-            if (otherParent instanceof Creature) {
-                if (Math.abs(point.x - otherParent.point.x) <= 1 && Math.abs(point.y - otherParent.point.y) <= 1) {
-                    if (((Creature) otherParent).getDigestion() == digestion) {
-                        if (((Creature) otherParent).reproductionThreshold < otherParent.energy) {
-                            int energyChild;
-                            energyChild = reproductionCost + ((Creature) otherParent).reproductionCost;
-                            energy = energy - reproductionCost;
-
-                            //Strength
-                            int diffStrength = Math.abs(strength - ((Creature) otherParent).strength) / 10;
-                            int minStrength = (strength + ((Creature) otherParent).strength) / 2 - diffStrength;
-                            int maxStrength = (strength + ((Creature) otherParent).strength) / 2 + diffStrength;
-                            int strengthChild = ThreadLocalRandom.current().nextInt(minStrength, maxStrength + 1);
-
-
-                            //digestion balance
-                            int diffDigestionBalance = Math.abs(digestionBalance - ((Creature) otherParent).digestionBalance) / 10;
-                            int minDigestionBalance = (digestionBalance + ((Creature) otherParent).digestionBalance) / 2 - diffDigestionBalance;
-                            int maxDigestionBalance = (digestionBalance + ((Creature) otherParent).digestionBalance) / 2 + diffDigestionBalance;
-                            int digestionBalanceChild = ThreadLocalRandom.current().nextInt(minDigestionBalance, maxDigestionBalance + 1);
-
-                            //Stamina
-                            int diffStamina = Math.abs(stamina - ((Creature) otherParent).stamina) / 10;
-                            int minStamina = (stamina + ((Creature) otherParent).stamina) / 2 - diffStamina;
-                            int maxStamina = (stamina + ((Creature) otherParent).stamina) / 2 + diffStamina;
-                            int staminaChild = ThreadLocalRandom.current().nextInt(minStamina, maxStamina + 1);
-
-                            int diffReproductionThreshold = Math.abs(reproductionThreshold - ((Creature) otherParent).reproductionThreshold) / 10;
-                            int minReproductionThreshold = reproductionThreshold + ((Creature) otherParent).reproductionThreshold - diffReproductionThreshold;
-                            int maxReproductionThreshold = reproductionThreshold + ((Creature) otherParent).reproductionThreshold + diffReproductionThreshold;
-                            int reproductionThresholdChild = ThreadLocalRandom.current().nextInt(minReproductionThreshold, maxReproductionThreshold + 1);
-
-                            int diffReproductionCost = Math.abs(reproductionCost - ((Creature) otherParent).reproductionCost) / 10;
-                            int minReproductionCost = (reproductionCost + ((Creature) otherParent).reproductionCost) / 2 - diffReproductionCost;
-                            int maxReproductionCost = (reproductionCost + ((Creature) otherParent).reproductionCost) / 2 + diffReproductionCost;
-                            int reproductionCostChild = ThreadLocalRandom.current().nextInt(minReproductionCost, maxReproductionCost + 1);
-
-                            int diffSwimThreshold = Math.abs(swimThreshold - ((Creature) otherParent).swimThreshold) / 10;
-                            int minSwimThreshold = (swimThreshold + ((Creature) otherParent).swimThreshold) / 2 - diffSwimThreshold;
-                            int maxSwimThreshold = (swimThreshold + ((Creature) otherParent).swimThreshold) / 2 + diffSwimThreshold;
-                            int swimThresholdChild = ThreadLocalRandom.current().nextInt(minSwimThreshold, maxSwimThreshold + 1);
-
-                            int diffMotionThreshold = Math.abs(motionThreshold - ((Creature) otherParent).motionThreshold) / 10;
-                            int minMotionThreshold = (motionThreshold + ((Creature) otherParent).motionThreshold) / 2 - diffMotionThreshold;
-                            int maxMotionThreshold = (motionThreshold + ((Creature) otherParent).motionThreshold) / 2 + diffMotionThreshold;
-                            int motionThresholdChild = ThreadLocalRandom.current().nextInt(minMotionThreshold, maxMotionThreshold + 1);
-
-                            Creature child = new Creature(point, energyChild, digestion, digestionBalanceChild, staminaChild, legs, reproductionThresholdChild, reproductionCostChild, strengthChild, swimThresholdChild, motionThresholdChild, world);
-                            world.newSimObjectList.add(child);
-                            System.out.println("Mated!!!!!");
-                            return true;
-                        }
-                    }
-                }
-            }
+    private boolean mate (ISimObjectIndex candidates, Random random) {
+        Creature otherParent = findMate(candidates);
+        if (otherParent != null) {
+            mateWith(otherParent, random);
+            return true;
         }
         return false;
     }
 
+    /**
+     * Finds a creature to mate with: the same species, past its reproductionThreshold, on the same gridPoint or max 1
+     * gridPoint away
+     *
+     * @param candidates the SimObjects to choose from
+     * @return the creature, null if there is none
+     */
+    private Creature findMate(ISimObjectIndex candidates) {
+        return (Creature) candidates.findFirstNear(point, other -> (other instanceof Creature) && (other != this) &&
+                (((Creature) other).getDigestion() == digestion) && (((Creature) other).reproductionThreshold < other.energy));
+    }
+
+    /**
+     * Pays the reproductionCost and adds a child with traits between those of both parents
+     *
+     * @param otherParent the creature to mate with
+     * @param random      source of the traits of the child
+     */
+    private void mateWith(Creature otherParent, Random random) {
+        int energyChild;
+        energyChild = reproductionCost + otherParent.reproductionCost;
+        energy = energy - reproductionCost;
+
+        //Strength
+        int diffStrength = Math.abs(strength - otherParent.strength) / 10;
+        int minStrength = (strength + otherParent.strength) / 2 - diffStrength;
+        int maxStrength = (strength + otherParent.strength) / 2 + diffStrength;
+        int strengthChild = getRandomBetween(random, minStrength, maxStrength);
+
+
+        //digestion balance
+        int diffDigestionBalance = Math.abs(digestionBalance - otherParent.digestionBalance) / 10;
+        int minDigestionBalance = (digestionBalance + otherParent.digestionBalance) / 2 - diffDigestionBalance;
+        int maxDigestionBalance = (digestionBalance + otherParent.digestionBalance) / 2 + diffDigestionBalance;
+        int digestionBalanceChild = getRandomBetween(random, minDigestionBalance, maxDigestionBalance);
+
+        //Stamina
+        int diffStamina = Math.abs(stamina - otherParent.stamina) / 10;
+        int minStamina = (stamina + otherParent.stamina) / 2 - diffStamina;
+        int maxStamina = (stamina + otherParent.stamina) / 2 + diffStamina;
+        int staminaChild = getRandomBetween(random, minStamina, maxStamina);
+
+        int diffReproductionThreshold = Math.abs(reproductionThreshold - otherParent.reproductionThreshold) / 10;
+        int minReproductionThreshold = reproductionThreshold + otherParent.reproductionThreshold - diffReproductionThreshold;
+        int maxReproductionThreshold = reproductionThreshold + otherParent.reproductionThreshold + diffReproductionThreshold;
+        int reproductionThresholdChild = getRandomBetween(random, minReproductionThreshold, maxReproductionThreshold);
+
+        int diffReproductionCost = Math.abs(reproductionCost - otherParent.reproductionCost) / 10;
+        int minReproductionCost = (reproductionCost + otherParent.reproductionCost) / 2 - diffReproductionCost;
+        int maxReproductionCost = (reproductionCost + otherParent.reproductionCost) / 2 + diffReproductionCost;
+        int reproductionCostChild = getRandomBetween(random, minReproductionCost, maxReproductionCost);
+
+        int diffSwimThreshold = Math.abs(swimThreshold - otherParent.swimThreshold) / 10;
+        int minSwimThreshold = (swimThreshold + otherParent.swimThreshold) / 2 - diffSwimThreshold;
+        int maxSwimThreshold = (swimThreshold + otherParent.swimThreshold) / 2 + diffSwimThreshold;
+        int swimThresholdChild = getRandomBetween(random, minSwimThreshold, maxSwimThreshold);
+
+        int diffMotionThreshold = Math.abs(motionThreshold - otherParent.motionThreshold) / 10;
+        int minMotionThreshold = (motionThreshold + otherParent.motionThreshold) / 2 - diffMotionThreshold;
+        int maxMotionThreshold = (motionThreshold + otherParent.motionThreshold) / 2 + diffMotionThreshold;
+        int motionThresholdChild = getRandomBetween(random, minMotionThreshold, maxMotionThreshold);
+
+        Creature child = new Creature(point, energyChild, digestion, digestionBalanceChild, staminaChild, legs, reproductionThresholdChild, reproductionCostChild, strengthChild, swimThresholdChild, motionThresholdChild, world);
+        world.addBornSimObject(child);
+        System.out.println("Mated!!!!!");
+    }
+
+    /**
+     * Draws a whole number from min up to and including max
+     */
+    private static int getRandomBetween(Random random, int min, int max) {
+        return min + random.nextInt((max - min) + 1);
+    }
+
     public int getDigestionBalance() {
         return digestionBalance;
     }
+
+    /**
+     * What a creature decided to do in a double-buffered step
+     */
+    private enum CreatureAction {
+        None,
+        EatMeat,
+        EatPlant,
+        Mate,
+        Move
+    }
 }
\ No newline at end of file
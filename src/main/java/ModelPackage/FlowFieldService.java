@@ -0,0 +1,222 @@
+package ModelPackage;
+
+import java.awt.*;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Keeps a distance field per kind of food, so creatures looking for food do not each need their own search. Every
+ * field holds, for each point of the grid, the number of steps to the nearest food of its kind; a creature moves
+ * towards its food by stepping to the adjacent point with the lowest distance. There is a field for the plants and
+ * one for the creatures of each Digestion, each in two versions: one over all points and one over the ground only,
+ * for creatures that do not want to swim.
+ * <p>
+ * The World hands over the positions of the SimObjects once per step; the ones that can not be eaten any more are
+ * left out, see Creature.isFood. A field is only computed when it is first
+ * read in a step, with a single breadth first search starting from all its food at once.
+ */
+public class FlowFieldService {
+
+    //field masks for getNextStep, the creatures of each Digestion are found with getCreatureMask
+    public static final int PLANTS = 1;
+
+    private static final int UNREACHABLE = Integer.MAX_VALUE;
+    private static final int FIELD_COUNT = 1 + Digestion.values().length;
+
+    private MovementPlanner planner;
+    private PlannerGraph graph;
+
+    //food positions of the current step, per field
+    private int[][] sources;
+    private int[] sourceCounts;
+
+    //distances per field, computed on first use in a step
+    private int[][] swimFields;
+    private int[][] landFields;
+    private boolean[] swimFieldValid;
+    private boolean[] landFieldValid;
+    private int[] queue;
+    private int computedFieldCount;
+
+    /**
+     * Creates a service using the grid of a planner. The planner has to be initialized before the first update.
+     *
+     * @param planner planner providing the grid
+     */
+    public FlowFieldService(MovementPlanner planner) {
+        this.planner = planner;
+        sources = new int[FIELD_COUNT][0];
+        sourceCounts = new int[FIELD_COUNT];
+        swimFields = new int[FIELD_COUNT][];
+        landFields = new int[FIELD_COUNT][];
+        swimFieldValid = new boolean[FIELD_COUNT];
+        landFieldValid = new boolean[FIELD_COUNT];
+    }
+
+    /**
+     * Gets the field mask for the creatures of a Digestion
+     *
+     * @param digestion Digestion of the creatures
+     * @return int containing the mask, combine masks with |
+     */
+    public static int getCreatureMask(Digestion digestion) {
+        return 1 << (1 + digestion.ordinal());
+    }
+
+    /**
+     * Stores the food positions for the next step and drops the fields of the previous one
+     *
+     * @param simObjects all SimObjects in the world
+     */
+    public void update(List<SimObject> simObjects) {
+        PlannerGraph currentGraph = planner.getGraph();
+        if (currentGraph != graph) {
+            graph = currentGraph;
+            swimFields = new int[FIELD_COUNT][];
+            landFields = new int[FIELD_COUNT][];
+            queue = new int[graph.getPointCount()];
+        }
+
+        Arrays.fill(sourceCounts, 0);
+        for (SimObject simObject : simObjects) {
+            if (!Creature.isFood(simObject)) {
+                //dead, or eaten up, so no food for anyone
+                continue;
+            }
+            int field = (simObject instanceof Creature) ? 1 + ((Creature) simObject).getDigestion().ordinal() : 0;
+            if (sourceCounts[field] == sources[field].length) {
+                sources[field] = Arrays.copyOf(sources[field], Math.max(16, sources[field].length * 2));
+            }
+            Point point = simObject.getPoint();
+            sources[field][sourceCounts[field]++] = (point.y * graph.getGridWidth()) + point.x;
+        }
+        Arrays.fill(swimFieldValid, false);
+        Arrays.fill(landFieldValid, false);
+    }
+
+    /**
+     * Gets the adjacent point that brings a creature closest to the nearest food
+     *
+     * @param from      point the creature stands on
+     * @param fieldMask kinds of food the creature looks for, PLANTS and creature masks combined
+     * @param landOnly  true to stay on the ground; ignored when the creature is in the water already
+     * @return the point to move to, null if the creature is on food already or no food can be reached
+     */
+    public Point getNextStep(Point from, int fieldMask, boolean landOnly) {
+        int width = graph.getGridWidth();
+        int point = (from.y * width) + from.x;
+        boolean useLand = landOnly && (graph.getPointAreas()[point] > 0);
+
+        int bestDistance = getDistance(point, fieldMask, useLand);
+        if ((bestDistance == 0) || (bestDistance == UNREACHABLE)) {
+            return null;
+        }
+        int bestPoint = -1;
+        int[] adjacencyOffsets = graph.getAdjacencyOffsets();
+        int[] adjacentPoints = graph.getAdjacentPoints();
+        for (int i = adjacencyOffsets[point]; i < adjacencyOffsets[point + 1]; i++) {
+            int distance = getDistance(adjacentPoints[i], fieldMask, useLand);
+            if (distance < bestDistance) {
+                bestDistance = distance;
+                bestPoint = adjacentPoints[i];
+            }
+        }
+        return (bestPoint == -1) ? null : new Point(bestPoint % width, bestPoint / width);
+    }
+
+    /**
+     * Gets the number of steps from a point to the nearest food
+     *
+     * @param from      the point
+     * @param fieldMask kinds of food to look for
+     * @param landOnly  true to only count paths over the ground
+     * @return the number of steps, Integer.MAX_VALUE if no food can be reached
+     */
+    public int getDistance(Point from, int fieldMask, boolean landOnly) {
+        return getDistance((from.y * graph.getGridWidth()) + from.x, fieldMask, landOnly);
+    }
+
+    /**
+     * Gets the number of fields computed since the service was created
+     *
+     * @return int containing the field count
+     */
+    public int getComputedFieldCount() {
+        return computedFieldCount;
+    }
+
+    /**
+     * Computes every field of the current step that was not used yet. Fields are computed on first use, which only
+     * one thread may do; once all are computed, getNextStep and getDistance can be called from several threads at
+     * once until the next update.
+     */
+    public void computeAllFields() {
+        for (int field = 0; field < FIELD_COUNT; field++) {
+            getField(field, false);
+            getField(field, true);
+        }
+    }
+
+    private int getDistance(int point, int fieldMask, boolean landOnly) {
+        int distance = UNREACHABLE;
+        for (int field = 0; field < FIELD_COUNT; field++) {
+            if ((fieldMask & (1 << field)) != 0) {
+                distance = Math.min(distance, getField(field, landOnly)[point]);
+            }
+        }
+        return distance;
+    }
+
+    /**
+     * Gets a field, computing it if it was not used yet in this step
+     */
+    private int[] getField(int field, boolean landOnly) {
+        int[][] fields = landOnly ? landFields : swimFields;
+        boolean[] valid = landOnly ? landFieldValid : swimFieldValid;
+        if (!valid[field]) {
+            if (fields[field] == null) {
+                fields[field] = new int[graph.getPointCount()];
+            }
+            computeField(field, landOnly, fields[field]);
+            valid[field] = true;
+            computedFieldCount++;
+        }
+        return fields[field];
+    }
+
+    /**
+     * Breadth first search from all food of a field at once. Over the ground only, food in the water is left out
+     * and the search does not leave the living area it starts in.
+     *
+     * @param field     field to compute
+     * @param landOnly  true to only search the ground
+     * @param distances array to store the distance of every point in
+     */
+    private void computeField(int field, boolean landOnly, int[] distances) {
+        int[] adjacencyOffsets = graph.getAdjacencyOffsets();
+        int[] adjacentPoints = graph.getAdjacentPoints();
+        int[] pointAreas = graph.getPointAreas();
+        Arrays.fill(distances, UNREACHABLE);
+
+        int queueHead = 0;
+        int queueTail = 0;
+        for (int i = 0; i < sourceCounts[field]; i++) {
+            int source = sources[field][i];
+            if ((distances[source] == UNREACHABLE) && (pointAreas[source] != -1) && (!landOnly || (pointAreas[source] > 0))) {
+                distances[source] = 0;
+                queue[queueTail++] = source;
+            }
+        }
+
+        while (queueHead < queueTail) {
+            int currentPoint = queue[queueHead++];
+            for (int i = adjacencyOffsets[currentPoint]; i < adjacencyOffsets[currentPoint + 1]; i++) {
+                int adjacentPoint = adjacentPoints[i];
+                if ((distances[adjacentPoint] == UNREACHABLE) && (!landOnly || (pointAreas[adjacentPoint] > 0))) {
+                    distances[adjacentPoint] = distances[currentPoint] + 1;
+                    queue[queueTail++] = adjacentPoint;
+                }
+            }
+        }
+    }
+}
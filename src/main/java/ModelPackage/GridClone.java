@@ -39,4 +39,4 @@ public class GridClone implements Serializable, IGrid {
     public GridPointType getPointType(Point p) {
         return null;
     }
-}
\ No newline at end of file
+}
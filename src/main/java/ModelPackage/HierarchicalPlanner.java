@@ -0,0 +1,832 @@
+package ModelPackage;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Hierarchical pathfinding (HPA*) over the plannable grid of a MovementPlanner. The grid is split into square
+ * clusters. Where two neighbouring clusters share an open border, entrance points are placed on both sides, and the
+ * distances between the entrances of one cluster are computed once. A long path is then found on this small abstract
+ * graph of entrances and afterwards refined into single steps, one cluster at a time.
+ * <p>
+ * Two abstract graphs are kept: one over every point that is not an obstacle, and one that only connects points of
+ * the same living area, used for island only navigation within a living area.
+ */
+class HierarchicalPlanner {
+
+    static final int CLUSTER_SIZE = 16;
+
+    //runs of open border points at least this long get an entrance at both ends instead of one in the middle
+    private static final int LONG_ENTRANCE_LENGTH = 6;
+
+    //furthest number of steps ahead a refined path is shortened to a straight line
+    private static final int SMOOTHING_DISTANCE = 2 * CLUSTER_SIZE;
+
+    private final PlannerGraph graph;
+    private final int gridWidth;
+    private final int gridHeight;
+    private final int clustersX;
+    private final int clustersY;
+    private final int[] adjacencyOffsets;
+    private final int[] adjacentPoints;
+    private final int[] pointAreas;
+
+    //abstract graphs, shared by the planners of all threads once built
+    private final AbstractGraph anyGraph;
+    private final AbstractGraph landGraph;
+
+    //search state, every thread has its own
+    private final AbstractSearch anySearch;
+    private final AbstractSearch landSearch;
+    private int[] searchQueue;
+    private int[] parentPoints;
+    private int[] pointDistances;
+    private int[] visitedGeneration;
+    private int searchGeneration;
+
+    private int lastExpansionCount;
+
+    /**
+     * Builds the abstract graphs for a planner graph
+     *
+     * @param graph graph to build the abstract graphs for
+     */
+    HierarchicalPlanner(PlannerGraph graph) {
+        this(graph, null, null);
+    }
+
+    /**
+     * Builds the abstract graphs for a planner graph, searching the clusters of every row of clusters in parallel
+     *
+     * @param graph     graph to build the abstract graphs for
+     * @param buildPool threads to search the clusters on, null to search them on the calling thread
+     */
+    HierarchicalPlanner(PlannerGraph graph, ForkJoinPool buildPool) {
+        this(graph, null, buildPool);
+    }
+
+    /**
+     * Creates a planner for another thread, sharing the abstract graphs of an existing planner but with its own
+     * search state
+     *
+     * @param shared planner to share the abstract graphs with
+     */
+    HierarchicalPlanner(HierarchicalPlanner shared) {
+        this(shared.graph, shared, null);
+    }
+
+    private HierarchicalPlanner(PlannerGraph graph, HierarchicalPlanner shared, ForkJoinPool buildPool) {
+        this.graph = graph;
+        gridWidth = graph.getGridWidth();
+        gridHeight = graph.getGridHeight();
+        adjacencyOffsets = graph.getAdjacencyOffsets();
+        adjacentPoints = graph.getAdjacentPoints();
+        pointAreas = graph.getPointAreas();
+        clustersX = (gridWidth + CLUSTER_SIZE - 1) / CLUSTER_SIZE;
+        clustersY = (gridHeight + CLUSTER_SIZE - 1) / CLUSTER_SIZE;
+
+        int pointCount = gridWidth * gridHeight;
+        searchQueue = new int[pointCount];
+        parentPoints = new int[pointCount];
+        pointDistances = new int[pointCount];
+        visitedGeneration = new int[pointCount];
+        searchGeneration = 0;
+
+        if (shared == null) {
+            anyGraph = new AbstractGraph(false, buildPool);
+            landGraph = new AbstractGraph(true, buildPool);
+        } else {
+            anyGraph = shared.anyGraph;
+            landGraph = shared.landGraph;
+        }
+        anySearch = new AbstractSearch(anyGraph);
+        landSearch = new AbstractSearch(landGraph);
+    }
+
+    /**
+     * Gets the number of entrance points in the abstract graph
+     *
+     * @param landOnly true for the graph used for island only navigation
+     * @return int containing the entrance count
+     */
+    int getEntranceCount(boolean landOnly) {
+        return landOnly ? landGraph.nodeCount : anyGraph.nodeCount;
+    }
+
+    /**
+     * Gets the number of abstract nodes and grid points expanded by the last search
+     *
+     * @return int containing the expansion count
+     */
+    int getLastExpansionCount() {
+        return lastExpansionCount;
+    }
+
+    /**
+     * Finds a path on the abstract graph, refines it into single steps and cuts the bends the cluster entrances put
+     * in it, see smoothPath.
+     *
+     * @param start    element number of the startpoint
+     * @param target   element number of the target
+     * @param landOnly true to only use points of the living area of the startpoint
+     * @return element numbers of the path, starting with the startpoint. null if the abstract graph does not connect
+     * the points, which does not mean no path exists: crossings diagonally past a cluster corner are not in the graph
+     */
+    int[] findPath(int start, int target, boolean landOnly) {
+        lastExpansionCount = 0;
+        AbstractSearch search = landOnly ? landSearch : anySearch;
+        int allowedArea = landOnly ? pointAreas[start] : -1;
+        int[] abstractPath = search.search(start, target, allowedArea);
+        if (abstractPath == null) {
+            return null;
+        }
+
+        //refine every abstract edge, dropping any loop where two refined parts cross the same point
+        int[] path = new int[64];
+        int length = 0;
+        path[length++] = start;
+        for (int i = 1; i < abstractPath.length; i++) {
+            int[] part = refine(abstractPath[i - 1], abstractPath[i], allowedArea);
+            if (part == null) {
+                return null;
+            }
+            for (int point : part) {
+                if (length == path.length) {
+                    path = Arrays.copyOf(path, length * 2);
+                }
+                path[length++] = point;
+            }
+        }
+
+        //cut the bends towards the entrances, then remove loops in a last pass, the refinements reuse the search
+        //arrays so they are only free now
+        path = smoothPath(path, length, allowedArea);
+        length = path.length;
+        startSearchGeneration();
+        int[] pathPositions = pointDistances;
+        int smoothLength = 0;
+        for (int i = 0; i < length; i++) {
+            int point = path[i];
+            if ((visitedGeneration[point] == searchGeneration) && (pathPositions[point] < smoothLength) &&
+                    (path[pathPositions[point]] == point)) {
+                smoothLength = pathPositions[point] + 1;
+                continue;
+            }
+            visitedGeneration[point] = searchGeneration;
+            pathPositions[point] = smoothLength;
+            path[smoothLength++] = point;
+        }
+        return Arrays.copyOf(path, smoothLength);
+    }
+
+    /**
+     * Shortens a refined path. A refined path passes through the entrances of every cluster it crosses, which can
+     * make it bend away from the shortest path. From every point, the furthest point at most SMOOTHING_DISTANCE
+     * steps ahead that a straight line reaches in fewer steps replaces the part of the path in between.
+     *
+     * @param path        element numbers of the path
+     * @param length      number of points of the path
+     * @param allowedArea only points of this area can be entered, -1 for all points except obstacles
+     * @return the shortened path
+     */
+    private int[] smoothPath(int[] path, int length, int allowedArea) {
+        int[] smoothPath = new int[length];
+        int smoothLength = 0;
+        smoothPath[smoothLength++] = path[0];
+        int i = 0;
+        while (i < length - 1) {
+            int next = i + 1;
+            for (int j = Math.min(length - 1, i + SMOOTHING_DISTANCE); j > i + 1; j--) {
+                if ((getStepEstimate(path[i], path[j]) < j - i) && isLineOpen(path[i], path[j], allowedArea)) {
+                    next = j;
+                    break;
+                }
+            }
+            if (next == i + 1) {
+                smoothPath[smoothLength++] = path[next];
+            } else {
+                smoothLength = addLine(path[i], path[next], smoothPath, smoothLength);
+            }
+            i = next;
+        }
+        return Arrays.copyOf(smoothPath, smoothLength);
+    }
+
+    /**
+     * Checks whether every point of the straight line between two points can be entered, see addLine
+     */
+    private boolean isLineOpen(int from, int to, int allowedArea) {
+        int steps = getStepEstimate(from, to);
+        for (int step = 1; step < steps; step++) {
+            int point = getLinePoint(from, to, step, steps);
+            if ((allowedArea != -1) ? (pointAreas[point] != allowedArea) : (pointAreas[point] == -1)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Adds the points of the straight line between two points to a path, taking the shorter way around the grid.
+     * The line takes as many steps as the longer axis needs and spreads the steps along the shorter axis evenly.
+     *
+     * @param from   element number the line starts from, already on the path
+     * @param to     element number the line ends on
+     * @param path   path to add the points after from to
+     * @param length number of points on the path
+     * @return the new number of points on the path
+     */
+    private int addLine(int from, int to, int[] path, int length) {
+        int steps = getStepEstimate(from, to);
+        for (int step = 1; step <= steps; step++) {
+            path[length++] = getLinePoint(from, to, step, steps);
+        }
+        return length;
+    }
+
+    /**
+     * Gets a point of the straight line between two points
+     *
+     * @param from  element number the line starts from
+     * @param to    element number the line ends on
+     * @param step  number of the point on the line, from 0 to steps
+     * @param steps number of steps of the line
+     * @return element number of the point
+     */
+    private int getLinePoint(int from, int to, int step, int steps) {
+        int dx = getWrappedOffset((to % gridWidth) - (from % gridWidth), gridWidth);
+        int dy = getWrappedOffset((to / gridWidth) - (from / gridWidth), gridHeight);
+        int x = Math.floorMod((from % gridWidth) + Math.round((float) (dx * step) / steps), gridWidth);
+        int y = Math.floorMod((from / gridWidth) + Math.round((float) (dy * step) / steps), gridHeight);
+        return (y * gridWidth) + x;
+    }
+
+    /**
+     * Gets the shorter of going directly or across the edge along one axis of the grid
+     */
+    private static int getWrappedOffset(int offset, int size) {
+        if (offset > size / 2) {
+            return offset - size;
+        }
+        if (offset < -size / 2) {
+            return offset + size;
+        }
+        return offset;
+    }
+
+    /**
+     * Finds the steps between two points of the same cluster, or across a cluster border when the points are
+     * adjacent.
+     *
+     * @param from        element number to start from
+     * @param to          element number to go to
+     * @param allowedArea only points of this area can be entered, -1 for all points except obstacles
+     * @return the points after from, up to and including to. null if they are not connected inside the cluster
+     */
+    private int[] refine(int from, int to, int allowedArea) {
+        if (from == to) {
+            //the startpoint or target is an entrance itself
+            return new int[0];
+        }
+        if (isAdjacent(from, to)) {
+            return new int[]{to};
+        }
+        if (!searchCluster(from, getCluster(from), to, allowedArea)) {
+            return null;
+        }
+        int[] part = new int[pointDistances[to]];
+        int point = to;
+        for (int i = part.length - 1; i >= 0; i--) {
+            part[i] = point;
+            point = parentPoints[point];
+        }
+        return part;
+    }
+
+    /**
+     * Breadth first search that stays inside one cluster
+     *
+     * @param from        element number to start from
+     * @param cluster     cluster to stay in
+     * @param to          element number to stop at, -1 to search the whole cluster
+     * @param allowedArea only points of this area can be entered, -1 for all points except obstacles
+     * @return true if the point to stop at was reached
+     */
+    private boolean searchCluster(int from, int cluster, int to, int allowedArea) {
+        startSearchGeneration();
+        int queueHead = 0;
+        int queueTail = 0;
+        visitedGeneration[from] = searchGeneration;
+        parentPoints[from] = -1;
+        pointDistances[from] = 0;
+        searchQueue[queueTail++] = from;
+        while (queueHead < queueTail) {
+            int currentPoint = searchQueue[queueHead++];
+            lastExpansionCount++;
+            for (int i = adjacencyOffsets[currentPoint]; i < adjacencyOffsets[currentPoint + 1]; i++) {
+                int adjacentPoint = adjacentPoints[i];
+                if ((visitedGeneration[adjacentPoint] == searchGeneration) || (getCluster(adjacentPoint) != cluster) ||
+                        ((allowedArea != -1) && (pointAreas[adjacentPoint] != allowedArea))) {
+                    continue;
+                }
+                visitedGeneration[adjacentPoint] = searchGeneration;
+                parentPoints[adjacentPoint] = currentPoint;
+                pointDistances[adjacentPoint] = pointDistances[currentPoint] + 1;
+                if (adjacentPoint == to) {
+                    return true;
+                }
+                searchQueue[queueTail++] = adjacentPoint;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Gets the distance to a point after searchCluster
+     *
+     * @param point element number of the point
+     * @return number of steps, -1 if the point was not reached
+     */
+    private int getSearchedDistance(int point) {
+        return (visitedGeneration[point] == searchGeneration) ? pointDistances[point] : -1;
+    }
+
+    private void startSearchGeneration() {
+        searchGeneration++;
+        if (searchGeneration == Integer.MAX_VALUE) {
+            Arrays.fill(visitedGeneration, 0);
+            searchGeneration = 1;
+        }
+    }
+
+    /**
+     * Gets the cluster a point belongs to. Clusters are numbered row by row like the points of the grid.
+     *
+     * @param point element number of the point
+     * @return cluster number
+     */
+    private int getCluster(int point) {
+        return ((point / gridWidth) / CLUSTER_SIZE) * clustersX + ((point % gridWidth) / CLUSTER_SIZE);
+    }
+
+    /**
+     * Checks whether two points are next to each other, including across the edges of the grid
+     */
+    private boolean isAdjacent(int first, int second) {
+        return getStepEstimate(first, second) == 1;
+    }
+
+    /**
+     * Gets the number of steps between two points when nothing is in the way, taking the shorter way around the grid
+     *
+     * @param first  element number of the first point
+     * @param second element number of the second point
+     * @return number of steps
+     */
+    private int getStepEstimate(int first, int second) {
+        int dx = Math.abs((first % gridWidth) - (second % gridWidth));
+        int dy = Math.abs((first / gridWidth) - (second / gridWidth));
+        return Math.max(Math.min(dx, gridWidth - dx), Math.min(dy, gridHeight - dy));
+    }
+
+    /**
+     * Checks whether a point can be used in a graph
+     *
+     * @param point    element number of the point
+     * @param landOnly true if only living areas can be used
+     * @return true if the point can be used
+     */
+    private boolean isOpen(int point, boolean landOnly) {
+        return landOnly ? (pointAreas[point] > 0) : (pointAreas[point] != -1);
+    }
+
+    /**
+     * Abstract graph of the entrances between clusters. Nodes are entrance points; edges connect entrances of the
+     * same cluster with their distance inside the cluster, and the two points on either side of a border with a
+     * single step. Not changed after it is built.
+     */
+    private class AbstractGraph {
+
+        private boolean landOnly;
+        private int nodeCount;
+        private int[] nodePoints;
+
+        //nodes of each cluster, in compressed sparse row form
+        private int[] clusterOffsets;
+        private int[] clusterNodes;
+
+        //edges of each node, in compressed sparse row form
+        private int[] edgeOffsets;
+        private int[] edgeTargets;
+        private int[] edgeCosts;
+
+        AbstractGraph(boolean landOnly, ForkJoinPool buildPool) {
+            this.landOnly = landOnly;
+            ArrayList<int[]> borderPairs = new ArrayList<>();
+            findEntrances(borderPairs);
+            buildNodes(borderPairs);
+            buildEdges(borderPairs, buildPool);
+        }
+
+        /**
+         * Walks the right and upper border of every cluster and adds the point pairs that become entrances.
+         * The borders of the last clusters wrap around to the first ones.
+         *
+         * @param borderPairs list to add the point pairs to, the first point lies in the cluster being walked
+         */
+        private void findEntrances(ArrayList<int[]> borderPairs) {
+            for (int clusterY = 0; clusterY < clustersY; clusterY++) {
+                for (int clusterX = 0; clusterX < clustersX; clusterX++) {
+                    int left = clusterX * CLUSTER_SIZE;
+                    int right = Math.min(left + CLUSTER_SIZE, gridWidth) - 1;
+                    int bottom = clusterY * CLUSTER_SIZE;
+                    int top = Math.min(bottom + CLUSTER_SIZE, gridHeight) - 1;
+                    int nextX = (right + 1) % gridWidth;
+                    int nextY = (top + 1) % gridHeight;
+
+                    int runLength = 0;
+                    for (int y = bottom; y <= top + 1; y++) {
+                        boolean open = (y <= top) && isEntrance(y * gridWidth + right, y * gridWidth + nextX);
+                        if (open && (runLength > 0) && (pointAreas[y * gridWidth + right] != pointAreas[(y - 1) * gridWidth + right])) {
+                            addEntrances(borderPairs, y - runLength, runLength, right, nextX, true);
+                            runLength = 0;
+                        }
+                        if (open) {
+                            runLength++;
+                        } else if (runLength > 0) {
+                            addEntrances(borderPairs, y - runLength, runLength, right, nextX, true);
+                            runLength = 0;
+                        }
+                    }
+
+                    runLength = 0;
+                    for (int x = left; x <= right + 1; x++) {
+                        boolean open = (x <= right) && isEntrance(top * gridWidth + x, nextY * gridWidth + x);
+                        if (open && (runLength > 0) && (pointAreas[top * gridWidth + x] != pointAreas[top * gridWidth + x - 1])) {
+                            addEntrances(borderPairs, x - runLength, runLength, top, nextY, false);
+                            runLength = 0;
+                        }
+                        if (open) {
+                            runLength++;
+                        } else if (runLength > 0) {
+                            addEntrances(borderPairs, x - runLength, runLength, top, nextY, false);
+                            runLength = 0;
+                        }
+                    }
+                }
+            }
+        }
+
+        /**
+         * Checks whether two points on either side of a border can be crossed between
+         */
+        private boolean isEntrance(int first, int second) {
+            if (!isOpen(first, landOnly) || !isOpen(second, landOnly)) {
+                return false;
+            }
+            return !landOnly || (pointAreas[first] == pointAreas[second]);
+        }
+
+        /**
+         * Adds the entrances for one run of open border points
+         *
+         * @param borderPairs list to add the point pairs to
+         * @param runStart    first coordinate of the run along the border
+         * @param runLength   number of points in the run
+         * @param border      coordinate of the border inside the cluster
+         * @param nextBorder  coordinate of the border in the next cluster
+         * @param vertical    true for a border along the Y axis, false for one along the X axis
+         */
+        private void addEntrances(ArrayList<int[]> borderPairs, int runStart, int runLength, int border, int nextBorder, boolean vertical) {
+            int[] positions;
+            if (runLength >= LONG_ENTRANCE_LENGTH) {
+                positions = new int[]{runStart, runStart + runLength - 1};
+            } else {
+                positions = new int[]{runStart + (runLength / 2)};
+            }
+            for (int position : positions) {
+                if (vertical) {
+                    borderPairs.add(new int[]{position * gridWidth + border, position * gridWidth + nextBorder});
+                } else {
+                    borderPairs.add(new int[]{border * gridWidth + position, nextBorder * gridWidth + position});
+                }
+            }
+        }
+
+        /**
+         * Creates a node for every point used by an entrance and groups the nodes by cluster
+         */
+        private void buildNodes(ArrayList<int[]> borderPairs) {
+            //a point can be part of more than one entrance, it still gets a single node
+            int[] pointNodes = new int[gridWidth * gridHeight];
+            Arrays.fill(pointNodes, -1);
+            int[] points = new int[borderPairs.size() * 2];
+            nodeCount = 0;
+            for (int[] pair : borderPairs) {
+                for (int p = 0; p < 2; p++) {
+                    if (pointNodes[pair[p]] == -1) {
+                        pointNodes[pair[p]] = nodeCount;
+                        points[nodeCount++] = pair[p];
+                    }
+                    pair[p] = pointNodes[pair[p]];
+                }
+            }
+            nodePoints = Arrays.copyOf(points, nodeCount);
+
+            clusterOffsets = new int[clustersX * clustersY + 1];
+            for (int node = 0; node < nodeCount; node++) {
+                clusterOffsets[getCluster(nodePoints[node]) + 1]++;
+            }
+            for (int cluster = 0; cluster < clustersX * clustersY; cluster++) {
+                clusterOffsets[cluster + 1] += clusterOffsets[cluster];
+            }
+            clusterNodes = new int[nodeCount];
+            int[] fill = Arrays.copyOf(clusterOffsets, clusterOffsets.length - 1);
+            for (int node = 0; node < nodeCount; node++) {
+                clusterNodes[fill[getCluster(nodePoints[node])]++] = node;
+            }
+        }
+
+        /**
+         * Connects the nodes of every cluster by searching the cluster from each of them, and the two nodes of every
+         * entrance with a single step. Every row of clusters is searched on its own, in parallel when there is a
+         * pool; the edges are added in the order of the clusters either way.
+         *
+         * @param borderPairs entrances, already converted to node numbers
+         * @param buildPool   threads to search the rows of clusters on, null to search them on the calling thread
+         */
+        private void buildEdges(ArrayList<int[]> borderPairs, ForkJoinPool buildPool) {
+            ArrayList<int[]> edges = new ArrayList<>();
+            for (int[] pair : borderPairs) {
+                edges.add(new int[]{pair[0], pair[1], 1});
+                edges.add(new int[]{pair[1], pair[0], 1});
+            }
+            if (buildPool == null) {
+                edges.addAll(findClusterEdges(0, clustersY));
+            } else {
+                List<Callable<ArrayList<int[]>>> tasks = new ArrayList<>();
+                for (int clusterY = 0; clusterY < clustersY; clusterY++) {
+                    int clusterRow = clusterY;
+                    tasks.add(() -> findClusterEdges(clusterRow, clusterRow + 1));
+                }
+                try {
+                    for (Future<ArrayList<int[]>> result : buildPool.invokeAll(tasks)) {
+                        edges.addAll(result.get());
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Building the abstract graph was interrupted", e);
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException("Building the abstract graph failed", e.getCause());
+                }
+            }
+
+            edgeOffsets = new int[nodeCount + 1];
+            for (int[] edge : edges) {
+                edgeOffsets[edge[0] + 1]++;
+            }
+            for (int node = 0; node < nodeCount; node++) {
+                edgeOffsets[node + 1] += edgeOffsets[node];
+            }
+            edgeTargets = new int[edges.size()];
+            edgeCosts = new int[edges.size()];
+            int[] fill = Arrays.copyOf(edgeOffsets, nodeCount);
+            for (int[] edge : edges) {
+                edgeTargets[fill[edge[0]]] = edge[1];
+                edgeCosts[fill[edge[0]]++] = edge[2];
+            }
+        }
+
+        /**
+         * Searches the clusters of some rows of clusters from each of their nodes. Uses its own search state, sized
+         * for a single cluster, so several rows can be searched at the same time.
+         *
+         * @param firstClusterRow first row of clusters to search
+         * @param endClusterRow   row of clusters after the last one to search
+         * @return edges between the nodes of the same cluster, as node, node and distance
+         */
+        private ArrayList<int[]> findClusterEdges(int firstClusterRow, int endClusterRow) {
+            ArrayList<int[]> edges = new ArrayList<>();
+            int[] queue = new int[CLUSTER_SIZE * CLUSTER_SIZE];
+            int[] distances = new int[CLUSTER_SIZE * CLUSTER_SIZE];
+            int[] visited = new int[CLUSTER_SIZE * CLUSTER_SIZE];
+            int generation = 0;
+            for (int cluster = firstClusterRow * clustersX; cluster < endClusterRow * clustersX; cluster++) {
+                int left = (cluster % clustersX) * CLUSTER_SIZE;
+                int bottom = (cluster / clustersX) * CLUSTER_SIZE;
+                for (int i = clusterOffsets[cluster]; i < clusterOffsets[cluster + 1]; i++) {
+                    int node = clusterNodes[i];
+                    int from = nodePoints[node];
+                    int allowedArea = landOnly ? pointAreas[from] : -1;
+
+                    //breadth first search that stays inside the cluster, distances by position in the cluster
+                    generation++;
+                    int queueHead = 0;
+                    int queueTail = 0;
+                    visited[getClusterPosition(from, left, bottom)] = generation;
+                    distances[getClusterPosition(from, left, bottom)] = 0;
+                    queue[queueTail++] = from;
+                    while (queueHead < queueTail) {
+                        int currentPoint = queue[queueHead++];
+                        int distance = distances[getClusterPosition(currentPoint, left, bottom)] + 1;
+                        for (int k = adjacencyOffsets[currentPoint]; k < adjacencyOffsets[currentPoint + 1]; k++) {
+                            int adjacentPoint = adjacentPoints[k];
+                            int clusterX = (adjacentPoint % gridWidth) - left;
+                            int clusterY = (adjacentPoint / gridWidth) - bottom;
+                            if ((clusterX < 0) || (clusterX >= CLUSTER_SIZE) || (clusterY < 0) || (clusterY >= CLUSTER_SIZE) ||
+                                    ((allowedArea != -1) && (pointAreas[adjacentPoint] != allowedArea))) {
+                                continue;
+                            }
+                            int position = (clusterY * CLUSTER_SIZE) + clusterX;
+                            if (visited[position] != generation) {
+                                visited[position] = generation;
+                                distances[position] = distance;
+                                queue[queueTail++] = adjacentPoint;
+                            }
+                        }
+                    }
+
+                    for (int j = clusterOffsets[cluster]; j < clusterOffsets[cluster + 1]; j++) {
+                        int position = getClusterPosition(nodePoints[clusterNodes[j]], left, bottom);
+                        if ((j != i) && (visited[position] == generation) && (distances[position] > 0)) {
+                            edges.add(new int[]{node, clusterNodes[j], distances[position]});
+                        }
+                    }
+                }
+            }
+            return edges;
+        }
+
+        /**
+         * Gets the position of a point inside its cluster, counted row by row from the lower left corner
+         */
+        private int getClusterPosition(int point, int left, int bottom) {
+            return (((point / gridWidth) - bottom) * CLUSTER_SIZE) + ((point % gridWidth) - left);
+        }
+    }
+
+    /**
+     * Search state for one abstract graph. The startpoint and target are added as two extra nodes for every search.
+     */
+    private class AbstractSearch {
+
+        private final int nodeCount;
+        private final int[] nodePoints;
+        private final int[] clusterOffsets;
+        private final int[] clusterNodes;
+        private final int[] edgeOffsets;
+        private final int[] edgeTargets;
+        private final int[] edgeCosts;
+
+        private PointHeap openHeap;
+        private int[] nodeDistances;
+        private int[] nodeParents;
+        private int[] nodeGeneration;
+        private int nodeSearchGeneration;
+
+        //temporary edges from the startpoint and to the target
+        private int[] startEdgeTargets;
+        private int[] startEdgeCosts;
+        private int startEdgeCount;
+        private int[] targetEdgeCosts;
+
+        AbstractSearch(AbstractGraph graph) {
+            nodeCount = graph.nodeCount;
+            nodePoints = graph.nodePoints;
+            clusterOffsets = graph.clusterOffsets;
+            clusterNodes = graph.clusterNodes;
+            edgeOffsets = graph.edgeOffsets;
+            edgeTargets = graph.edgeTargets;
+            edgeCosts = graph.edgeCosts;
+
+            openHeap = new PointHeap(nodeCount + 2);
+            nodeDistances = new int[nodeCount + 2];
+            nodeParents = new int[nodeCount + 2];
+            nodeGeneration = new int[nodeCount + 2];
+            nodeSearchGeneration = 0;
+            startEdgeTargets = new int[nodeCount + 1];
+            startEdgeCosts = new int[nodeCount + 1];
+            targetEdgeCosts = new int[nodeCount];
+        }
+
+        /**
+         * A* over the abstract graph. The startpoint and target are connected to the nodes of their clusters first.
+         *
+         * @param start       element number of the startpoint
+         * @param target      element number of the target
+         * @param allowedArea only points of this area can be entered, -1 for all points except obstacles
+         * @return element numbers of the points on the abstract path, starting with the startpoint. null if no path
+         */
+        int[] search(int start, int target, int allowedArea) {
+            int startNode = nodeCount;
+            int targetNode = nodeCount + 1;
+            int startCluster = getCluster(start);
+            int targetCluster = getCluster(target);
+
+            //connect the target first, searching from it finds the distance to it from every node in its cluster
+            searchCluster(target, targetCluster, -1, allowedArea);
+            for (int i = clusterOffsets[targetCluster]; i < clusterOffsets[targetCluster + 1]; i++) {
+                targetEdgeCosts[clusterNodes[i]] = getSearchedDistance(nodePoints[clusterNodes[i]]);
+            }
+            int directCost = (startCluster == targetCluster) ? getSearchedDistance(start) : -1;
+
+            searchCluster(start, startCluster, -1, allowedArea);
+            startEdgeCount = 0;
+            for (int i = clusterOffsets[startCluster]; i < clusterOffsets[startCluster + 1]; i++) {
+                int distance = getSearchedDistance(nodePoints[clusterNodes[i]]);
+                if (distance >= 0) {
+                    startEdgeTargets[startEdgeCount] = clusterNodes[i];
+                    startEdgeCosts[startEdgeCount++] = distance;
+                }
+            }
+            if (directCost > 0) {
+                startEdgeTargets[startEdgeCount] = targetNode;
+                startEdgeCosts[startEdgeCount++] = directCost;
+            }
+
+            nodeSearchGeneration++;
+            if (nodeSearchGeneration == Integer.MAX_VALUE) {
+                Arrays.fill(nodeGeneration, 0);
+                nodeSearchGeneration = 1;
+            }
+            openHeap.clear();
+            nodeGeneration[startNode] = nodeSearchGeneration;
+            nodeDistances[startNode] = 0;
+            nodeParents[startNode] = -1;
+            openHeap.push(startNode, getPriority(0, start, target));
+
+            while (!openHeap.isEmpty()) {
+                int currentNode = openHeap.pop();
+                lastExpansionCount++;
+                if (currentNode == targetNode) {
+                    return getAbstractPath(targetNode, start, target);
+                }
+                if (currentNode == startNode) {
+                    for (int i = 0; i < startEdgeCount; i++) {
+                        relax(currentNode, startEdgeTargets[i], startEdgeCosts[i], start, target);
+                    }
+                    continue;
+                }
+                for (int i = edgeOffsets[currentNode]; i < edgeOffsets[currentNode + 1]; i++) {
+                    int nextNode = edgeTargets[i];
+                    if ((allowedArea != -1) && (pointAreas[nodePoints[nextNode]] != allowedArea)) {
+                        continue;
+                    }
+                    relax(currentNode, nextNode, edgeCosts[i], start, target);
+                }
+                if ((getCluster(nodePoints[currentNode]) == targetCluster) && (targetEdgeCosts[currentNode] >= 0)) {
+                    relax(currentNode, targetNode, targetEdgeCosts[currentNode], start, target);
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Updates a node when it can be reached at a lower cost through another node
+         */
+        private void relax(int fromNode, int toNode, int cost, int start, int target) {
+            int distance = nodeDistances[fromNode] + cost;
+            if ((nodeGeneration[toNode] == nodeSearchGeneration) && (nodeDistances[toNode] <= distance)) {
+                return;
+            }
+            nodeGeneration[toNode] = nodeSearchGeneration;
+            nodeDistances[toNode] = distance;
+            nodeParents[toNode] = fromNode;
+            openHeap.push(toNode, getPriority(distance, getNodePoint(toNode, start, target), target));
+        }
+
+        private long getPriority(int distance, int point, int target) {
+            int estimate = distance + getStepEstimate(point, target);
+            return ((long) estimate << 32) | (Integer.MAX_VALUE - distance);
+        }
+
+        private int getNodePoint(int node, int start, int target) {
+            if (node == nodeCount) {
+                return start;
+            }
+            if (node == nodeCount + 1) {
+                return target;
+            }
+            return nodePoints[node];
+        }
+
+        private int[] getAbstractPath(int targetNode, int start, int target) {
+            int length = 0;
+            for (int node = targetNode; node != -1; node = nodeParents[node]) {
+                length++;
+            }
+            int[] path = new int[length];
+            int node = targetNode;
+            for (int i = length - 1; i >= 0; i--) {
+                path[i] = getNodePoint(node, start, target);
+                node = nodeParents[node];
+            }
+            return path;
+        }
+    }
+}
@@ -37,4 +37,4 @@ public interface IGrid {
      */
     GridPointType getPointType(Point p);
 
-}
\ No newline at end of file
+}
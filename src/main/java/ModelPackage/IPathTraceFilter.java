@@ -0,0 +1,19 @@
+package ModelPackage;
+
+import java.awt.*;
+
+/**
+ * Selects the path queries a PathTraceRecorder records, next to the ones picked by its sample interval.
+ */
+public interface IPathTraceFilter {
+
+    /**
+     * Checks whether a path query should be recorded
+     *
+     * @param startPoint  first point of the path
+     * @param targetPoint last point of the path
+     * @param mode        search algorithm used for the path
+     * @return true to record the query
+     */
+    boolean isTraced(Point startPoint, Point targetPoint, PathfindingMode mode);
+}
@@ -0,0 +1,30 @@
+package ModelPackage;
+
+import java.awt.*;
+import java.util.function.Predicate;
+
+/**
+ * Looks up SimObjects by the point they stand on. Of all objects that match, the one added to the index first is
+ * returned, so a lookup gives the same object as scanning the objects in the order they were added.
+ */
+public interface ISimObjectIndex {
+
+    /**
+     * Finds an object standing on a point
+     *
+     * @param point  the point
+     * @param filter decides which objects match
+     * @return the matching object added first, null if none matches
+     */
+    SimObject findFirstAt(Point point, Predicate<SimObject> filter);
+
+    /**
+     * Finds an object standing on a point or on one of the 8 points around it. Like a check on the distance along
+     * both axes, the neighbourhood does not wrap around the edges of the grid.
+     *
+     * @param point  the point in the middle of the neighbourhood
+     * @param filter decides which objects match
+     * @return the matching object added first, null if none matches
+     */
+    SimObject findFirstNear(Point point, Predicate<SimObject> filter);
+}
@@ -0,0 +1,17 @@
+package ModelPackage;
+
+/**
+ * Decides which grid points a nearest target search may stop at, see MovementPlanner.findNearestTarget.
+ * Called for every point the search reaches, so it should answer without scanning the world.
+ */
+public interface ITargetFilter {
+
+    /**
+     * Checks whether a point holds something the search is looking for
+     *
+     * @param x X coordinate of the point
+     * @param y Y coordinate of the point
+     * @return true if the search can stop at this point
+     */
+    boolean isTarget(int x, int y);
+}
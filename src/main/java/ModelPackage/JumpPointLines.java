@@ -0,0 +1,110 @@
+package ModelPackage;
+
+/**
+ * Marks the points where a straight line of a jump point search may have to stop: blocked points, and the points
+ * next to them, where a forced neighbour can appear. Everywhere else a line can only pass, so a search looks up the
+ * next marked point along its line instead of checking every point in between. The marks are kept as bits, per row
+ * for horizontal lines and per column for vertical ones, and are looked through 64 points at a time.
+ * <p>
+ * There are two sets of marks: one for searches over all points, where only obstacles block, and one for searches
+ * limited to a living area, where the water blocks too. A line over the ground cannot leave its living area without
+ * crossing the water, so one set serves every area. Built once per PlannerGraph and never changed afterwards.
+ */
+final class JumpPointLines {
+
+    //sets of marks, for searches over all points and for searches over the ground of one living area
+    static final int ALL_POINTS = 0;
+    static final int GROUND = 1;
+
+    private final int gridWidth;
+    private final int gridHeight;
+    private final int rowWords;
+    private final int columnWords;
+
+    //per set: bit x of row y in word y * rowWords + x / 64, bit y of column x in word x * columnWords + y / 64
+    private final long[][] rowMarks;
+    private final long[][] columnMarks;
+
+    /**
+     * Marks the points of a grid
+     *
+     * @param gridWidth  width of the grid
+     * @param gridHeight height of the grid
+     * @param pointAreas area of every point: 0 for water, -1 for obstacles, otherwise the living area number
+     */
+    JumpPointLines(int gridWidth, int gridHeight, int[] pointAreas) {
+        this.gridWidth = gridWidth;
+        this.gridHeight = gridHeight;
+        rowWords = (gridWidth + 63) / 64;
+        columnWords = (gridHeight + 63) / 64;
+        rowMarks = new long[2][gridHeight * rowWords];
+        columnMarks = new long[2][gridWidth * columnWords];
+        for (int y = 0; y < gridHeight; y++) {
+            for (int x = 0; x < gridWidth; x++) {
+                int area = pointAreas[(y * gridWidth) + x];
+                for (int set = ALL_POINTS; set <= GROUND; set++) {
+                    if ((area == -1) || ((set == GROUND) && (area == 0))) {
+                        //stops the lines through it and may force a turn on the lines beside it
+                        for (int side = -1; side <= 1; side++) {
+                            int row = Math.floorMod(y + side, gridHeight);
+                            rowMarks[set][(row * rowWords) + (x >> 6)] |= 1L << (x & 63);
+                            int column = Math.floorMod(x + side, gridWidth);
+                            columnMarks[set][(column * columnWords) + (y >> 6)] |= 1L << (y & 63);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Counts the steps along a horizontal or vertical line to the first marked point. The line wraps around the
+     * edges of the grid.
+     *
+     * @param set      ALL_POINTS or GROUND
+     * @param x        X coordinate the line starts from, the start itself is not looked at
+     * @param y        Y coordinate the line starts from
+     * @param dx       step along the X axis (-1, 0 or 1)
+     * @param dy       step along the Y axis (-1, 0 or 1), 0 when dx is not
+     * @param maxSteps furthest step to look at
+     * @return number of steps to the first marked point, -1 if there is none within maxSteps
+     */
+    int findMarkedStep(int set, int x, int y, int dx, int dy, int maxSteps) {
+        if (dy == 0) {
+            return findMarkedStep(rowMarks[set], y * rowWords, x, dx, gridWidth, maxSteps);
+        }
+        return findMarkedStep(columnMarks[set], x * columnWords, y, dy, gridHeight, maxSteps);
+    }
+
+    private static int findMarkedStep(long[] marks, int lineOffset, int position, int direction, int size, int maxSteps) {
+        int step = 1;
+        int current = Math.floorMod(position + direction, size);
+        while (step <= maxSteps) {
+            int word = current >> 6;
+            long bits = marks[lineOffset + word];
+            int next;
+            if (direction > 0) {
+                //marks from the current point to the end of its word
+                bits &= -1L << (current & 63);
+                if (bits != 0) {
+                    int markedStep = step + ((word << 6) + Long.numberOfTrailingZeros(bits) - current);
+                    return (markedStep <= maxSteps) ? markedStep : -1;
+                }
+                next = Math.min((word + 1) << 6, size);
+                step += next - current;
+                current = (next == size) ? 0 : next;
+            } else {
+                //marks from the start of its word to the current point
+                bits &= -1L >>> (63 - (current & 63));
+                if (bits != 0) {
+                    int markedStep = step + (current - ((word << 6) + 63 - Long.numberOfLeadingZeros(bits)));
+                    return (markedStep <= maxSteps) ? markedStep : -1;
+                }
+                next = (word << 6) - 1;
+                step += current - next;
+                current = (next < 0) ? size - 1 : next;
+            }
+        }
+        return -1;
+    }
+}
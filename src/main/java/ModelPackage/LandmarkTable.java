@@ -0,0 +1,208 @@
+package ModelPackage;
+
+import java.util.Arrays;
+
+/**
+ * Distances from a few landmark points to every point of the grid, for a tighter A* estimate (ALT). For any two
+ * points the difference of their distances to a landmark is never more than the distance between them, so the
+ * largest difference over all landmarks is an estimate A* can use. Around walls and long detours it is much closer
+ * to the real distance than counting steps along the axes.
+ * <p>
+ * Every connected part of the grid gets its own landmarks, chosen far apart: the first is the point furthest from
+ * the first point of the part, every next one the point furthest from the landmarks chosen so far. Table n holds
+ * for every point the distance to landmark n of its own part, so the memory needed does not grow with the number of
+ * parts. Distances are stored as shorts when they fit, as ints otherwise.
+ * <p>
+ * The table is built once by MovementPlanner.initializePlanner and never changed afterwards.
+ */
+public final class LandmarkTable {
+
+    //distance stored for points no landmark can reach, obstacles
+    private static final int UNREACHABLE = -1;
+
+    private final int landmarkCount;
+    private final int partCount;
+    private final short[][] shortDistances;
+    private final int[][] intDistances;
+    private final long buildTime;
+
+    /**
+     * Chooses the landmarks and stores their distances
+     *
+     * @param pointAreas       area of every point, -1 for obstacles
+     * @param adjacencyOffsets offset of the first adjacent point of every point
+     * @param adjacentPoints   adjacent points of all points
+     * @param landmarkCount    number of landmarks in every connected part
+     */
+    LandmarkTable(int[] pointAreas, int[] adjacencyOffsets, int[] adjacentPoints, int landmarkCount) {
+        if (landmarkCount < 1) {
+            throw new IllegalArgumentException("LandmarkCount must be at least 1");
+        }
+        long startTime = System.nanoTime();
+        int pointCount = pointAreas.length;
+        this.landmarkCount = landmarkCount;
+        int[] queue = new int[pointCount];
+
+        //number the connected parts, remembering the first point of each
+        int[] parts = new int[pointCount];
+        Arrays.fill(parts, -1);
+        int[] landmarks = new int[pointCount];
+        int foundParts = 0;
+        for (int point = 0; point < pointCount; point++) {
+            if ((pointAreas[point] == -1) || (parts[point] != -1)) {
+                continue;
+            }
+            landmarks[foundParts] = point;
+            parts[point] = foundParts;
+            int queueHead = 0;
+            int queueTail = 0;
+            queue[queueTail++] = point;
+            while (queueHead < queueTail) {
+                int currentPoint = queue[queueHead++];
+                for (int i = adjacencyOffsets[currentPoint]; i < adjacencyOffsets[currentPoint + 1]; i++) {
+                    if (parts[adjacentPoints[i]] == -1) {
+                        parts[adjacentPoints[i]] = foundParts;
+                        queue[queueTail++] = adjacentPoints[i];
+                    }
+                }
+            }
+            foundParts++;
+        }
+        partCount = foundParts;
+
+        //the first landmark of every part is the point furthest from its first point
+        int[] distances = new int[pointCount];
+        int[] nearestLandmark = new int[pointCount];
+        fillDistances(landmarks, distances, queue, adjacencyOffsets, adjacentPoints);
+        chooseFurthest(distances, parts, landmarks);
+
+        //every next landmark is the point furthest from the nearest landmark chosen so far
+        Arrays.fill(nearestLandmark, Integer.MAX_VALUE);
+
+        int[][] tables = new int[landmarkCount][];
+        int maxDistance = 0;
+        for (int landmark = 0; landmark < landmarkCount; landmark++) {
+            tables[landmark] = new int[pointCount];
+            fillDistances(landmarks, tables[landmark], queue, adjacencyOffsets, adjacentPoints);
+            for (int point = 0; point < pointCount; point++) {
+                if (tables[landmark][point] != UNREACHABLE) {
+                    nearestLandmark[point] = Math.min(nearestLandmark[point], tables[landmark][point]);
+                    maxDistance = Math.max(maxDistance, tables[landmark][point]);
+                }
+            }
+            chooseFurthest(nearestLandmark, parts, landmarks);
+        }
+
+        if (maxDistance <= Short.MAX_VALUE) {
+            shortDistances = new short[landmarkCount][pointCount];
+            for (int landmark = 0; landmark < landmarkCount; landmark++) {
+                for (int point = 0; point < pointCount; point++) {
+                    shortDistances[landmark][point] = (short) tables[landmark][point];
+                }
+            }
+            intDistances = null;
+        } else {
+            shortDistances = null;
+            intDistances = tables;
+        }
+        buildTime = System.nanoTime() - startTime;
+    }
+
+    /**
+     * Gets the estimate of the number of steps between two points
+     *
+     * @param point  element number of the first point
+     * @param target element number of the second point
+     * @return int containing the estimate, never more than the real number of steps
+     */
+    int getHeuristic(int point, int target) {
+        int heuristic = 0;
+        for (int landmark = 0; landmark < landmarkCount; landmark++) {
+            int pointDistance = getDistance(landmark, point);
+            int targetDistance = getDistance(landmark, target);
+            if ((pointDistance != UNREACHABLE) && (targetDistance != UNREACHABLE)) {
+                heuristic = Math.max(heuristic, Math.abs(pointDistance - targetDistance));
+            }
+        }
+        return heuristic;
+    }
+
+    /**
+     * Gets the number of landmarks in every connected part of the grid
+     *
+     * @return int containing the landmark count
+     */
+    public int getLandmarkCount() {
+        return landmarkCount;
+    }
+
+    /**
+     * Gets the number of connected parts of the grid, each with its own landmarks
+     *
+     * @return int containing the part count
+     */
+    public int getPartCount() {
+        return partCount;
+    }
+
+    /**
+     * Gets the time it took to choose the landmarks and fill the tables
+     *
+     * @return long containing the time in nanoseconds
+     */
+    public long getBuildTime() {
+        return buildTime;
+    }
+
+    /**
+     * Gets the memory taken by the distance tables
+     *
+     * @return long containing the size in bytes
+     */
+    public long getMemoryBytes() {
+        long pointCount = (shortDistances != null) ? shortDistances[0].length : intDistances[0].length;
+        return landmarkCount * pointCount * ((shortDistances != null) ? Short.BYTES : Integer.BYTES);
+    }
+
+    private int getDistance(int landmark, int point) {
+        return (shortDistances != null) ? shortDistances[landmark][point] : intDistances[landmark][point];
+    }
+
+    /**
+     * Fills the distance from every point to the source of its part, with a breadth first search from all
+     * sources at once
+     */
+    private void fillDistances(int[] sources, int[] distances, int[] queue, int[] adjacencyOffsets, int[] adjacentPoints) {
+        Arrays.fill(distances, UNREACHABLE);
+        int queueHead = 0;
+        int queueTail = 0;
+        for (int part = 0; part < partCount; part++) {
+            distances[sources[part]] = 0;
+            queue[queueTail++] = sources[part];
+        }
+        while (queueHead < queueTail) {
+            int currentPoint = queue[queueHead++];
+            for (int i = adjacencyOffsets[currentPoint]; i < adjacencyOffsets[currentPoint + 1]; i++) {
+                int adjacentPoint = adjacentPoints[i];
+                if (distances[adjacentPoint] == UNREACHABLE) {
+                    distances[adjacentPoint] = distances[currentPoint] + 1;
+                    queue[queueTail++] = adjacentPoint;
+                }
+            }
+        }
+    }
+
+    /**
+     * Chooses for every part the point with the largest distance
+     */
+    private void chooseFurthest(int[] distances, int[] parts, int[] chosen) {
+        int[] best = new int[partCount];
+        Arrays.fill(best, -1);
+        for (int point = 0; point < distances.length; point++) {
+            if ((parts[point] != -1) && (distances[point] != UNREACHABLE) && (distances[point] > best[parts[point]])) {
+                best[parts[point]] = distances[point];
+                chosen[parts[point]] = point;
+            }
+        }
+    }
+}
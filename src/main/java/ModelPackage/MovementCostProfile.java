@@ -0,0 +1,81 @@
+package ModelPackage;
+
+/**
+ * Energy a step costs on each kind of terrain, for weighted path queries. Like Creature.MovementCost, a step is
+ * charged for the point it leaves: the cost of a path is the sum over every point of the path except the target.
+ * Costs are whole numbers of at least 1, so the weighted search can use a bucket queue.
+ */
+public class MovementCostProfile {
+
+    /**
+     * Every step costs the same, which gives the shortest paths in steps
+     */
+    public static final MovementCostProfile UNIFORM = new MovementCostProfile(1, 1);
+
+    private final int waterStepCost;
+    private final int groundStepCost;
+
+    /**
+     * Creates a profile
+     *
+     * @param waterStepCost  cost of a step leaving a water point
+     * @param groundStepCost cost of a step leaving a point of a living area
+     */
+    public MovementCostProfile(int waterStepCost, int groundStepCost) {
+        if ((waterStepCost < 1) || (groundStepCost < 1)) {
+            throw new IllegalArgumentException("Step costs must be at least 1");
+        }
+        this.waterStepCost = waterStepCost;
+        this.groundStepCost = groundStepCost;
+    }
+
+    /**
+     * Creates the profile matching the energy Creature.MovementCost charges: the number of legs for a step in the
+     * water, and ten times the legs plus the energy above the strength of the creature for a step on land
+     *
+     * @param legs     number of legs of the creature
+     * @param strength strength of the creature
+     * @param energy   current energy of the creature
+     * @return the profile, with every cost raised to at least 1
+     */
+    public static MovementCostProfile forCreature(int legs, int strength, int energy) {
+        return new MovementCostProfile(Math.max(1, legs), Math.max(1, (legs * 10) + Math.max(0, energy - strength)));
+    }
+
+    /**
+     * Gets the cost of a step leaving a water point
+     *
+     * @return int containing the cost
+     */
+    public int getWaterStepCost() {
+        return waterStepCost;
+    }
+
+    /**
+     * Gets the cost of a step leaving a point of a living area
+     *
+     * @return int containing the cost
+     */
+    public int getGroundStepCost() {
+        return groundStepCost;
+    }
+
+    /**
+     * Gets the highest cost of a single step
+     *
+     * @return int containing the cost
+     */
+    public int getMaxStepCost() {
+        return Math.max(waterStepCost, groundStepCost);
+    }
+
+    /**
+     * Gets the cost of a step leaving a point
+     *
+     * @param area living area of the point, 0 for water
+     * @return int containing the cost
+     */
+    int getStepCost(int area) {
+        return (area == 0) ? waterStepCost : groundStepCost;
+    }
+}
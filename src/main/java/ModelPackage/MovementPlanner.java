@@ -1,151 +1,404 @@
 package ModelPackage;
 
-import javax.imageio.ImageIO;
 import java.awt.*;
-import java.awt.image.BufferedImage;
-import java.io.File;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.BiConsumer;
 
 /**
- * Uses a simplified version of Dijkstra's pathfinding algorithm to find the shortest path to a certain position.
+ * Uses a breadth first search or A* (see PathfindingMode) to find the shortest path to a certain position.
  * Also provides information on where to navigate to. Assumes the following Grid setup:
  * <p>
  * 6 7 8
  * 3 4 5
  * 0 1 2
+ * <p>
+ * The map is kept in a PlannerGraph that never changes once built, while the state of a search lives in a
+ * SearchContext of which every thread gets its own. findPath can therefore be called from many threads at once.
  */
 public class MovementPlanner {
 
+    //fewest rows a strip of the grid gets while initializing in parallel
+    private static final int MIN_STRIP_ROWS = 8;
+
+    //GridPointType ordinals as stored in the terrain array
+    private static final byte GROUND = (byte) GridPointType.Ground.ordinal();
+    private static final byte WATER = (byte) GridPointType.Water.ordinal();
+    private static final byte OBSTACLE = (byte) GridPointType.Obstacle.ordinal();
+
     private IGrid simulationGrid;
-    private ArrayList<MotionPoint> planableGrid;
 
-    private ArrayList<ArrayList<MotionPoint>> subGrids;
+    //working arrays while the planner is initialized, queries only use the graph they end up in
+    private byte[] terrain;
+    private int[] stripBounds;
+    private ForkJoinPool initializationPool;
+    private int[] adjacencyOffsets;
+    private int[] adjacentPoints;
+    private int[] pointAreas;
+    private int[] areaOffsets;
+    private int[] areaPoints;
+
+    private volatile PlannerGraph graph;
+    private final ThreadLocal<SearchContext> searchContexts = new ThreadLocal<>();
+
+    private volatile PathfindingMode pathfindingMode;
+
+    //optional recorder of search progress, only used for the queries it selects
+    private volatile PathTraceRecorder traceRecorder;
+
+    //optional cache of recently found paths
+    private volatile PathCache pathCache;
+
+    //limits for every query without a budget of its own, null for no limits
+    private volatile SearchBudget searchBudget;
+
+    //landmarks per connected part of the grid built when initializing, 0 for none
+    private volatile int landmarkCount;
+
+    //whether paths between living areas are routed over the shore portals
+    private volatile boolean portalRouting;
+
+    //threads building the graph in initializePlanner
+    private volatile int initializationThreads;
+
+    //counters of the queries answered, null when they are not recorded
+    private volatile PlannerMetrics plannerMetrics;
 
     public MovementPlanner() {
+        pathfindingMode = PathfindingMode.BreadthFirst;
+        initializationThreads = Runtime.getRuntime().availableProcessors();
     }
 
     /**
      * Initializes the planner with the correct data and triggers the generation of a complete plannable grid.
+     * Queries already running finish on the previous grid.
      *
      * @param simulationGrid The simulation Grid used to generate a plannable grid
      * @return true if the generation of the plannable grid was successful, false otherwise.
      */
-    public boolean initializePlanner(IGrid simulationGrid) {
+    public synchronized boolean initializePlanner(IGrid simulationGrid) {
         this.simulationGrid = simulationGrid;
-        this.planableGrid = new ArrayList<>();
+        int threads = initializationThreads;
+        initializationPool = (threads > 1) ? new ForkJoinPool(threads) : null;
+        stripBounds = getStripBounds(simulationGrid.getHeight(), threads);
 
         try {
-            generatePlannableGrid();
-        } catch (Exception e) {
-            System.out.println("Error while generating plannable grid.");
-            return false;
-        }
+            try {
+                generatePlannableGrid();
+            } catch (Exception e) {
+                System.out.println("Error while generating plannable grid.");
+                return false;
+            }
 
-        try {
-            generateSubgrids();
-        } catch (Exception e) {
-            System.out.println("Error generating subgrids");
-            return false;
+            try {
+                generateSubgrids();
+            } catch (Exception e) {
+                System.out.println("Error generating subgrids");
+                return false;
+            }
+
+            LandmarkTable landmarks = null;
+            if (landmarkCount > 0) {
+                landmarks = new LandmarkTable(pointAreas, adjacencyOffsets, adjacentPoints, landmarkCount);
+            }
+            PlannerGraph newGraph = new PlannerGraph(simulationGrid.getWidth(), simulationGrid.getHeight(), adjacencyOffsets,
+                    adjacentPoints, pointAreas, areaOffsets, areaPoints, terrain, landmarks);
+
+            //build the abstract graph and the portals now, so the first query that uses them does not have to
+            try {
+                if (pathfindingMode == PathfindingMode.Hierarchical) {
+                    newGraph.buildHierarchicalPlanner(initializationPool);
+                }
+                if (portalRouting) {
+                    newGraph.getPortalGraph();
+                }
+            } catch (Exception e) {
+                System.out.println("Error building the hierarchical graph or the portals");
+                return false;
+            }
+            graph = newGraph;
+        } finally {
+            if (initializationPool != null) {
+                initializationPool.shutdown();
+                initializationPool = null;
+            }
         }
         return true;
     }
 
     /**
-     * Generates subgrids to optimize motionplanning by substracting the water from the islands
+     * Generates subgrids to optimize motionplanning by substracting the water from the islands.
+     * Living areas are labelled with a union-find forest over the element numbers, in which every ground point is
+     * joined with the ground points adjacent to it. Every set is rooted at its lowest element number, so areas are
+     * numbered in the order their first point appears in the grid. Area 0 is all water, obstacles get -1. The points
+     * of each area are stored in compressed sparse row form: the points of area n are found in areaPoints from
+     * areaOffsets[n] up to (but not including) areaOffsets[n + 1].
+     * <p>
+     * The grid is split in strips of rows that are joined in parallel, each strip only joining the pairs of points
+     * inside it; the pairs crossing the border between two strips are joined afterwards. Numbering the sets is split
+     * over the strips as well, so the result is the same for any number of threads.
      */
-    private void generateSubgrids() {
-        subGrids = new ArrayList<>();
-
-        ArrayList<MotionPoint> waterList = new ArrayList<>();
-        //waterlist is always element 0 in the subgrid list
-        subGrids.add(waterList);
-        for (MotionPoint motionPoint : planableGrid) {
-            if (motionPoint.getType() == GridPointType.Water) {
-                waterList.add(motionPoint);
-            } else {
-                if (motionPoint.getType() == GridPointType.Obstacle) {
+    private void generateSubgrids() throws Exception {
+        int pointCount = terrain.length;
+        int gridWidth = simulationGrid.getWidth();
+        int stripCount = stripBounds.length - 1;
+        int[] parents = new int[pointCount];
+
+        //join adjacent ground points within every strip, each pair is seen once from the point with the higher number
+        runStrips((firstRow, endRow) -> {
+            int firstPoint = firstRow * gridWidth;
+            for (int i = firstPoint; i < endRow * gridWidth; i++) {
+                parents[i] = i;
+                if (terrain[i] != GROUND) {
                     continue;
                 }
-                //we found a living area, check if we found this one already
-                boolean found = false;
-                for (ArrayList<MotionPoint> area : subGrids) {
-                    if (area.contains(motionPoint)) {
-                        found = true;
-                        break;
+                for (int j = adjacencyOffsets[i]; j < adjacencyOffsets[i + 1]; j++) {
+                    int adjacentPoint = adjacentPoints[j];
+                    if ((adjacentPoint < i) && (adjacentPoint >= firstPoint) && (terrain[adjacentPoint] == GROUND)) {
+                        unionAreas(parents, i, adjacentPoint);
                     }
                 }
-
-                if (!found) {
-                    ArrayList<MotionPoint> livingArea = new ArrayList<>();
-                    livingArea.add(motionPoint);
-                    ArrayList<Point> openPoints = new ArrayList<>();
-                    for (Point adjacent : motionPoint.getAdjacentPoints()) {
-                        if (getMotionPointByCoordinates(adjacent).getType() != GridPointType.Obstacle) {
-                            openPoints.add(adjacent);
-                        }
+            }
+        });
+
+        //join the pairs crossing a strip border: only the first row of a strip and the last row of the grid, which
+        //wraps around to the first, have adjacent points with a lower number in another strip
+        for (int strip = 0; strip <= stripCount; strip++) {
+            int row = (strip < stripCount) ? stripBounds[strip] : simulationGrid.getHeight() - 1;
+            int stripStart = ((strip < stripCount) ? stripBounds[strip] : stripBounds[stripCount - 1]) * gridWidth;
+            for (int i = row * gridWidth; i < (row + 1) * gridWidth; i++) {
+                if (terrain[i] != GROUND) {
+                    continue;
+                }
+                for (int j = adjacencyOffsets[i]; j < adjacencyOffsets[i + 1]; j++) {
+                    int adjacentPoint = adjacentPoints[j];
+                    if ((adjacentPoint < stripStart) && (terrain[adjacentPoint] == GROUND)) {
+                        unionAreas(parents, i, adjacentPoint);
                     }
+                }
+            }
+        }
 
-                    ArrayList<Point> pointBuffer = new ArrayList<>();
-                    while (openPoints.size() > 0) {
-                        for (Point p : openPoints) {
-                            MotionPoint currentPoint = getMotionPointByCoordinates(p);
-                            //if ((!livingArea.contains(currentPoint)) && (!currentPoint.getWater())){
-                            if ((!livingArea.contains(currentPoint)) && (currentPoint.getType() == GridPointType.Ground)) {
-                                livingArea.add(currentPoint);
-                                for (Point nextPoint : currentPoint.getAdjacentPoints()) {
-                                    if (!pointBuffer.contains(nextPoint)) {
-                                        pointBuffer.add(nextPoint);
-                                    }
-                                }
-                            }
-                        }
-
-                        openPoints = new ArrayList<>(pointBuffer);
-                        pointBuffer.clear();
+        //find the root of every ground point and count the roots, which become the areas, per strip
+        pointAreas = new int[pointCount];
+        int[] stripAreas = new int[stripCount + 1];
+        runStrips((firstRow, endRow) -> {
+            int roots = 0;
+            for (int i = firstRow * gridWidth; i < endRow * gridWidth; i++) {
+                if (terrain[i] == WATER) {
+                    pointAreas[i] = 0;
+                } else if (terrain[i] == OBSTACLE) {
+                    pointAreas[i] = -1;
+                } else {
+                    pointAreas[i] = findRoot(parents, i);
+                    if (pointAreas[i] == i) {
+                        roots++;
                     }
-                    subGrids.add(livingArea);
                 }
             }
+            stripAreas[getStrip(firstRow) + 1] = roots;
+        });
+        stripAreas[0] = 1;
+        for (int strip = 0; strip < stripCount; strip++) {
+            stripAreas[strip + 1] += stripAreas[strip];
+        }
+        int areaCount = stripAreas[stripCount];
+
+        //number the roots in order, then give every other point the number of its root
+        runStrips((firstRow, endRow) -> {
+            int area = stripAreas[getStrip(firstRow)];
+            for (int i = firstRow * gridWidth; i < endRow * gridWidth; i++) {
+                if ((terrain[i] == GROUND) && (parents[i] == i)) {
+                    pointAreas[i] = area++;
+                }
+            }
+        });
+        runStrips((firstRow, endRow) -> {
+            for (int i = firstRow * gridWidth; i < endRow * gridWidth; i++) {
+                if ((terrain[i] == GROUND) && (parents[i] != i)) {
+                    pointAreas[i] = pointAreas[pointAreas[i]];
+                }
+            }
+        });
+
+        areaOffsets = new int[areaCount + 1];
+        for (int i = 0; i < pointCount; i++) {
+            if (pointAreas[i] != -1) {
+                areaOffsets[pointAreas[i] + 1]++;
+            }
+        }
+        for (int area = 0; area < areaCount; area++) {
+            areaOffsets[area + 1] += areaOffsets[area];
+        }
+        areaPoints = new int[areaOffsets[areaCount]];
+        int[] fill = Arrays.copyOf(areaOffsets, areaCount);
+        for (int i = 0; i < pointCount; i++) {
+            if (pointAreas[i] != -1) {
+                areaPoints[fill[pointAreas[i]]++] = i;
+            }
+        }
+
+        System.out.println("Points in water list: " + (areaOffsets[1] - areaOffsets[0]));
+        System.out.println("Subgrids Found: " + areaCount);
+    }
+
+    /**
+     * Finds the root of the set a point belongs to, halving the path to it on the way
+     *
+     * @param parents union-find forest over the element numbers
+     * @param point   element number of the point
+     * @return element number of the root
+     */
+    private static int findArea(int[] parents, int point) {
+        while (parents[point] != point) {
+            parents[point] = parents[parents[point]];
+            point = parents[point];
         }
+        return point;
+    }
 
+    /**
+     * Finds the root of the set a point belongs to without changing the forest, so strips can look up roots at the
+     * same time
+     *
+     * @param parents union-find forest over the element numbers
+     * @param point   element number of the point
+     * @return element number of the root
+     */
+    private static int findRoot(int[] parents, int point) {
+        while (parents[point] != point) {
+            point = parents[point];
+        }
+        return point;
+    }
 
-        System.out.println("Points in water list: " + waterList.size());
-        System.out.println("Subgrids Found: " + subGrids.size());
+    /**
+     * Joins the sets of two points, keeping the lower element number as the root
+     *
+     * @param parents union-find forest over the element numbers
+     * @param first   element number of the first point
+     * @param second  element number of the second point
+     */
+    private static void unionAreas(int[] parents, int first, int second) {
+        int firstRoot = findArea(parents, first);
+        int secondRoot = findArea(parents, second);
+        if (firstRoot < secondRoot) {
+            parents[secondRoot] = firstRoot;
+        } else if (secondRoot < firstRoot) {
+            parents[firstRoot] = secondRoot;
+        }
     }
 
     /**
-     * Used to generate the plannable grid, consisting of MotionPoints and the points adjacent to them. If this fails the motionplanner can't properly function.
+     * Used to generate the plannable grid: the terrain of every point and the points adjacent to it. If this fails the
+     * motionplanner can't properly function. The terrain is kept as GridPointType ordinals by element number.
+     * The adjacent points are stored in compressed sparse row form: the adjacent points of element number n are
+     * found in adjacentPoints from adjacencyOffsets[n] up to (but not including) adjacencyOffsets[n + 1].
+     * Every step is split over strips of rows that are handled in parallel.
      */
-    private void generatePlannableGrid() {
+    private void generatePlannableGrid() throws Exception {
         if (simulationGrid != null) {
-            int pointCount = simulationGrid.getWidth() * simulationGrid.getHeight();
+            int gridWidth = simulationGrid.getWidth();
+            int pointCount = gridWidth * simulationGrid.getHeight();
+            terrain = new byte[pointCount];
+            ArrayList<GridPoint> pointList = simulationGrid.getPointList();
+            //the point list is split by position in the list, every strip holding as many points as a strip of rows
+            runStrips((firstRow, endRow) -> {
+                for (int i = firstRow * gridWidth; i < Math.min(endRow * gridWidth, pointList.size()); i++) {
+                    GridPoint gridPoint = pointList.get(i);
+                    terrain[getPointNumber(gridPoint.getX(), gridPoint.getY())] = (byte) gridPoint.getType().ordinal();
+                }
+            });
+
+            //count the adjacent points first so the neighbour array can be allocated at its exact size
+            adjacencyOffsets = new int[pointCount + 1];
+            runStrips((firstRow, endRow) -> {
+                int[] adjacentBuffer = new int[8];
+                for (int i = firstRow * gridWidth; i < endRow * gridWidth; i++) {
+                    adjacencyOffsets[i + 1] = getAdjacentPoints(i, adjacentBuffer);
+                }
+            });
             for (int i = 0; i < pointCount; i++) {
-                planableGrid.add(null);
-            }
-            //create a MotionPoint for each GridPoint
-            for (GridPoint gridPoint : simulationGrid.getPointList()) {
-                int gridPointNumber = getPointNumber(new Point(gridPoint.getX(), gridPoint.getY()));
-
-                MotionPoint freshMotionPoint = new MotionPoint(gridPoint);
-                planableGrid.set(gridPointNumber, freshMotionPoint);
+                adjacencyOffsets[i + 1] += adjacencyOffsets[i];
             }
 
-            for (MotionPoint currentPoint : planableGrid) {
-                getAdjacentPoints(currentPoint);
-            }
+            adjacentPoints = new int[adjacencyOffsets[pointCount]];
+            runStrips((firstRow, endRow) -> {
+                int[] adjacentBuffer = new int[8];
+                for (int i = firstRow * gridWidth; i < endRow * gridWidth; i++) {
+                    int count = getAdjacentPoints(i, adjacentBuffer);
+                    System.arraycopy(adjacentBuffer, 0, adjacentPoints, adjacencyOffsets[i], count);
+                }
+            });
         } else {
             throw new NullPointerException("SimulationGrid was not set!");
         }
     }
 
     /**
-     * Gets the total count of MotionPoints in the planableGrid.
+     * Splits the rows of the grid in strips for the threads initializing the planner, a few strips per thread so
+     * a thread that finishes early can take another one
      *
-     * @return int containing the MotionPoint count
+     * @param gridHeight number of rows
+     * @param threads    number of threads
+     * @return the first row of every strip, followed by the row count
+     */
+    private static int[] getStripBounds(int gridHeight, int threads) {
+        int stripCount = (threads == 1) ? 1 : Math.max(1, Math.min(threads * 4, gridHeight / MIN_STRIP_ROWS));
+        int[] bounds = new int[stripCount + 1];
+        for (int strip = 0; strip <= stripCount; strip++) {
+            bounds[strip] = (int) (((long) gridHeight * strip) / stripCount);
+        }
+        return bounds;
+    }
+
+    /**
+     * Gets the strip a row belongs to
+     */
+    private int getStrip(int row) {
+        int strip = Arrays.binarySearch(stripBounds, row);
+        return (strip >= 0) ? strip : -strip - 2;
+    }
+
+    /**
+     * Runs a task for every strip of rows, on the initialization pool when there is one, and waits for all of them
+     *
+     * @param task receives the first row of the strip and the row after its last
+     */
+    private void runStrips(BiConsumer<Integer, Integer> task) throws Exception {
+        int stripCount = stripBounds.length - 1;
+        if (initializationPool == null) {
+            for (int strip = 0; strip < stripCount; strip++) {
+                task.accept(stripBounds[strip], stripBounds[strip + 1]);
+            }
+            return;
+        }
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (int strip = 0; strip < stripCount; strip++) {
+            int firstRow = stripBounds[strip];
+            int endRow = stripBounds[strip + 1];
+            tasks.add(() -> {
+                task.accept(firstRow, endRow);
+                return null;
+            });
+        }
+        for (Future<Void> result : initializationPool.invokeAll(tasks)) {
+            //rethrows what went wrong in the strip
+            result.get();
+        }
+    }
+
+    /**
+     * Gets the total count of points in the plannable grid.
+     *
+     * @return int containing the point count
      */
     public int getTotalMotionPoints() {
-        return planableGrid.size();
+        return graph.getPointCount();
     }
 
     /**
@@ -154,22 +407,22 @@ public class MovementPlanner {
      * @return int containing the adjacent point count
      */
     public int getTotalAdjacentCount() {
-        int counter = 0;
-        for (MotionPoint mp : planableGrid) {
-            counter += mp.adjacentPoints.size();
-        }
-        return counter;
+        return graph.getAdjacentPoints().length;
     }
 
     /**
-     * Find the points adjacent to the current point
+     * Find the points adjacent to the current point. The grid wraps around at its edges and obstacles are left out.
      *
-     * @param currentPoint point to find the adjacent points of and store them in.
+     * @param pointNumber element number of the point to find the adjacent points of
+     * @param adjacent    array of at least 8 elements to store the element numbers of the adjacent points in
+     * @return the number of adjacent points stored
      */
-    private void getAdjacentPoints(MotionPoint currentPoint) {
-
-        int x = currentPoint.getX();
-        int y = currentPoint.getY();
+    private int getAdjacentPoints(int pointNumber, int[] adjacent) {
+        int gridWidth = simulationGrid.getWidth();
+        int gridHeight = simulationGrid.getHeight();
+        int x = pointNumber % gridWidth;
+        int y = pointNumber / gridWidth;
+        int count = 0;
 
         //get point list
         for (int xx = 1; xx >= -1; xx--) {
@@ -178,32 +431,34 @@ public class MovementPlanner {
                 int neighbourY = y - yy;
                 if (neighbourX < 0) {
                     //x falls left of grid
-                    neighbourX = simulationGrid.getWidth() - 1;
+                    neighbourX = gridWidth - 1;
                 }
-                if (neighbourX > simulationGrid.getWidth() - 1) {
+                if (neighbourX > gridWidth - 1) {
                     //x falls of right of grid
                     neighbourX = 0;
                 }
                 if (neighbourY < 0) {
                     //y falls of below grid
-                    neighbourY = simulationGrid.getHeight() - 1;
+                    neighbourY = gridHeight - 1;
                 }
-                if (neighbourY > simulationGrid.getHeight() - 1) {
+                if (neighbourY > gridHeight - 1) {
                     neighbourY = 0;
                 }
                 //add this point to the adjacentpoints, only if the point is not itself (x+0 && y+0)
                 if (!((neighbourX == x) && (neighbourY == y))) {
-                    if (getMotionPointByCoordinates(new Point(neighbourX, neighbourY)).getType() != GridPointType.Obstacle) {
-                        currentPoint.addAdjacentPoint(new Point(neighbourX, neighbourY));
+                    int neighbourNumber = getPointNumber(neighbourX, neighbourY);
+                    if (terrain[neighbourNumber] != OBSTACLE) {
+                        adjacent[count++] = neighbourNumber;
                     }
                 }
             }
         }
+        return count;
     }
 
 
     /**
-     * Generate a path towards the endpoint
+     * Generate a path towards the endpoint, using the pathfinding mode set on this planner.
      *
      * @param startPoint  First point of the path
      * @param targetPoint Last point of the path
@@ -211,419 +466,540 @@ public class MovementPlanner {
      * the startpoint was the endpoint
      */
     public ArrayList<Point> findPath(Point startPoint, Point targetPoint, Boolean useIslandOnlyNavigation) throws Exception {
-        //reset the grid, clearing all previous points
-        resetPlannableGrid();
-
-        if ((startPoint.getX() == targetPoint.getX()) && (startPoint.getY() == targetPoint.getY()) &&
-                (simulationGrid.getPointType(targetPoint) != GridPointType.Obstacle) && (simulationGrid.getPointType(startPoint) != GridPointType.Obstacle)) {
-            return null;
-        }
-
-        long startTime = System.nanoTime();
-
-        //points to be checked in this iteration
-        ArrayList<Point> openPoints = new ArrayList<>();
-        //points to be checked in the next iteration
-        ArrayList<Point> pointBuffer = new ArrayList<>();
-        //points already checked
-        ArrayList<Point> closedPoints = new ArrayList<>();
-        //Livingarea for the startpoint
-        ArrayList<MotionPoint> primarySearchArea = new ArrayList<>();
-        //Buffer for points not in the primarySearchArea
-        ArrayList<Point> secondaySearchAreaBuffer = new ArrayList<>();
-
-        /*for (ArrayList<MotionPoint> area : subGrids) {
-            //TODO: Only use a primary search area if the area is not the water!
-            if (area.contains(getMotionPointByCoordinates(startPoint))) {
-                primarySearchArea = area;
-            }
-        }*/
+        return findPath(startPoint, targetPoint, useIslandOnlyNavigation, pathfindingMode);
+    }
 
-        if (useIslandOnlyNavigation){
-            if (subGrids.get(0).contains(getMotionPointByCoordinates(startPoint))){
-                primarySearchArea = planableGrid;
-            }
-            else{
-                for (ArrayList<MotionPoint> area : subGrids) {
-                    //TODO: Only use a primary search area if the area is not the water!
-                    if (area.contains(getMotionPointByCoordinates(startPoint))) {
-                        primarySearchArea = area;
-                    }
-                }
-            }
-        }
-        else{
-            //creature wants to be able to swim. Make it do so.
-            primarySearchArea = planableGrid;
+    /**
+     * Generate a path towards the endpoint. Searches over the element numbers of the plannable grid.
+     * When island only navigation is requested and the startpoint lies on a living area, that area is searched
+     * completely first. Only when the target is not found there the search continues from the points bordering it.
+     * Breadth first and A* return a path of the same length, jump point search the shortest path when diagonal steps
+     * count as longer. Hierarchical search returns a path that is close to, but not always, the shortest. The
+     * weighted search uses uniform step costs here; see findWeightedPath to give the costs of the query.
+     * When a search budget is set on the planner and runs out, the path returned may end before the target.
+     *
+     * @param startPoint  First point of the path
+     * @param targetPoint Last point of the path
+     * @param mode        search algorithm to use for this path
+     * @return ArrayList of points, in the right order that lead to the endpoint. Returns null if no path was found or
+     * the startpoint was the endpoint
+     */
+    public ArrayList<Point> findPath(Point startPoint, Point targetPoint, Boolean useIslandOnlyNavigation, PathfindingMode mode) throws Exception {
+        return findPath(startPoint, targetPoint, useIslandOnlyNavigation, mode, searchBudget).getPath();
+    }
+
+    /**
+     * Generate a path towards the endpoint within a budget, see findPath(Point, Point, Boolean, PathfindingMode).
+     * When the budget runs out the result holds the path to the point searched closest to the target, or no path
+     * when the budget does not allow partial paths.
+     *
+     * @param startPoint  First point of the path
+     * @param targetPoint Last point of the path
+     * @param mode        search algorithm to use for this path
+     * @param budget      limits for this query, null for no limits
+     * @return the path and how the search ended
+     */
+    public PathResult findPath(Point startPoint, Point targetPoint, Boolean useIslandOnlyNavigation, PathfindingMode mode, SearchBudget budget) {
+        PlannerMetrics metrics = plannerMetrics;
+        long startTime = (metrics != null) ? System.nanoTime() : 0;
+        PathResult result = searchPath(startPoint, targetPoint, useIslandOnlyNavigation, mode, budget);
+        if (metrics != null) {
+            recordQuery(metrics, mode, useIslandOnlyNavigation, startPoint, targetPoint, result, System.nanoTime() - startTime);
+        }
+        return result;
+    }
+
+    /**
+     * Generate a path towards the endpoint within a budget, looking in the path cache first
+     */
+    private PathResult searchPath(Point startPoint, Point targetPoint, Boolean useIslandOnlyNavigation, PathfindingMode mode, SearchBudget budget) {
+        SearchContext context = getSearchContext();
+        PathCache cache = pathCache;
+        if ((cache == null) || startPoint.equals(targetPoint)) {
+            return context.findPath(startPoint, targetPoint, useIslandOnlyNavigation, mode, traceRecorder, budget, null, portalRouting);
         }
 
-        //fetch the first set of adjacent points to the startpoint
-        closedPoints.add(startPoint);
-        for (Point adjacentPoint : getMotionPointByCoordinates(startPoint).getAdjacentPoints()) {
-            MotionPoint freshPoint = getMotionPointByCoordinates(adjacentPoint);
-            freshPoint.setPreviousPoint(startPoint);
-            if (primarySearchArea.contains(freshPoint)) {
-                openPoints.add(adjacentPoint);
-            } else {
-                secondaySearchAreaBuffer.add(adjacentPoint);
-            }
+        PlannerGraph currentGraph = context.getGraph();
+        int gridWidth = currentGraph.getGridWidth();
+        long key = PathCache.getKey(currentGraph, (startPoint.y * gridWidth) + startPoint.x,
+                (targetPoint.y * gridWidth) + targetPoint.x, useIslandOnlyNavigation, mode);
+        ArrayList<Point> pathFound = new ArrayList<>();
+        if (cache.get(key, currentGraph, pathFound)) {
+            return pathFound.isEmpty() ? new PathResult(null, PathOutcome.Unreachable, 0) : new PathResult(pathFound, PathOutcome.Found, 0);
+        }
+        PathResult result = context.findPath(startPoint, targetPoint, useIslandOnlyNavigation, mode, traceRecorder, budget, null, portalRouting);
+        //only complete answers are stored, a budget may allow more next time
+        if ((result.getOutcome() == PathOutcome.Found) || (result.getOutcome() == PathOutcome.Unreachable)) {
+            cache.put(key, currentGraph, result.getPath());
         }
+        return result;
+    }
 
-        int distanceCounter = 0;
-        //output debug image for start situation
-        debugGrid(distanceCounter, startPoint, targetPoint, openPoints, closedPoints);
-        MotionPoint endPoint = null;
-        boolean searchInPrimary = true;
+    /**
+     * Generate the path towards the endpoint that costs the least energy, with the step costs of a profile. Every
+     * query can give its own profile, so different kinds of creatures share the graph of the planner. The search
+     * budget of the planner applies; the path cache is not used.
+     *
+     * @param startPoint  First point of the path
+     * @param targetPoint Last point of the path
+     * @param costProfile step costs of the creature walking the path
+     * @return ArrayList of points, in the right order that lead to the endpoint. Returns null if no path was found or
+     * the startpoint was the endpoint
+     */
+    public ArrayList<Point> findWeightedPath(Point startPoint, Point targetPoint, Boolean useIslandOnlyNavigation, MovementCostProfile costProfile) {
+        return findWeightedPath(startPoint, targetPoint, useIslandOnlyNavigation, costProfile, searchBudget).getPath();
+    }
 
-        while (endPoint == null) {
-            if ((openPoints.size() == 0) && (secondaySearchAreaBuffer.size() == 0)) {
-                return null;
-            }
+    /**
+     * Generate the path towards the endpoint that costs the least energy within a budget, see
+     * findWeightedPath(Point, Point, Boolean, MovementCostProfile)
+     *
+     * @param startPoint  First point of the path
+     * @param targetPoint Last point of the path
+     * @param costProfile step costs of the creature walking the path
+     * @param budget      limits for this query, null for no limits
+     * @return the path and how the search ended
+     */
+    public PathResult findWeightedPath(Point startPoint, Point targetPoint, Boolean useIslandOnlyNavigation, MovementCostProfile costProfile, SearchBudget budget) {
+        if (costProfile == null) {
+            throw new IllegalArgumentException("CostProfile must not be null");
+        }
+        PlannerMetrics metrics = plannerMetrics;
+        long startTime = (metrics != null) ? System.nanoTime() : 0;
+        PathResult result = getSearchContext().findPath(startPoint, targetPoint, useIslandOnlyNavigation, PathfindingMode.Weighted, traceRecorder, budget, costProfile, false);
+        if (metrics != null) {
+            recordQuery(metrics, PathfindingMode.Weighted, useIslandOnlyNavigation, startPoint, targetPoint, result, System.nanoTime() - startTime);
+        }
+        return result;
+    }
 
-            //check the open points for the endpoint
-            endPoint = checkForTarget(openPoints, targetPoint);
-            if (endPoint != null) {
-                System.out.println("Found target. Steps required: " + distanceCounter);
-                //output debug image for endstate
-                debugGrid(distanceCounter, startPoint, targetPoint, openPoints, closedPoints);
-            } else {
-                //point not found, move current points into closed points and fill buffer with new points
-                for (Point currentPoint : openPoints) {
-                    MotionPoint motionPoint = getMotionPointByCoordinates(currentPoint);
-                    for (Point freshOpenPoint : motionPoint.getAdjacentPoints()) {
-                        //only add to pointbuffer if not already in other list
-                        if ((!closedPoints.contains(freshOpenPoint)) && (!openPoints.contains(freshOpenPoint)) && (!pointBuffer.contains(freshOpenPoint)) && (!secondaySearchAreaBuffer.contains(freshOpenPoint))) {
-                            MotionPoint freshMP = getMotionPointByCoordinates(freshOpenPoint);
-                            if ((freshMP.getPreviousPoint() == null)) {
-                                freshMP.setPreviousPoint(currentPoint);
-                            }
-                            if (primarySearchArea.contains(freshMP)) {
-                                pointBuffer.add(freshOpenPoint);
-                            } else {
-                                secondaySearchAreaBuffer.add(freshOpenPoint);
-                            }
-                        }
-                    }
+    /**
+     * Generate the paths for a batch of queries at once. Queries sharing a startpoint, or without island only
+     * navigation sharing a target, are answered by a single breadth first search. Every path equals the one
+     * findPath returns in breadth first mode; the pathfinding mode of the planner and the path cache are not used.
+     *
+     * @param queries the queries
+     * @return the paths in the order of the queries, null for queries without a path or with the startpoint as target
+     */
+    public List<ArrayList<Point>> findPaths(List<PathQuery> queries) {
+        PlannerMetrics metrics = plannerMetrics;
+        long startTime = (metrics != null) ? System.nanoTime() : 0;
+        SearchContext context = getSearchContext();
+        List<ArrayList<Point>> results = context.findPaths(queries);
+        if ((metrics != null) && !queries.isEmpty()) {
+            //every query gets an equal share of the batch
+            long latency = (System.nanoTime() - startTime) / queries.size();
+            int expansionCount = context.getLastExpansionCount() / queries.size();
+            for (int i = 0; i < queries.size(); i++) {
+                PathQuery query = queries.get(i);
+                ArrayList<Point> pathFound = results.get(i);
+                if (query.getStartPoint().equals(query.getTargetPoint())) {
+                    metrics.recordTrivial(PathfindingMode.BreadthFirst, query.getUseIslandOnlyNavigation());
+                } else if (pathFound == null) {
+                    metrics.record(PathfindingMode.BreadthFirst, query.getUseIslandOnlyNavigation(), PathOutcome.Unreachable, expansionCount, -1, latency);
+                } else {
+                    metrics.record(PathfindingMode.BreadthFirst, query.getUseIslandOnlyNavigation(), PathOutcome.Found, expansionCount, pathFound.size() - 1, latency);
                 }
             }
+        }
+        return results;
+    }
 
-            for (Point openPoint : openPoints) {
-                if (!closedPoints.contains(openPoint)) {
-                    closedPoints.add(openPoint);
-                }
-            }
+    /**
+     * Generate a path towards the nearest point accepted by the filter, choosing the target and the path in a single
+     * breadth first search that stops at the first target reached. The pathfinding mode of the planner is not used:
+     * the target is not known before the search reaches it, so there is nothing to aim A* or the clusters of a
+     * hierarchical search at, and the path found is already a shortest one.
+     * With island only navigation from a living area only that area is searched; from the water only points in the
+     * water are accepted as target.
+     *
+     * @param startPoint  First point of the path, never accepted as target itself
+     * @param filter      decides which points are targets
+     * @param maxDistance maximum number of steps to the target, 0 for no limit; the search budget of the planner
+     *                    limits the distance and the number of expanded points further
+     * @return ArrayList of points, in the right order that lead to the target. Returns null if no target was found
+     * within the maximum distance
+     */
+    public ArrayList<Point> findNearestTarget(Point startPoint, ITargetFilter filter, Boolean useIslandOnlyNavigation, int maxDistance) {
+        return findNearestTarget(startPoint, filter, useIslandOnlyNavigation, maxDistance, null);
+    }
 
-            if (pointBuffer.size() == 0) {
-                //no new points in primary area, start getting points from secondary area
-                searchInPrimary = false;
-            }
-            //target not found, move all open points to closed points and move the buffer into the open points
-            if (searchInPrimary) {
-                openPoints = new ArrayList<>(pointBuffer);
-            } else {
-                openPoints = new ArrayList<>(secondaySearchAreaBuffer);
-            }
-            pointBuffer.clear();
-            distanceCounter++;
-            debugGrid(distanceCounter, startPoint, targetPoint, openPoints, closedPoints);
+    /**
+     * Generate a path towards the point accepted by the filter that costs the least energy to reach, choosing the
+     * target and the path in a single weighted search, see findNearestTarget(Point, ITargetFilter, Boolean, int).
+     * Without a cost profile the search is breadth first; the pathfinding mode of the planner is not used either way.
+     * The maximum distance limits the steps along both axes instead of the steps of the path.
+     *
+     * @param startPoint  First point of the path, never accepted as target itself
+     * @param filter      decides which points are targets
+     * @param maxDistance maximum number of steps to the target, 0 for no limit
+     * @param costProfile step costs of the searching creature, null to find the nearest target in steps
+     * @return ArrayList of points, in the right order that lead to the target. Returns null if no target was found
+     * within the maximum distance
+     */
+    public ArrayList<Point> findNearestTarget(Point startPoint, ITargetFilter filter, Boolean useIslandOnlyNavigation, int maxDistance, MovementCostProfile costProfile) {
+        SearchBudget budget = searchBudget;
+        int maxExpansions = (budget == null) ? 0 : budget.getMaxExpansions();
+        if ((budget != null) && (budget.getMaxRadius() > 0)) {
+            maxDistance = (maxDistance == 0) ? budget.getMaxRadius() : Math.min(maxDistance, budget.getMaxRadius());
+        }
+        PlannerMetrics metrics = plannerMetrics;
+        long startTime = (metrics != null) ? System.nanoTime() : 0;
+        SearchContext context = getSearchContext();
+        ArrayList<Point> pathFound = context.findNearestTarget(startPoint, filter, useIslandOnlyNavigation, maxDistance, maxExpansions, costProfile);
+        if (metrics != null) {
+            PathfindingMode mode = (costProfile == null) ? PathfindingMode.BreadthFirst : PathfindingMode.Weighted;
+            PathOutcome outcome = (pathFound != null) ? PathOutcome.Found :
+                    (context.isBudgetExhausted() ? PathOutcome.BudgetExceeded : PathOutcome.Unreachable);
+            metrics.record(mode, useIslandOnlyNavigation, outcome, context.getLastExpansionCount(), (pathFound != null) ? pathFound.size() - 1 : -1,
+                    System.nanoTime() - startTime);
         }
+        return pathFound;
+    }
 
-        long endTime = System.nanoTime();
-        System.out.println("Pathfinding completed in " + ((endTime - startTime) / 1000000) + "ms");
-
-        return getPathFound(endPoint);
+    /**
+     * Records a path query in the metrics
+     *
+     * @param metrics                 metrics to record in
+     * @param mode                    search algorithm the query asked for
+     * @param useIslandOnlyNavigation navigation mode the query asked for
+     * @param startPoint              First point of the path
+     * @param targetPoint             Last point of the path
+     * @param result                  result of the query
+     * @param latency                 time the query took in nanoseconds
+     */
+    private static void recordQuery(PlannerMetrics metrics, PathfindingMode mode, boolean useIslandOnlyNavigation, Point startPoint, Point targetPoint,
+                                    PathResult result, long latency) {
+        if (startPoint.equals(targetPoint)) {
+            metrics.recordTrivial(mode, useIslandOnlyNavigation);
+            return;
+        }
+        ArrayList<Point> pathFound = result.getPath();
+        metrics.record(mode, useIslandOnlyNavigation, result.getOutcome(), result.getExpansionCount(), (pathFound != null) ? pathFound.size() - 1 : -1, latency);
     }
 
     /**
-     * check if a certain motionPoint is the target for this motionfinding round
+     * Gets the search context of the calling thread, creating a new one when the thread has none yet or the planner
+     * was initialized again since
      *
-     * @param openPoints  List of points to be checked
-     * @param targetPoint target location of the motionplanner
-     * @return MotionPoint if found, null if not found
+     * @return SearchContext for the current graph
      */
-    private MotionPoint checkForTarget(ArrayList<Point> openPoints, Point targetPoint) {
-        for (Point currentPoint : openPoints) {
-            if ((currentPoint.getX() == targetPoint.getX()) && (currentPoint.getY() == targetPoint.getY())) {
-                MotionPoint found = getMotionPointByCoordinates(currentPoint);
-                return found;
-            }
-        }
-        return null;
+    SearchContext getSearchContext() {
+        PlannerGraph currentGraph = graph;
+        SearchContext context = searchContexts.get();
+        if ((context == null) || (context.getGraph() != currentGraph)) {
+            context = new SearchContext(currentGraph);
+            searchContexts.set(context);
+        }
+        return context;
     }
 
     /**
-     * calulates the path back from the endpoint to the startpoint
+     * Gets the graph built by the last call to initializePlanner
      *
-     * @param endPoint MotionPoint that represents the last point in the pathfinding sequence
-     * @return ArrayList cointainting the path back from the endpoint to the startpoint, including both
+     * @return the graph, null before the planner is initialized
      */
-    private ArrayList<Point> getPathFound(MotionPoint endPoint) {
-        ArrayList<Point> pathFound = new ArrayList<>();
-        MotionPoint parentPoint = endPoint;
-        int infiniteProtection = 0;
-        while ((parentPoint != null) && (infiniteProtection < 100)) {
-            infiniteProtection++;
-
-            pathFound.add(new Point(parentPoint.getX(), parentPoint.getY()));
-            if (parentPoint.getPreviousPoint() != null) {
-                parentPoint = getMotionPointByCoordinates(parentPoint.getPreviousPoint());
-            } else {
-                break;
-            }
-        }
-        return pathFound;
+    PlannerGraph getGraph() {
+        return graph;
     }
 
     /**
-     * Resets the pathFound and previousPoint references so the plannable grid can be reused, reducing the time needed
-     * for pathfinding
+     * Gets the number of points expanded by the last call to findPath from the calling thread
+     *
+     * @return int containing the number of expanded points
      */
-    private void resetPlannableGrid() {
-        for (MotionPoint mp : planableGrid) {
-            mp.setPreviousPoint(null);
-        }
+    public int getLastExpansionCount() {
+        SearchContext context = searchContexts.get();
+        return (context == null) ? 0 : context.getLastExpansionCount();
     }
 
     /**
-     * Gets the element number corresponding to this points coordinates.
+     * Gets the number of points the last call to findPath from the calling thread scanned along the lines of a jump
+     * point search, without expanding them
      *
-     * @param p Point to be used
-     * @return int element number in the pointList
+     * @return int containing the number of scanned points
      */
-    private int getPointNumber(Point p) {
-        int gridWidth = simulationGrid.getWidth();
-        int x = (int) p.getX();
-        int y = (int) p.getY();
-        int number = (gridWidth * (y + 1)) + (x - gridWidth);
-        //System.out.println(number);
-        return number;
+    public int getLastScanCount() {
+        SearchContext context = searchContexts.get();
+        return (context == null) ? 0 : context.getLastScanCount();
     }
 
     /**
-     * Gets the MotionPoint corresponding to a coordinate
+     * Sets the recorder that traces the progress of selected queries. Without a recorder nothing is traced.
      *
-     * @param p Point to fetch the associated MotionPoint of
-     * @return MotionPoint corresponding to the point
+     * @param traceRecorder the recorder, null to stop tracing
      */
-    private MotionPoint getMotionPointByCoordinates(Point p) {
-        if (planableGrid != null) {
-            //point element number (n) in array can be calculated by formula: (width * (y+1)) + (x - width). Width being the grid width
-            return planableGrid.get(((simulationGrid.getWidth() * ((int) p.getY() + 1)) + ((int) p.getX() - simulationGrid.getWidth())));
-        } else {
-            throw new NullPointerException("No Plannable Grid to fetch points from!");
-        }
+    public void setTraceRecorder(PathTraceRecorder traceRecorder) {
+        this.traceRecorder = traceRecorder;
     }
 
     /**
-     * Returns the livingareas found by the motionplanner so the world can randomly place the creatures as defined
-     * in the requirements. Item 0 in the returned list is always the surrounding water.
-     * DO NOT CALL BEFORE CALLING intializePlanner()!
+     * Gets the recorder that traces the progress of selected queries
      *
-     * @return
+     * @return the recorder, null if none is set
      */
-    public ArrayList<ArrayList<Point>> getLivingAreas() throws Exception {
-        if (!(subGrids.size() > 0)) {
-            throw new Exception("Planner not properly initialized");
-        }
-        ArrayList pointAreas = new ArrayList();
-        for (ArrayList<MotionPoint> area : subGrids) {
-            //convert motionpoints to regular points since MotionPoint is an Inner class that World is unaware of
-            ArrayList<Point> pointArea = new ArrayList();
-            for (MotionPoint motionPoint : area) {
-                pointArea.add(new Point(motionPoint.getX(), motionPoint.getY()));
-            }
-            pointAreas.add(pointArea);
-        }
-        return pointAreas;
+    public PathTraceRecorder getTraceRecorder() {
+        return traceRecorder;
     }
 
     /**
-     * Debugging method for generating a visual image of the planableGrid.
+     * Sets the cache findPath looks in before searching. Without a cache every query is searched. The cache is
+     * cleared when the planner is initialized again, which is also what makes the planner see terrain edits.
      *
-     * @param stepNumber   int representing the number of steps in the motionplanning so far
-     * @param startPoint   Point representing the start position of the motionplanning
-     * @param endPoint     Point representing the end position (not to be confused with the endpoint used internally in the findPath method!)
-     * @param openPoints   ArrayList of points containing the open Points
-     * @param closedPoints ArrayList of points containing the closed Points
+     * @param pathCache the cache, null to search every query
      */
-    private void debugGrid(int stepNumber, Point startPoint, Point endPoint, ArrayList<Point> openPoints, ArrayList<Point> closedPoints) {
-        int factor = 20;
-        int size = 5;
+    public void setPathCache(PathCache pathCache) {
+        this.pathCache = pathCache;
+    }
 
-        int canvasWidth = simulationGrid.getWidth() * factor;
-        int canvasHeight = simulationGrid.getHeight() * factor;
+    /**
+     * Gets the cache findPath looks in before searching
+     *
+     * @return the cache, null if none is set
+     */
+    public PathCache getPathCache() {
+        return pathCache;
+    }
 
-        BufferedImage img = new BufferedImage(canvasWidth, canvasHeight, BufferedImage.TYPE_INT_ARGB);
-        Graphics2D g2 = img.createGraphics();
-        g2.setBackground(Color.lightGray);
-        g2.setPaint(Color.lightGray);
-        g2.fillRect(0, 0, canvasWidth, canvasHeight);
+    /**
+     * Sets the metrics every path query of this planner is recorded in. Without metrics nothing is recorded.
+     *
+     * @param plannerMetrics the metrics, null to stop recording
+     */
+    public void setMetrics(PlannerMetrics plannerMetrics) {
+        this.plannerMetrics = plannerMetrics;
+    }
 
+    /**
+     * Gets the metrics every path query of this planner is recorded in
+     *
+     * @return the metrics, null if none are set
+     */
+    public PlannerMetrics getMetrics() {
+        return plannerMetrics;
+    }
 
-        //draw grid
-        int gridWidth = simulationGrid.getWidth();
-        int gridHeight = simulationGrid.getHeight();
-        for (int i = 0; i < gridWidth; i++) {
-            for (int j = 0; j < gridHeight; j++) {
-                switch (getMotionPointByCoordinates(new Point(i, j)).getType()) {
-                    case Obstacle:
-                        g2.setColor(Color.MAGENTA);
-                        break;
-                    case Water:
-                        g2.setColor(Color.CYAN);
-                        break;
-                    case Ground:
-                        g2.setColor(Color.ORANGE);
-                        break;
-                }
-                g2.fillOval(i * factor, j * factor, size, size);
-            }
+    /**
+     * Sets whether paths from one living area to another are routed over the portal graph, the shore points of the
+     * living areas linked by their distances over land and through the water. Only the points near the ends of the
+     * route and along its links are searched, instead of all the water in between; the path is close to, but not
+     * always, the shortest. Queries limited by a radius, traced queries and weighted queries are not routed over
+     * the portals, nor are areas too far apart for the portal links; those are searched as usual.
+     * <p>
+     * initializePlanner builds the portal graph when portal routing is enabled; when it is enabled afterwards, the
+     * first query between two living areas builds it.
+     *
+     * @param portalRouting true to route between living areas over the portals
+     */
+    public void setPortalRoutingEnabled(boolean portalRouting) {
+        this.portalRouting = portalRouting;
+        PathCache cache = pathCache;
+        if (cache != null) {
+            //the paths stored may differ from the ones found from now on
+            cache.clear();
         }
+    }
 
+    /**
+     * Checks whether paths between living areas are routed over the portal graph
+     *
+     * @return true if portal routing is enabled
+     */
+    public boolean isPortalRoutingEnabled() {
+        return portalRouting;
+    }
 
-        //draw open points
-        for (Point openPoint : openPoints) {
-            g2.setPaint(Color.BLACK);
-            g2.fillOval((int) openPoint.getX() * factor, (int) openPoint.getY() * factor, size, size);
+    /**
+     * Sets the number of threads building the graph the next time the planner is initialized. The rows of the grid
+     * are split in strips that are handled in parallel; the graph is the same for any number of threads.
+     *
+     * @param initializationThreads number of threads, 1 to build the graph on the calling thread alone
+     */
+    public void setInitializationThreads(int initializationThreads) {
+        if (initializationThreads < 1) {
+            throw new IllegalArgumentException("InitializationThreads must be at least 1");
         }
+        this.initializationThreads = initializationThreads;
+    }
 
-        //draw closed points
-        for (Point closedPoint : closedPoints) {
-            g2.setColor(Color.ORANGE);
-            g2.drawOval((int) closedPoint.getX() * factor, (int) closedPoint.getY() * factor, size, size);
-            g2.setColor(Color.BLUE);
-            g2.setStroke(new BasicStroke(2));
-            //if ((closedPoint.getX() != (int)startPoint.getX()) && (closedPoint.getY() != (int)startPoint.getY())){
-            try {
-                Point previousPoint = getMotionPointByCoordinates(closedPoint).getPreviousPoint();
-                g2.drawLine((int) closedPoint.getX() * factor, (int) closedPoint.getY() * factor, (int) previousPoint.getX() * factor, (int) previousPoint.getY() * factor);
-            } catch (NullPointerException ne) {
+    /**
+     * Gets the number of threads building the graph when the planner is initialized
+     *
+     * @return int containing the thread count, by default the number of processors
+     */
+    public int getInitializationThreads() {
+        return initializationThreads;
+    }
 
-            }
+    /**
+     * Sets the number of landmarks to choose in every connected part of the grid the next time the planner is
+     * initialized. The distances to the landmarks give A* a much closer estimate on maps with walls and long
+     * detours, at the cost of a breadth first search over the whole grid and a table of the grid size per landmark.
+     *
+     * @param landmarkCount number of landmarks, 0 to build none
+     */
+    public void setLandmarkCount(int landmarkCount) {
+        if (landmarkCount < 0) {
+            throw new IllegalArgumentException("LandmarkCount can not be negative");
         }
-        //draw endpoint
-        g2.setPaint(Color.RED);
-        g2.fillOval((int) endPoint.getX() * factor, (int) endPoint.getY() * factor, size, size);
+        this.landmarkCount = landmarkCount;
+    }
 
+    /**
+     * Gets the number of landmarks chosen in every connected part of the grid when initializing
+     *
+     * @return int containing the landmark count, 0 for none
+     */
+    public int getLandmarkCount() {
+        return landmarkCount;
+    }
 
-        try {
-            //ImageIO.write(img, "PNG", new File("/out/buffer_output"+stepNumber+".png"));
-            ImageIO.write(img, "PNG", new File(System.getProperty("user.dir") + File.separator + "out" + File.separator + "buffer_output" + stepNumber + ".png"));
-            //System.out.println("Wrote img to disk");
-        } catch (Exception e) {
-            System.out.println(e);
-        }
+    /**
+     * Gets the landmark distances built by the last call to initializePlanner, for their size and build time
+     *
+     * @return the landmark table, null when none was built
+     */
+    public LandmarkTable getLandmarkTable() {
+        PlannerGraph currentGraph = graph;
+        return (currentGraph == null) ? null : currentGraph.getLandmarks();
     }
 
     /**
-     * Inner class used to create a version of the grid suitable for use in motion planning.
-     * These points are "aware" of their neighbouring points.
+     * Sets the limits for every query that does not get a budget of its own, so a single query can not search the
+     * whole grid
+     *
+     * @param searchBudget the limits, null for no limits
      */
-    private class MotionPoint {
+    public void setSearchBudget(SearchBudget searchBudget) {
+        this.searchBudget = searchBudget;
+    }
 
-        private boolean isObstacle;
-
-        private GridPoint gridPoint;
-        private Point previousPoint;
-        private ArrayList<Point> adjacentPoints;
+    /**
+     * Gets the limits for every query that does not get a budget of its own
+     *
+     * @return the limits, null if there are none
+     */
+    public SearchBudget getSearchBudget() {
+        return searchBudget;
+    }
 
-        public MotionPoint(GridPoint gridPoint) {
-            previousPoint = null;
-            adjacentPoints = new ArrayList<>();
-            isObstacle = false;
-            this.gridPoint = gridPoint;
-        }
+    /**
+     * Gets the pathfinding mode used by findPath when no mode is given
+     *
+     * @return PathfindingMode of this planner
+     */
+    public PathfindingMode getPathfindingMode() {
+        return pathfindingMode;
+    }
 
-        /**
-         * Sets whether or not the point is an obstacle
-         *
-         * @param isObstacle boolean true or false
-         */
-        public void setObstacle(boolean isObstacle) {
-            this.isObstacle = isObstacle;
-        }
+    /**
+     * Sets the pathfinding mode used by findPath when no mode is given. In Hierarchical mode initializePlanner builds
+     * the abstract graph of the grid as well; when the mode is switched to Hierarchical afterwards, call
+     * buildHierarchicalGraph or the first hierarchical query builds it.
+     *
+     * @param pathfindingMode PathfindingMode to use
+     */
+    public void setPathfindingMode(PathfindingMode pathfindingMode) {
+        this.pathfindingMode = pathfindingMode;
+    }
 
-        /**
-         * returns whether or not the point is an obstacle
-         *
-         * @return boolean whether or not this is an obstacle
-         */
-        @Deprecated
-        public boolean getObstacle() {
-            return this.isObstacle;
+    /**
+     * Builds the abstract graph for hierarchical queries on the current grid, unless it was built already. The
+     * clusters are searched on as many threads as the planner is initialized with.
+     *
+     * @throws IllegalStateException if the planner was not initialized
+     */
+    public void buildHierarchicalGraph() {
+        PlannerGraph currentGraph = graph;
+        if (currentGraph == null) {
+            throw new IllegalStateException("Planner is not initialized");
         }
-
-        /**
-         * Sets the previous point in the used path when generating a path
-         *
-         * @param point A point in the plannable grid
-         */
-        public void setPreviousPoint(Point point) {
-            this.previousPoint = point;
+        int threads = initializationThreads;
+        ForkJoinPool buildPool = (threads > 1) ? new ForkJoinPool(threads) : null;
+        try {
+            currentGraph.buildHierarchicalPlanner(buildPool);
+        } finally {
+            if (buildPool != null) {
+                buildPool.shutdown();
+            }
         }
+    }
 
-        /**
-         * Gets the previous point in the used path when generating a path
-         *
-         * @return Returns the previous point in the plannable grid
-         */
-        public Point getPreviousPoint() {
-            return previousPoint;
+    /**
+     * Returns the livingareas found by the motionplanner so the world can randomly place the creatures as defined
+     * in the requirements. Item 0 in the returned list is always the surrounding water.
+     * DO NOT CALL BEFORE CALLING intializePlanner()!
+     *
+     * @return
+     */
+    public ArrayList<ArrayList<Point>> getLivingAreas() throws Exception {
+        if (graph == null) {
+            throw new Exception("Planner not properly initialized");
         }
-
-        /**
-         * Adds an adjacent point in the plannable grid
-         *
-         * @param point a motionpoint instance in the plannable grid
-         */
-        public void addAdjacentPoint(Point point) {
-            adjacentPoints.add(point);
+        ArrayList<ArrayList<Point>> livingAreas = new ArrayList<>();
+        for (int area = 0; area < getLivingAreaCount(); area++) {
+            ArrayList<Point> pointArea = new ArrayList<>();
+            for (int i = 0; i < getLivingAreaSize(area); i++) {
+                pointArea.add(getLivingAreaPoint(area, i));
+            }
+            livingAreas.add(pointArea);
         }
+        return livingAreas;
+    }
 
-        /**
-         * Fetch a list with all adjacent points in the plannable grid
-         *
-         * @return ArrayList containing MotionPoints
-         */
-        public ArrayList<Point> getAdjacentPoints() {
-            return adjacentPoints;
-        }
+    /**
+     * Gets the number of living areas, including the water as area 0
+     *
+     * @return int containing the area count
+     */
+    public int getLivingAreaCount() {
+        return graph.getAreaOffsets().length - 1;
+    }
 
-        /**
-         * Gets the GridPoint representing this MotionPoint in the regular simulation grid
-         *
-         * @return
-         */
-        public GridPoint getGridPoint() {
-            return gridPoint;
-        }
+    /**
+     * Gets the number of points in a living area
+     *
+     * @param area area number, 0 for the water
+     * @return int containing the point count
+     */
+    public int getLivingAreaSize(int area) {
+        int[] offsets = graph.getAreaOffsets();
+        return offsets[area + 1] - offsets[area];
+    }
 
-        /**
-         * Gets the X coordinate, based on the regular grid system
-         *
-         * @return X coordinate
-         */
-        public int getX() {
-            return gridPoint.getX();
-        }
+    /**
+     * Gets a point of a living area
+     *
+     * @param area  area number, 0 for the water
+     * @param index index of the point within the area, from 0 up to the size of the area
+     * @return the point
+     */
+    public Point getLivingAreaPoint(int area, int index) {
+        PlannerGraph currentGraph = graph;
+        int point = currentGraph.getAreaPoints()[currentGraph.getAreaOffsets()[area] + index];
+        return new Point(point % currentGraph.getGridWidth(), point / currentGraph.getGridWidth());
+    }
 
-        /**
-         * Gets the Y coordinate, based on the regular grid system
-         *
-         * @return Y coordinate
-         */
-        public int getY() {
-            return gridPoint.getY();
-        }
+    /**
+     * Gets the living area a point belongs to
+     *
+     * @param point the point
+     * @return area number, 0 for the water and -1 for obstacles
+     */
+    public int getLivingAreaId(Point point) {
+        PlannerGraph currentGraph = graph;
+        return currentGraph.getPointAreas()[(point.y * currentGraph.getGridWidth()) + point.x];
+    }
 
-        /**
-         * Gets the type of gridPoint
-         *
-         * @return gridPointType enum
-         */
-        public GridPointType getType() {
-            return gridPoint.getType();
-        }
-    }
-
-}
\ No newline at end of file
+    /**
+     * Gets the element number corresponding to these coordinates.
+     *
+     * @param x X coordinate of the point
+     * @param y Y coordinate of the point
+     * @return int element number in the pointList
+     */
+    private int getPointNumber(int x, int y) {
+        int gridWidth = simulationGrid.getWidth();
+        return (gridWidth * (y + 1)) + (x - gridWidth);
+    }
+}
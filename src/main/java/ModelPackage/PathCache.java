@@ -0,0 +1,191 @@
+package ModelPackage;
+
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Remembers recently found paths so a MovementPlanner does not search the same start and target again. Paths are
+ * stored as arrays of element numbers and the least recently used ones are dropped once the number of paths or the
+ * total number of stored points exceeds its limit. "No path" results are remembered as well.
+ * <p>
+ * All paths are dropped as soon as the planner is initialized again, since that is when a planner picks up a change
+ * of the terrain: until then its searches still run on the old terrain, and the stored paths match what they find.
+ * After editing the terrain, call initializePlanner again. The cache can be shared by the threads of one planner.
+ */
+public class PathCache {
+
+    //stored for queries that found no path
+    private static final int[] NO_PATH = new int[0];
+
+    private final int maxEntries;
+    private final int maxPoints;
+    private final LinkedHashMap<Long, int[]> paths;
+    private int storedPoints;
+
+    //graph the stored paths were found on
+    private PlannerGraph graph;
+
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+
+    /**
+     * Creates an empty cache
+     *
+     * @param maxEntries maximum number of paths kept
+     * @param maxPoints  maximum number of points kept over all paths together
+     */
+    public PathCache(int maxEntries, int maxPoints) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("MaxEntries must be at least 1");
+        }
+        if (maxPoints < 1) {
+            throw new IllegalArgumentException("MaxPoints must be at least 1");
+        }
+        this.maxEntries = maxEntries;
+        this.maxPoints = maxPoints;
+        //access order turns the iteration order into least recently used first
+        paths = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /**
+     * Gets the number of queries answered from the cache
+     *
+     * @return long containing the hit count
+     */
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * Gets the number of queries that had to be searched
+     *
+     * @return long containing the miss count
+     */
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * Gets the number of paths dropped to stay within the limits. Paths dropped because the planner was initialized
+     * again are not counted.
+     *
+     * @return long containing the eviction count
+     */
+    public synchronized long getEvictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * Gets the number of paths currently kept
+     *
+     * @return int containing the path count
+     */
+    public synchronized int getSize() {
+        return paths.size();
+    }
+
+    /**
+     * Gets the number of points currently kept over all paths
+     *
+     * @return int containing the point count
+     */
+    public synchronized int getStoredPointCount() {
+        return storedPoints;
+    }
+
+    /**
+     * Drops all paths. The counters are kept.
+     */
+    public synchronized void clear() {
+        paths.clear();
+        storedPoints = 0;
+    }
+
+    /**
+     * Gets a stored path, counting a hit or a miss
+     *
+     * @param key   key of the query, see getKey
+     * @param graph graph the query is searched on
+     * @param found receives the path found when the path is stored; left empty for a stored "no path"
+     * @return true if the query was stored
+     */
+    synchronized boolean get(long key, PlannerGraph graph, ArrayList<Point> found) {
+        validate(graph);
+        int[] path = paths.get(key);
+        if (path == null) {
+            missCount++;
+            return false;
+        }
+        hitCount++;
+        int gridWidth = graph.getGridWidth();
+        for (int point : path) {
+            found.add(new Point(point % gridWidth, point / gridWidth));
+        }
+        return true;
+    }
+
+    /**
+     * Stores a path, dropping the least recently used ones when the limits are exceeded. Paths found on another
+     * graph than the one of the last get are not stored.
+     *
+     * @param key       key of the query, see getKey
+     * @param graph     graph the query was searched on
+     * @param pathFound the path found, null if none
+     */
+    synchronized void put(long key, PlannerGraph graph, ArrayList<Point> pathFound) {
+        if (graph != this.graph) {
+            return;
+        }
+        int[] path = NO_PATH;
+        if (pathFound != null) {
+            path = new int[pathFound.size()];
+            for (int i = 0; i < path.length; i++) {
+                path[i] = (pathFound.get(i).y * graph.getGridWidth()) + pathFound.get(i).x;
+            }
+        }
+        if (path.length > maxPoints) {
+            return;
+        }
+        int[] replaced = paths.put(key, path);
+        if (replaced != null) {
+            storedPoints -= replaced.length;
+        }
+        storedPoints += path.length;
+
+        Iterator<Map.Entry<Long, int[]>> eldest = paths.entrySet().iterator();
+        while ((paths.size() > maxEntries) || (storedPoints > maxPoints)) {
+            storedPoints -= eldest.next().getValue().length;
+            eldest.remove();
+            evictionCount++;
+        }
+    }
+
+    /**
+     * Builds the key of a query
+     *
+     * @param graph                   graph the query is searched on
+     * @param start                   element number of the startpoint
+     * @param target                  element number of the target
+     * @param useIslandOnlyNavigation whether the path has to stay on the living area first
+     * @param mode                    search algorithm used
+     * @return long containing the key
+     */
+    static long getKey(PlannerGraph graph, int start, int target, boolean useIslandOnlyNavigation, PathfindingMode mode) {
+        long pair = ((long) start * graph.getPointCount()) + target;
+        return (((pair * PathfindingMode.values().length) + mode.ordinal()) << 1) | (useIslandOnlyNavigation ? 1 : 0);
+    }
+
+    /**
+     * Drops all paths when they were found on another graph
+     */
+    private void validate(PlannerGraph graph) {
+        if (graph != this.graph) {
+            clear();
+            this.graph = graph;
+        }
+    }
+}
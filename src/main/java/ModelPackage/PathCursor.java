@@ -0,0 +1,91 @@
+package ModelPackage;
+
+import java.awt.*;
+
+/**
+ * Walks a CompactPath in place. The cursor starts on the startpoint of the path and every call to next moves it one
+ * point further, so following a path does not copy or shorten it.
+ */
+public class PathCursor {
+
+    private final CompactPath path;
+    private int step;
+    private int x;
+    private int y;
+    private boolean started;
+
+    /**
+     * Creates a cursor before the startpoint of a path
+     *
+     * @param path the path to walk
+     */
+    public PathCursor(CompactPath path) {
+        if (path == null) {
+            throw new IllegalArgumentException("Path must not be null");
+        }
+        this.path = path;
+        Point start = path.getStartPoint();
+        x = start.x;
+        y = start.y;
+    }
+
+    /**
+     * Checks whether there are points left on the path
+     *
+     * @return true if next can be called
+     */
+    public boolean hasNext() {
+        return !started || (step < path.getStepCount());
+    }
+
+    /**
+     * Moves to the next point of the path. The first call returns the startpoint.
+     *
+     * @return the point moved to
+     */
+    public Point next() {
+        if (!hasNext()) {
+            throw new IllegalStateException("The end of the path is reached");
+        }
+        if (!started) {
+            started = true;
+        } else {
+            byte direction = path.getDirection(step++);
+            x = path.getNextX(x, direction);
+            y = path.getNextY(y, direction);
+        }
+        return new Point(x, y);
+    }
+
+    /**
+     * Moves several points further without returning them
+     *
+     * @param points number of points to skip, at most getRemainingPoints
+     */
+    public void skip(int points) {
+        if ((points < 0) || (points > getRemainingPoints())) {
+            throw new IllegalArgumentException("Can not skip " + points + " points, " + getRemainingPoints() + " are left");
+        }
+        for (int i = 0; i < points; i++) {
+            next();
+        }
+    }
+
+    /**
+     * Gets the number of points next still returns
+     *
+     * @return int containing the remaining point count
+     */
+    public int getRemainingPoints() {
+        return path.getStepCount() - step + (started ? 0 : 1);
+    }
+
+    /**
+     * Gets the path walked
+     *
+     * @return the path
+     */
+    public CompactPath getPath() {
+        return path;
+    }
+}
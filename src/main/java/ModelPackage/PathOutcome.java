@@ -0,0 +1,15 @@
+package ModelPackage;
+
+/**
+ * Describes how a path query with a SearchBudget ended
+ */
+public enum PathOutcome {
+    //the whole path to the target was found
+    Found,
+    //the budget ran out, the path leads to the point searched closest to the target
+    Partial,
+    //the budget ran out before the target was found, no partial path was asked for
+    BudgetExceeded,
+    //the whole reachable grid was searched without finding the target
+    Unreachable
+}
@@ -0,0 +1,53 @@
+package ModelPackage;
+
+import java.awt.*;
+
+/**
+ * A single path request for MovementPlanner.findPaths
+ */
+public class PathQuery {
+
+    private final Point startPoint;
+    private final Point targetPoint;
+    private final boolean useIslandOnlyNavigation;
+
+    /**
+     * Creates a path request
+     *
+     * @param startPoint              First point of the path
+     * @param targetPoint             Last point of the path
+     * @param useIslandOnlyNavigation true to search the living area of the startpoint first, see MovementPlanner.findPath
+     */
+    public PathQuery(Point startPoint, Point targetPoint, boolean useIslandOnlyNavigation) {
+        this.startPoint = startPoint;
+        this.targetPoint = targetPoint;
+        this.useIslandOnlyNavigation = useIslandOnlyNavigation;
+    }
+
+    /**
+     * Gets the first point of the path
+     *
+     * @return the startpoint
+     */
+    public Point getStartPoint() {
+        return startPoint;
+    }
+
+    /**
+     * Gets the last point of the path
+     *
+     * @return the target
+     */
+    public Point getTargetPoint() {
+        return targetPoint;
+    }
+
+    /**
+     * Checks whether the living area of the startpoint is searched first
+     *
+     * @return true for island only navigation
+     */
+    public boolean getUseIslandOnlyNavigation() {
+        return useIslandOnlyNavigation;
+    }
+}
@@ -0,0 +1,48 @@
+package ModelPackage;
+
+import java.awt.*;
+import java.util.ArrayList;
+
+/**
+ * Result of a path query with a SearchBudget: the path, if any, and how the query ended
+ */
+public class PathResult {
+
+    private final ArrayList<Point> path;
+    private final PathOutcome outcome;
+    private final int expansionCount;
+
+    PathResult(ArrayList<Point> path, PathOutcome outcome, int expansionCount) {
+        this.path = path;
+        this.outcome = outcome;
+        this.expansionCount = expansionCount;
+    }
+
+    /**
+     * Gets the path found, in the same order as MovementPlanner.findPath returns it
+     *
+     * @return the whole path when found, the path towards the target when partial, null otherwise or when the
+     * startpoint is the target
+     */
+    public ArrayList<Point> getPath() {
+        return path;
+    }
+
+    /**
+     * Gets how the query ended
+     *
+     * @return the outcome
+     */
+    public PathOutcome getOutcome() {
+        return outcome;
+    }
+
+    /**
+     * Gets the number of points the query expanded
+     *
+     * @return int containing the expansion count
+     */
+    public int getExpansionCount() {
+        return expansionCount;
+    }
+}
@@ -0,0 +1,337 @@
+package ModelPackage;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Records the progress of selected path queries and writes them as images, replacing the debug image the
+ * MovementPlanner used to write on every search step. Nothing is recorded unless a sample interval or a filter is
+ * set. The frames of a query are kept in a ring buffer of fixed size, so a long search only keeps its last frames,
+ * and the images are drawn and written on a background thread once the query is done.
+ */
+public class PathTraceRecorder {
+
+    static final byte POINT_OPEN = 1;
+    static final byte POINT_CLOSED = 2;
+
+    //queries waiting to be written; queries finishing while this many are waiting are dropped
+    private static final int PENDING_QUERY_LIMIT = 4;
+
+    private int frameCapacity;
+    private File outputDirectory;
+    private volatile int cellSize;
+    private volatile int sampleInterval;
+    private volatile IPathTraceFilter filter;
+
+    private AtomicInteger queryCount;
+    private ThreadPoolExecutor encoder;
+    private AtomicInteger writtenImages;
+    private AtomicInteger droppedQueries;
+
+    /**
+     * Creates a recorder that does not record anything until a sample interval or filter is set
+     *
+     * @param frameCapacity   maximum number of frames kept for a single query
+     * @param outputDirectory directory the images are written to
+     */
+    public PathTraceRecorder(int frameCapacity, File outputDirectory) {
+        if (frameCapacity < 1) {
+            throw new IllegalArgumentException("FrameCapacity must be at least 1");
+        }
+        this.frameCapacity = frameCapacity;
+        this.outputDirectory = outputDirectory;
+        cellSize = 20;
+        sampleInterval = 0;
+        queryCount = new AtomicInteger();
+        encoder = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(PENDING_QUERY_LIMIT),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "PathTraceRecorder");
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                (runnable, executor) -> droppedQueries.incrementAndGet());
+        writtenImages = new AtomicInteger();
+        droppedQueries = new AtomicInteger();
+    }
+
+    /**
+     * Sets how often a query is recorded
+     *
+     * @param sampleInterval record every n-th query, 0 to only record queries accepted by the filter
+     */
+    public void setSampleInterval(int sampleInterval) {
+        this.sampleInterval = sampleInterval;
+    }
+
+    /**
+     * Sets a filter selecting extra queries to record
+     *
+     * @param filter the filter, null to only record sampled queries
+     */
+    public void setFilter(IPathTraceFilter filter) {
+        this.filter = filter;
+    }
+
+    /**
+     * Sets the size of a single grid point in the images
+     *
+     * @param cellSize size in pixels
+     */
+    public void setCellSize(int cellSize) {
+        this.cellSize = cellSize;
+    }
+
+    /**
+     * Gets the number of images written so far
+     *
+     * @return int containing the image count
+     */
+    public int getWrittenImageCount() {
+        return writtenImages.get();
+    }
+
+    /**
+     * Gets the number of recorded queries that were not written because too many were still waiting
+     *
+     * @return int containing the dropped query count
+     */
+    public int getDroppedQueryCount() {
+        return droppedQueries.get();
+    }
+
+    /**
+     * Waits until all recorded queries are written
+     *
+     * @param timeoutMillis maximum time to wait
+     * @return true if everything was written in time
+     */
+    public boolean awaitWritten(long timeoutMillis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (encoder.getCompletedTaskCount() < encoder.getTaskCount()) {
+            if (System.currentTimeMillis() > deadline) {
+                return false;
+            }
+            Thread.sleep(10);
+        }
+        return true;
+    }
+
+    /**
+     * Starts a query and decides whether it is recorded. Can be called from several threads at once.
+     *
+     * @param startPoint  first point of the path
+     * @param targetPoint last point of the path
+     * @param mode        search algorithm used for the path
+     * @param graph       graph the query is searched on
+     * @return the trace to record the query in, null if it is not recorded
+     */
+    QueryTrace beginQuery(Point startPoint, Point targetPoint, PathfindingMode mode, PlannerGraph graph) {
+        int queryNumber = queryCount.incrementAndGet();
+        int interval = sampleInterval;
+        IPathTraceFilter currentFilter = filter;
+        if (((interval > 0) && (queryNumber % interval == 0)) ||
+                ((currentFilter != null) && currentFilter.isTraced(startPoint, targetPoint, mode))) {
+            return new QueryTrace(queryNumber, new Point(startPoint), new Point(targetPoint), graph);
+        }
+        return null;
+    }
+
+    /**
+     * Draws a frame and writes it to the output directory. Runs on the background thread.
+     */
+    private void writeFrame(QueryTrace trace, TraceFrame frame) {
+        int width = trace.gridWidth;
+        int height = trace.gridHeight;
+        byte[] terrain = trace.terrain;
+        Point start = trace.startPoint;
+        Point target = trace.targetPoint;
+        int cellSize = this.cellSize;
+        int size = Math.max(1, cellSize / 4);
+        int canvasWidth = width * cellSize;
+        int canvasHeight = height * cellSize;
+
+        BufferedImage img = new BufferedImage(canvasWidth, canvasHeight, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g2 = img.createGraphics();
+        g2.setPaint(Color.lightGray);
+        g2.fillRect(0, 0, canvasWidth, canvasHeight);
+
+        //draw grid
+        for (int i = 0; i < width * height; i++) {
+            switch (GridPointType.values()[terrain[i]]) {
+                case Obstacle:
+                    g2.setColor(Color.MAGENTA);
+                    break;
+                case Water:
+                    g2.setColor(Color.CYAN);
+                    break;
+                case Ground:
+                    g2.setColor(Color.ORANGE);
+                    break;
+            }
+            g2.fillOval((i % width) * cellSize, (i / width) * cellSize, size, size);
+        }
+
+        //draw open and closed points
+        g2.setStroke(new BasicStroke(2));
+        for (int i = 0; i < frame.pointStates.length; i++) {
+            int x = (i % width) * cellSize;
+            int y = (i / width) * cellSize;
+            if (frame.pointStates[i] == POINT_OPEN) {
+                g2.setColor(Color.BLACK);
+                g2.fillOval(x, y, size, size);
+            } else if (frame.pointStates[i] == POINT_CLOSED) {
+                g2.setColor(Color.ORANGE);
+                g2.drawOval(x, y, size, size);
+                if ((i < frame.parents.length) && (frame.parents[i] != -1)) {
+                    g2.setColor(Color.BLUE);
+                    g2.drawLine(x, y, (frame.parents[i] % width) * cellSize, (frame.parents[i] / width) * cellSize);
+                }
+            }
+        }
+
+        //draw path
+        if (frame.path != null) {
+            g2.setColor(Color.RED);
+            for (int i = 1; i < frame.path.size(); i++) {
+                Point from = frame.path.get(i - 1);
+                Point to = frame.path.get(i);
+                if ((Math.abs(from.x - to.x) <= 1) && (Math.abs(from.y - to.y) <= 1)) {
+                    g2.drawLine(from.x * cellSize, from.y * cellSize, to.x * cellSize, to.y * cellSize);
+                }
+            }
+        }
+
+        //draw startpoint and target
+        g2.setPaint(Color.GREEN);
+        g2.fillOval(start.x * cellSize, start.y * cellSize, size, size);
+        g2.setPaint(Color.RED);
+        g2.fillOval(target.x * cellSize, target.y * cellSize, size, size);
+        g2.dispose();
+
+        try {
+            outputDirectory.mkdirs();
+            ImageIO.write(img, "PNG", new File(outputDirectory, "trace" + trace.queryNumber + "_" + frame.frameNumber + ".png"));
+            writtenImages.incrementAndGet();
+        } catch (Exception e) {
+            System.out.println(e);
+        }
+    }
+
+    /**
+     * Frames of one recorded query. Only used by the thread running the query until it ends.
+     */
+    class QueryTrace {
+
+        private int queryNumber;
+        private Point startPoint;
+        private Point targetPoint;
+        private int gridWidth;
+        private int gridHeight;
+        private byte[] terrain;
+
+        //ring buffer of the frames, the oldest is dropped when it is full
+        private TraceFrame[] frames;
+        private int frameHead;
+        private int frameCount;
+        private int frameNumber;
+
+        private QueryTrace(int queryNumber, Point startPoint, Point targetPoint, PlannerGraph graph) {
+            this.queryNumber = queryNumber;
+            this.startPoint = startPoint;
+            this.targetPoint = targetPoint;
+            gridWidth = graph.getGridWidth();
+            gridHeight = graph.getGridHeight();
+            terrain = graph.getTerrain();
+            frames = new TraceFrame[frameCapacity];
+        }
+
+        /**
+         * Records the state of the search. Points are open when visited but not closed in the current generation.
+         *
+         * @param visitedGeneration generation in which each point was last visited
+         * @param closedGeneration  generation in which each point was last closed
+         * @param generation        generation of the current search
+         * @param parentPoints      point each point was reached from
+         */
+        void recordFrame(int[] visitedGeneration, int[] closedGeneration, int generation, int[] parentPoints) {
+            int pointCount = gridWidth * gridHeight;
+            byte[] pointStates = new byte[pointCount];
+            int[] parents = new int[pointCount];
+            for (int i = 0; i < pointCount; i++) {
+                parents[i] = -1;
+                if (closedGeneration[i] == generation) {
+                    pointStates[i] = POINT_CLOSED;
+                    parents[i] = parentPoints[i];
+                } else if (visitedGeneration[i] == generation) {
+                    pointStates[i] = POINT_OPEN;
+                }
+            }
+            addFrame(new TraceFrame(frameNumber++, pointStates, parents, null));
+        }
+
+        /**
+         * Ends the query. The frames recorded, and a last frame with the path found, are handed to the background
+         * thread.
+         *
+         * @param pathFound the path found, null if none
+         */
+        void end(List<Point> pathFound) {
+            if (pathFound != null) {
+                TraceFrame lastFrame = (frameCount > 0) ? frames[(frameHead + frameCount - 1) % frameCapacity] : null;
+                byte[] pointStates = (lastFrame != null) ? lastFrame.pointStates : new byte[gridWidth * gridHeight];
+                int[] parents = (lastFrame != null) ? lastFrame.parents : new int[0];
+                addFrame(new TraceFrame(frameNumber++, pointStates, parents, new ArrayList<>(pathFound)));
+            }
+
+            List<TraceFrame> queryFrames = new ArrayList<>();
+            for (int i = 0; i < frameCount; i++) {
+                queryFrames.add(frames[(frameHead + i) % frameCapacity]);
+            }
+            frames = null;
+            encoder.execute(() -> {
+                for (TraceFrame frame : queryFrames) {
+                    writeFrame(this, frame);
+                }
+            });
+        }
+
+        /**
+         * Adds a frame to the ring buffer, replacing the oldest one when it is full
+         */
+        private void addFrame(TraceFrame frame) {
+            if (frameCount == frameCapacity) {
+                frames[frameHead] = frame;
+                frameHead = (frameHead + 1) % frameCapacity;
+            } else {
+                frames[(frameHead + frameCount) % frameCapacity] = frame;
+                frameCount++;
+            }
+        }
+    }
+
+    /**
+     * State of a search at one moment
+     */
+    private static class TraceFrame {
+
+        private int frameNumber;
+        private byte[] pointStates;
+        private int[] parents;
+        private List<Point> path;
+
+        TraceFrame(int frameNumber, byte[] pointStates, int[] parents, List<Point> path) {
+            this.frameNumber = frameNumber;
+            this.pointStates = pointStates;
+            this.parents = parents;
+            this.path = path;
+        }
+    }
+}
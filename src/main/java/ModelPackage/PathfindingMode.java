@@ -0,0 +1,12 @@
+package ModelPackage;
+
+/**
+ * Provides the different search algorithms the MovementPlanner can use to find a path.
+ */
+public enum PathfindingMode {
+    BreadthFirst,
+    AStar,
+    JumpPoint,
+    Hierarchical,
+    Weighted
+}
@@ -0,0 +1,165 @@
+package ModelPackage;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Map data a MovementPlanner searches on: the adjacent points of every point and the living areas. Built once by
+ * MovementPlanner.initializePlanner and never changed afterwards, so any number of searches can read it at the same
+ * time. Initializing the planner again creates a new graph; searches still running keep using the old one.
+ */
+final class PlannerGraph {
+
+    private final int gridWidth;
+    private final int gridHeight;
+
+    //adjacent points in compressed sparse row form, see MovementPlanner.generatePlannableGrid()
+    private final int[] adjacencyOffsets;
+    private final int[] adjacentPoints;
+
+    //area number for every point, and the points of every area in compressed sparse row form
+    private final int[] pointAreas;
+    private final int[] areaOffsets;
+    private final int[] areaPoints;
+
+    //ordinal of the GridPointType of every point
+    private final byte[] terrain;
+
+    //landmark distances for the A* estimate, null when the planner builds none
+    private final LandmarkTable landmarks;
+
+    //points where the lines of a jump point search may stop
+    private final JumpPointLines jumpLines;
+
+    //abstract graph for hierarchical pathfinding, built with the graph in hierarchical mode, otherwise on first use
+    private HierarchicalPlanner hierarchicalPlanner;
+
+    //shore portals of the living areas, built with the graph when portal routing is enabled, otherwise on first use
+    private PortalGraph portalGraph;
+
+    PlannerGraph(int gridWidth, int gridHeight, int[] adjacencyOffsets, int[] adjacentPoints, int[] pointAreas,
+                 int[] areaOffsets, int[] areaPoints, byte[] terrain, LandmarkTable landmarks) {
+        this.gridWidth = gridWidth;
+        this.gridHeight = gridHeight;
+        this.adjacencyOffsets = adjacencyOffsets;
+        this.adjacentPoints = adjacentPoints;
+        this.pointAreas = pointAreas;
+        this.areaOffsets = areaOffsets;
+        this.areaPoints = areaPoints;
+        this.terrain = terrain;
+        this.landmarks = landmarks;
+        jumpLines = new JumpPointLines(gridWidth, gridHeight, pointAreas);
+    }
+
+    /**
+     * Gets the width of the grid
+     */
+    int getGridWidth() {
+        return gridWidth;
+    }
+
+    /**
+     * Gets the height of the grid
+     */
+    int getGridHeight() {
+        return gridHeight;
+    }
+
+    /**
+     * Gets the number of points in the grid
+     */
+    int getPointCount() {
+        return gridWidth * gridHeight;
+    }
+
+    /**
+     * Gets the offset of the first adjacent point of every point in getAdjacentPoints()
+     */
+    int[] getAdjacencyOffsets() {
+        return adjacencyOffsets;
+    }
+
+    /**
+     * Gets the adjacent points of all points, ordered by point
+     */
+    int[] getAdjacentPoints() {
+        return adjacentPoints;
+    }
+
+    /**
+     * Gets the area of every point: 0 for water, -1 for obstacles, otherwise the living area number
+     */
+    int[] getPointAreas() {
+        return pointAreas;
+    }
+
+    /**
+     * Gets the offset of the first point of every area in getAreaPoints()
+     */
+    int[] getAreaOffsets() {
+        return areaOffsets;
+    }
+
+    /**
+     * Gets the points of all living areas, ordered by area
+     */
+    int[] getAreaPoints() {
+        return areaPoints;
+    }
+
+    /**
+     * Gets the GridPointType ordinal of every point
+     */
+    byte[] getTerrain() {
+        return terrain;
+    }
+
+    /**
+     * Gets the landmark distances, null when none were built
+     */
+    LandmarkTable getLandmarks() {
+        return landmarks;
+    }
+
+    /**
+     * Gets the points where the lines of a jump point search may stop
+     */
+    JumpPointLines getJumpLines() {
+        return jumpLines;
+    }
+
+    /**
+     * Builds the abstract graph for hierarchical pathfinding, unless it was built already
+     *
+     * @param buildPool threads to search the clusters on, null to search them on the calling thread
+     */
+    synchronized void buildHierarchicalPlanner(ForkJoinPool buildPool) {
+        if (hierarchicalPlanner == null) {
+            hierarchicalPlanner = new HierarchicalPlanner(this, buildPool);
+        }
+    }
+
+    /**
+     * Gets the abstract graph for hierarchical pathfinding, building it on the first call if it was not built yet. The planner returned is
+     * shared; searches need their own copy, see HierarchicalPlanner(HierarchicalPlanner).
+     *
+     * @return the shared hierarchical planner
+     */
+    synchronized HierarchicalPlanner getHierarchicalPlanner() {
+        if (hierarchicalPlanner == null) {
+            hierarchicalPlanner = new HierarchicalPlanner(this);
+        }
+        return hierarchicalPlanner;
+    }
+
+    /**
+     * Gets the portal graph for routes between living areas, building it on the first call if it was not built yet
+     *
+     * @return the shared portal graph
+     */
+    synchronized PortalGraph getPortalGraph() {
+        if (portalGraph == null) {
+            portalGraph = new PortalGraph(this);
+        }
+        return portalGraph;
+    }
+}
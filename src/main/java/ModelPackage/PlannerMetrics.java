@@ -0,0 +1,342 @@
+package ModelPackage;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters of the path queries a MovementPlanner answers, split by pathfinding mode and by navigation mode (island
+ * only or swimming): how many queries there were, how they ended, and histograms of the points they expanded, the
+ * steps of the paths found and the time they took. Recording a query only adds to a few counters, each spread over
+ * cells per thread, so the metrics can stay on while many threads plan at once; they can be read from any thread
+ * at any time.
+ * <p>
+ * Queries whose startpoint is the target are counted as trivial and left out of the outcomes and histograms. Queries
+ * answered from the path cache count with no expanded points. Nearest target queries count as breadth first, or as
+ * weighted when they have a cost profile, and every query of a batch counts as breadth first with its share of the
+ * expanded points and the time of the batch.
+ */
+public class PlannerMetrics {
+
+    private static final int MODE_COUNT = PathfindingMode.values().length;
+    private static final int OUTCOME_COUNT = PathOutcome.values().length;
+
+    //counters per pathfinding mode, and within a mode for swimming and for island only navigation
+    private static final int CELL_COUNT = MODE_COUNT * 2;
+
+    private final LongAdder[] queryCounts;
+    private final LongAdder[] trivialCounts;
+    private final LongAdder[] outcomeCounts;
+    private final Histogram[] expansions;
+    private final Histogram[] pathLengths;
+    private final Histogram[] latencies;
+
+    /**
+     * Creates metrics with every counter at 0
+     */
+    public PlannerMetrics() {
+        queryCounts = createCounters(CELL_COUNT);
+        trivialCounts = createCounters(CELL_COUNT);
+        outcomeCounts = createCounters(CELL_COUNT * OUTCOME_COUNT);
+        expansions = new Histogram[CELL_COUNT];
+        pathLengths = new Histogram[CELL_COUNT];
+        latencies = new Histogram[CELL_COUNT];
+        for (int cell = 0; cell < CELL_COUNT; cell++) {
+            expansions[cell] = new Histogram();
+            pathLengths[cell] = new Histogram();
+            latencies[cell] = new Histogram();
+        }
+    }
+
+    /**
+     * Gets the number of queries of all modes together
+     *
+     * @return long containing the query count
+     */
+    public long getQueryCount() {
+        long count = 0;
+        for (int cell = 0; cell < CELL_COUNT; cell++) {
+            count += queryCounts[cell].sum();
+        }
+        return count;
+    }
+
+    /**
+     * Gets the number of queries of a mode, trivial ones included
+     *
+     * @param mode                    the pathfinding mode
+     * @param useIslandOnlyNavigation the navigation mode the queries asked for
+     * @return long containing the query count
+     */
+    public long getQueryCount(PathfindingMode mode, boolean useIslandOnlyNavigation) {
+        return queryCounts[getCell(mode, useIslandOnlyNavigation)].sum();
+    }
+
+    /**
+     * Gets the number of queries of a mode whose startpoint was the target
+     *
+     * @param mode                    the pathfinding mode
+     * @param useIslandOnlyNavigation the navigation mode the queries asked for
+     * @return long containing the trivial query count
+     */
+    public long getTrivialCount(PathfindingMode mode, boolean useIslandOnlyNavigation) {
+        return trivialCounts[getCell(mode, useIslandOnlyNavigation)].sum();
+    }
+
+    /**
+     * Gets the number of queries of a mode that ended in an outcome. Queries without a budget end as Found or
+     * Unreachable.
+     *
+     * @param mode                    the pathfinding mode
+     * @param useIslandOnlyNavigation the navigation mode the queries asked for
+     * @param outcome                 how the queries ended
+     * @return long containing the query count
+     */
+    public long getOutcomeCount(PathfindingMode mode, boolean useIslandOnlyNavigation, PathOutcome outcome) {
+        return outcomeCounts[(getCell(mode, useIslandOnlyNavigation) * OUTCOME_COUNT) + outcome.ordinal()].sum();
+    }
+
+    /**
+     * Gets the histogram of the number of points the queries of a mode expanded
+     *
+     * @param mode                    the pathfinding mode
+     * @param useIslandOnlyNavigation the navigation mode the queries asked for
+     * @return the histogram
+     */
+    public Histogram getExpansions(PathfindingMode mode, boolean useIslandOnlyNavigation) {
+        return expansions[getCell(mode, useIslandOnlyNavigation)];
+    }
+
+    /**
+     * Gets the histogram of the number of steps of the paths found by a mode, partial paths included
+     *
+     * @param mode                    the pathfinding mode
+     * @param useIslandOnlyNavigation the navigation mode the queries asked for
+     * @return the histogram
+     */
+    public Histogram getPathLengths(PathfindingMode mode, boolean useIslandOnlyNavigation) {
+        return pathLengths[getCell(mode, useIslandOnlyNavigation)];
+    }
+
+    /**
+     * Gets the histogram of the time the queries of a mode took, in nanoseconds
+     *
+     * @param mode                    the pathfinding mode
+     * @param useIslandOnlyNavigation the navigation mode the queries asked for
+     * @return the histogram
+     */
+    public Histogram getLatencies(PathfindingMode mode, boolean useIslandOnlyNavigation) {
+        return latencies[getCell(mode, useIslandOnlyNavigation)];
+    }
+
+    /**
+     * Sets every counter back to 0. Queries recorded at the same time may be counted partly.
+     */
+    public void reset() {
+        for (int cell = 0; cell < CELL_COUNT; cell++) {
+            queryCounts[cell].reset();
+            trivialCounts[cell].reset();
+            for (int outcome = 0; outcome < OUTCOME_COUNT; outcome++) {
+                outcomeCounts[(cell * OUTCOME_COUNT) + outcome].reset();
+            }
+            expansions[cell].reset();
+            pathLengths[cell].reset();
+            latencies[cell].reset();
+        }
+    }
+
+    /**
+     * Gets a line per mode and navigation mode that had queries, with its counts, mean and 99th percentile values
+     *
+     * @return String containing the summary
+     */
+    public String getSummary() {
+        StringBuilder summary = new StringBuilder();
+        for (PathfindingMode mode : PathfindingMode.values()) {
+            for (boolean islandOnly : new boolean[]{false, true}) {
+                if (getQueryCount(mode, islandOnly) == 0) {
+                    continue;
+                }
+                Histogram modeExpansions = getExpansions(mode, islandOnly);
+                Histogram modePathLengths = getPathLengths(mode, islandOnly);
+                Histogram modeLatencies = getLatencies(mode, islandOnly);
+                summary.append(mode).append(islandOnly ? " island only: " : " swimming: ")
+                        .append(getQueryCount(mode, islandOnly)).append(" queries, ")
+                        .append(getTrivialCount(mode, islandOnly)).append(" trivial");
+                for (PathOutcome outcome : PathOutcome.values()) {
+                    summary.append(", ").append(getOutcomeCount(mode, islandOnly, outcome)).append(' ').append(outcome);
+                }
+                summary.append("; expanded mean ").append(Math.round(modeExpansions.getMean()))
+                        .append(" p99 ").append(modeExpansions.getPercentile(99));
+                summary.append("; steps mean ").append(Math.round(modePathLengths.getMean()))
+                        .append(" p99 ").append(modePathLengths.getPercentile(99));
+                summary.append("; latency mean ").append(Math.round(modeLatencies.getMean() / 1000))
+                        .append("us p99 ").append(modeLatencies.getPercentile(99) / 1000).append("us")
+                        .append(System.lineSeparator());
+            }
+        }
+        return summary.toString();
+    }
+
+    /**
+     * Records a query whose startpoint was the target
+     *
+     * @param mode                    the pathfinding mode
+     * @param useIslandOnlyNavigation the navigation mode the query asked for
+     */
+    void recordTrivial(PathfindingMode mode, boolean useIslandOnlyNavigation) {
+        int cell = getCell(mode, useIslandOnlyNavigation);
+        queryCounts[cell].increment();
+        trivialCounts[cell].increment();
+    }
+
+    /**
+     * Records a query that was searched or answered from the cache
+     *
+     * @param mode                    the pathfinding mode
+     * @param useIslandOnlyNavigation the navigation mode the query asked for
+     * @param outcome                 how the query ended
+     * @param expansionCount          number of points expanded
+     * @param pathLength              number of steps of the path, -1 if no path was returned
+     * @param latency                 time the query took in nanoseconds
+     */
+    void record(PathfindingMode mode, boolean useIslandOnlyNavigation, PathOutcome outcome, int expansionCount, int pathLength, long latency) {
+        int cell = getCell(mode, useIslandOnlyNavigation);
+        queryCounts[cell].increment();
+        outcomeCounts[(cell * OUTCOME_COUNT) + outcome.ordinal()].increment();
+        expansions[cell].add(expansionCount);
+        if (pathLength >= 0) {
+            pathLengths[cell].add(pathLength);
+        }
+        latencies[cell].add(latency);
+    }
+
+    private static int getCell(PathfindingMode mode, boolean useIslandOnlyNavigation) {
+        return (mode.ordinal() * 2) + (useIslandOnlyNavigation ? 1 : 0);
+    }
+
+    private static LongAdder[] createCounters(int count) {
+        LongAdder[] counters = new LongAdder[count];
+        for (int i = 0; i < count; i++) {
+            counters[i] = new LongAdder();
+        }
+        return counters;
+    }
+
+    /**
+     * Histogram with a bucket per power of two: bucket 0 counts the value 0, bucket n the values from 2^(n-1) up to
+     * 2^n - 1. Percentiles are given as the highest value of the bucket they fall in, so they are at most twice the
+     * real value.
+     */
+    public static class Histogram {
+
+        private static final int BUCKET_COUNT = 64;
+
+        private final LongAdder[] buckets;
+        private final LongAdder count;
+        private final LongAdder total;
+
+        Histogram() {
+            buckets = createCounters(BUCKET_COUNT);
+            count = new LongAdder();
+            total = new LongAdder();
+        }
+
+        /**
+         * Gets the number of values recorded
+         *
+         * @return long containing the count
+         */
+        public long getCount() {
+            return count.sum();
+        }
+
+        /**
+         * Gets the sum of the values recorded
+         *
+         * @return long containing the sum
+         */
+        public long getTotal() {
+            return total.sum();
+        }
+
+        /**
+         * Gets the mean of the values recorded
+         *
+         * @return double containing the mean, 0 if nothing was recorded
+         */
+        public double getMean() {
+            long valueCount = getCount();
+            return (valueCount == 0) ? 0 : (double) getTotal() / valueCount;
+        }
+
+        /**
+         * Gets the number of buckets
+         *
+         * @return int containing the bucket count
+         */
+        public int getBucketCount() {
+            return BUCKET_COUNT;
+        }
+
+        /**
+         * Gets the number of values recorded in a bucket
+         *
+         * @param bucket number of the bucket
+         * @return long containing the count
+         */
+        public long getBucketValueCount(int bucket) {
+            return buckets[bucket].sum();
+        }
+
+        /**
+         * Gets the highest value counted in a bucket
+         *
+         * @param bucket number of the bucket
+         * @return long containing the value
+         */
+        public long getBucketLimit(int bucket) {
+            return (bucket == BUCKET_COUNT - 1) ? Long.MAX_VALUE : (1L << bucket) - 1;
+        }
+
+        /**
+         * Gets the value below or at which a percentage of the recorded values lie
+         *
+         * @param percentile percentage from 0 to 100
+         * @return long containing the highest value of the bucket the percentile falls in, 0 if nothing was recorded
+         */
+        public long getPercentile(double percentile) {
+            if ((percentile < 0) || (percentile > 100)) {
+                throw new IllegalArgumentException("Percentile must be between 0 and 100");
+            }
+            long[] bucketCounts = new long[BUCKET_COUNT];
+            long valueCount = 0;
+            for (int bucket = 0; bucket < BUCKET_COUNT; bucket++) {
+                bucketCounts[bucket] = buckets[bucket].sum();
+                valueCount += bucketCounts[bucket];
+            }
+            long needed = (long) Math.ceil((valueCount * percentile) / 100);
+            long seen = 0;
+            for (int bucket = 0; bucket < BUCKET_COUNT; bucket++) {
+                seen += bucketCounts[bucket];
+                if ((seen >= needed) && (seen > 0)) {
+                    return getBucketLimit(bucket);
+                }
+            }
+            return 0;
+        }
+
+        void add(long value) {
+            int bucket = 64 - Long.numberOfLeadingZeros(Math.max(0, value));
+            buckets[Math.min(bucket, BUCKET_COUNT - 1)].increment();
+            count.increment();
+            total.add(value);
+        }
+
+        void reset() {
+            for (int bucket = 0; bucket < BUCKET_COUNT; bucket++) {
+                buckets[bucket].reset();
+            }
+            count.reset();
+            total.reset();
+        }
+    }
+}
@@ -19,6 +19,16 @@ public class Plant extends SimObject {
         alive = true;
     }
 
+    /**
+     * Checks whether the plant is alive, a dead plant regrows its energy before it can be eaten again
+     *
+     * @return true if the plant is alive
+     */
+    @Override
+    public boolean isAlive() {
+        return alive;
+    }
+
     public StatusObject step () {
         if (energy <= 0){
             alive = false;
@@ -0,0 +1,141 @@
+package ModelPackage;
+
+import java.util.Arrays;
+
+/**
+ * Binary min-heap of grid element numbers, ordered by a long priority. Every element number can be in the heap only
+ * once; pushing it again with a lower priority moves it up instead. Only primitive arrays are used, so pushing and
+ * popping never allocates.
+ */
+class PointHeap {
+
+    private int[] heap;
+    private long[] priorities;
+    private int[] positions;
+    private int size;
+
+    /**
+     * Creates a heap able to hold every element number of a grid
+     *
+     * @param pointCount number of points in the grid
+     */
+    PointHeap(int pointCount) {
+        heap = new int[pointCount];
+        priorities = new long[pointCount];
+        positions = new int[pointCount];
+        Arrays.fill(positions, -1);
+        size = 0;
+    }
+
+    /**
+     * Gets whether the heap has no points left
+     *
+     * @return true if the heap is empty
+     */
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Gets the number of points in the heap
+     *
+     * @return int containing the number of points
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Adds a point to the heap, or lowers its priority if it is already in the heap with a higher one
+     *
+     * @param point    element number of the point
+     * @param priority priority of the point, lower priorities are popped first
+     */
+    void push(int point, long priority) {
+        int position = positions[point];
+        if (position == -1) {
+            position = size++;
+            heap[position] = point;
+            positions[point] = position;
+        } else if (priority >= priorities[point]) {
+            return;
+        }
+        priorities[point] = priority;
+        moveUp(position);
+    }
+
+    /**
+     * Removes the point with the lowest priority from the heap
+     *
+     * @return element number of the removed point
+     */
+    int pop() {
+        int top = heap[0];
+        positions[top] = -1;
+        size--;
+        if (size > 0) {
+            int last = heap[size];
+            heap[0] = last;
+            positions[last] = 0;
+            moveDown(0);
+        }
+        return top;
+    }
+
+    /**
+     * Gets the priority of the point that will be popped next
+     *
+     * @return priority of the first point
+     */
+    long peekPriority() {
+        return priorities[heap[0]];
+    }
+
+    /**
+     * Removes all points so the heap can be reused for the next search
+     */
+    void clear() {
+        for (int i = 0; i < size; i++) {
+            positions[heap[i]] = -1;
+        }
+        size = 0;
+    }
+
+    private void moveUp(int position) {
+        int point = heap[position];
+        long priority = priorities[point];
+        while (position > 0) {
+            int parentPosition = (position - 1) >> 1;
+            int parent = heap[parentPosition];
+            if (priorities[parent] <= priority) {
+                break;
+            }
+            heap[position] = parent;
+            positions[parent] = position;
+            position = parentPosition;
+        }
+        heap[position] = point;
+        positions[point] = position;
+    }
+
+    private void moveDown(int position) {
+        int point = heap[position];
+        long priority = priorities[point];
+        int half = size >> 1;
+        while (position < half) {
+            int child = (position << 1) + 1;
+            int right = child + 1;
+            if ((right < size) && (priorities[heap[right]] < priorities[heap[child]])) {
+                child = right;
+            }
+            if (priorities[heap[child]] >= priority) {
+                break;
+            }
+            heap[position] = heap[child];
+            positions[heap[child]] = position;
+            position = child;
+        }
+        heap[position] = point;
+        positions[point] = position;
+    }
+}
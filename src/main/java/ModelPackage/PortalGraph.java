@@ -0,0 +1,186 @@
+package ModelPackage;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+
+/**
+ * Graph of portals for routes from one living area to another. A portal is a point on the shore of a living area,
+ * a ground point next to the water; of every square of PORTAL_SPACING points along a shore one is taken. Portals of
+ * the same area are linked by their distance over the area, and portals of different areas by their distance
+ * through the water, both only up to LINK_RADIUS steps. A route between two areas is then searched on the portals
+ * alone and only the points near its ends and along the chosen links have to be searched on the grid.
+ * <p>
+ * The portals of area n are numbered from getFirstPortal(n) up to (but not including) getFirstPortal(n + 1), and
+ * the links of portal p are found in getLinkedPortals() and getLinkCosts() from getLinkOffsets()[p] up to
+ * getLinkOffsets()[p + 1]. Built once per PlannerGraph and never changed afterwards.
+ */
+final class PortalGraph {
+
+    //distance between portals along a shore
+    static final int PORTAL_SPACING = 8;
+
+    //longest link between two portals, and furthest a route may go from its ends to the first portal
+    static final int LINK_RADIUS = 32;
+
+    private final int[] portalPoints;
+    private final int[] areaPortalOffsets;
+    private final int[] linkOffsets;
+    private final int[] linkedPortals;
+    private final int[] linkCosts;
+
+    /**
+     * Chooses the portals of a graph and links them
+     *
+     * @param graph the graph
+     */
+    PortalGraph(PlannerGraph graph) {
+        int gridWidth = graph.getGridWidth();
+        int gridHeight = graph.getGridHeight();
+        int pointCount = graph.getPointCount();
+        int[] adjacencyOffsets = graph.getAdjacencyOffsets();
+        int[] adjacentPoints = graph.getAdjacentPoints();
+        int[] pointAreas = graph.getPointAreas();
+        int[] areaOffsets = graph.getAreaOffsets();
+        int[] areaPoints = graph.getAreaPoints();
+        int areaCount = areaOffsets.length - 1;
+
+        //one portal per area in every square of the grid that holds shore points
+        int[] pointPortals = new int[pointCount];
+        Arrays.fill(pointPortals, -1);
+        ArrayList<Integer> portals = new ArrayList<>();
+        areaPortalOffsets = new int[areaCount + 1];
+        long squaresY = (gridHeight + PORTAL_SPACING - 1) / PORTAL_SPACING;
+        for (int area = 1; area < areaCount; area++) {
+            areaPortalOffsets[area] = portals.size();
+            HashSet<Long> usedSquares = new HashSet<>();
+            for (int i = areaOffsets[area]; i < areaOffsets[area + 1]; i++) {
+                int point = areaPoints[i];
+                long square = (((point % gridWidth) / PORTAL_SPACING) * squaresY) + ((point / gridWidth) / PORTAL_SPACING);
+                if (isShore(point, adjacencyOffsets, adjacentPoints, pointAreas) && usedSquares.add(square)) {
+                    pointPortals[point] = portals.size();
+                    portals.add(point);
+                }
+            }
+        }
+        areaPortalOffsets[areaCount] = portals.size();
+        portalPoints = new int[portals.size()];
+        for (int portal = 0; portal < portalPoints.length; portal++) {
+            portalPoints[portal] = portals.get(portal);
+        }
+
+        //links over the own area and through the water, found by breadth first searches around every portal
+        int[] queue = new int[pointCount];
+        int[] distances = new int[pointCount];
+        int[] visited = new int[pointCount];
+        int[] linkedGeneration = new int[portalPoints.length];
+        int[] bestCosts = new int[portalPoints.length];
+        int generation = 0;
+        linkOffsets = new int[portalPoints.length + 1];
+        ArrayList<int[]> links = new ArrayList<>();
+        for (int portal = 0; portal < portalPoints.length; portal++) {
+            int start = portalPoints[portal];
+            int area = pointAreas[start];
+            ArrayList<Integer> linked = new ArrayList<>();
+            for (int allowedArea : new int[]{area, 0}) {
+                generation++;
+                int queueHead = 0;
+                int queueTail = 0;
+                visited[start] = generation;
+                distances[start] = 0;
+                queue[queueTail++] = start;
+                while (queueHead < queueTail) {
+                    int currentPoint = queue[queueHead++];
+                    for (int i = adjacencyOffsets[currentPoint]; i < adjacencyOffsets[currentPoint + 1]; i++) {
+                        int adjacentPoint = adjacentPoints[i];
+                        int cost = distances[currentPoint] + 1;
+                        int adjacentPortal = pointPortals[adjacentPoint];
+                        //a portal of another area is reached from the water next to it
+                        if ((adjacentPortal != -1) && (adjacentPortal != portal) &&
+                                ((allowedArea == area) == (pointAreas[adjacentPoint] == area))) {
+                            if (linkedGeneration[adjacentPortal] != portal + 1) {
+                                linkedGeneration[adjacentPortal] = portal + 1;
+                                bestCosts[adjacentPortal] = cost;
+                                linked.add(adjacentPortal);
+                            } else {
+                                bestCosts[adjacentPortal] = Math.min(bestCosts[adjacentPortal], cost);
+                            }
+                        }
+                        if ((visited[adjacentPoint] == generation) || (pointAreas[adjacentPoint] != allowedArea) || (cost >= LINK_RADIUS)) {
+                            continue;
+                        }
+                        visited[adjacentPoint] = generation;
+                        distances[adjacentPoint] = cost;
+                        queue[queueTail++] = adjacentPoint;
+                    }
+                }
+            }
+            for (int linkedPortal : linked) {
+                links.add(new int[]{linkedPortal, bestCosts[linkedPortal]});
+            }
+            linkOffsets[portal + 1] = links.size();
+        }
+        linkedPortals = new int[links.size()];
+        linkCosts = new int[links.size()];
+        for (int i = 0; i < links.size(); i++) {
+            linkedPortals[i] = links.get(i)[0];
+            linkCosts[i] = links.get(i)[1];
+        }
+    }
+
+    /**
+     * Gets the number of portals
+     */
+    int getPortalCount() {
+        return portalPoints.length;
+    }
+
+    /**
+     * Gets the number of the first portal of an area; the portals of an area are numbered consecutively
+     *
+     * @param area living area, or the area count for the end of the last area
+     */
+    int getFirstPortal(int area) {
+        return areaPortalOffsets[area];
+    }
+
+    /**
+     * Gets the element number of a portal
+     */
+    int getPortalPoint(int portal) {
+        return portalPoints[portal];
+    }
+
+    /**
+     * Gets the offset of the first link of every portal in getLinkedPortals() and getLinkCosts()
+     */
+    int[] getLinkOffsets() {
+        return linkOffsets;
+    }
+
+    /**
+     * Gets the portals at the other end of the links of all portals, ordered by portal
+     */
+    int[] getLinkedPortals() {
+        return linkedPortals;
+    }
+
+    /**
+     * Gets the number of steps of the links of all portals, ordered by portal
+     */
+    int[] getLinkCosts() {
+        return linkCosts;
+    }
+
+    /**
+     * Checks whether a point of a living area borders the water
+     */
+    private static boolean isShore(int point, int[] adjacencyOffsets, int[] adjacentPoints, int[] pointAreas) {
+        for (int i = adjacencyOffsets[point]; i < adjacencyOffsets[point + 1]; i++) {
+            if (pointAreas[adjacentPoints[i]] == 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
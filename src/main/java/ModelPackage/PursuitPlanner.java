@@ -0,0 +1,220 @@
+package ModelPackage;
+
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keeps the path of one pursuer towards a moving target up to date. Instead of planning again every time the target
+ * moves, a small search from the new position of the target looks for the existing path and the path is cut and
+ * extended from the point where it is found. A full search is only done when that search does not find the path
+ * quickly, when the pursuer left its path, or when the repaired path has grown a detour that is too long.
+ * <p>
+ * Every pursuer needs its own PursuitPlanner; the search itself uses the search context of the calling thread.
+ */
+public class PursuitPlanner {
+
+    //points a repair search may expand before a full search is done instead
+    private static final int REPAIR_EXPANSION_LIMIT = 64;
+
+    //steps a repaired path may be longer than the estimate, on top of what the last full search needed
+    private static final int REPAIR_DETOUR_LIMIT = 4;
+
+    private MovementPlanner planner;
+    private PlannerGraph graph;
+    private boolean useIslandOnlyNavigation;
+
+    //element numbers of the path, the point of the pursuer first
+    private int[] pathPoints;
+    private int pathLength;
+    private int plannedDetour;
+
+    private int lastExpansionCount;
+    private int repairCount;
+    private int replanCount;
+
+    /**
+     * Creates a pursuit without a path
+     *
+     * @param planner initialized planner to search with
+     */
+    public PursuitPlanner(MovementPlanner planner) {
+        this.planner = planner;
+        pathPoints = new int[16];
+    }
+
+    /**
+     * Uses a path found elsewhere as the current path, so the first update does not need a full search
+     *
+     * @param pathFound               path as returned by MovementPlanner, target first
+     * @param useIslandOnlyNavigation navigation mode the path was found with
+     */
+    public void setPath(List<Point> pathFound, boolean useIslandOnlyNavigation) {
+        graph = planner.getGraph();
+        this.useIslandOnlyNavigation = useIslandOnlyNavigation;
+        storePath(pathFound);
+    }
+
+    /**
+     * Gets the path from the pursuer to the target, repairing the current path when the target has moved
+     *
+     * @param pursuerPoint            current point of the pursuer
+     * @param targetPoint             current point of the target
+     * @param useIslandOnlyNavigation navigation mode, see MovementPlanner.findPath
+     * @return ArrayList of points, target first, or null if the target can not be reached or is reached already
+     */
+    public ArrayList<Point> update(Point pursuerPoint, Point targetPoint, boolean useIslandOnlyNavigation) {
+        lastExpansionCount = 0;
+        if (pursuerPoint.equals(targetPoint)) {
+            pathLength = 0;
+            return null;
+        }
+        if ((graph != planner.getGraph()) || (this.useIslandOnlyNavigation != useIslandOnlyNavigation)) {
+            return replan(pursuerPoint, targetPoint, useIslandOnlyNavigation);
+        }
+
+        int gridWidth = graph.getGridWidth();
+        int pursuer = (pursuerPoint.y * gridWidth) + pursuerPoint.x;
+        int target = (targetPoint.y * gridWidth) + targetPoint.x;
+
+        //drop the part of the path the pursuer has walked already
+        int pursuerPosition = -1;
+        for (int i = 0; i < pathLength; i++) {
+            if (pathPoints[i] == pursuer) {
+                pursuerPosition = i;
+                break;
+            }
+        }
+        if (pursuerPosition == -1) {
+            return replan(pursuerPoint, targetPoint, useIslandOnlyNavigation);
+        }
+        pathLength -= pursuerPosition;
+        System.arraycopy(pathPoints, pursuerPosition, pathPoints, 0, pathLength);
+
+        if (pathPoints[pathLength - 1] != target) {
+            int allowedArea = -1;
+            int[] pointAreas = graph.getPointAreas();
+            if (useIslandOnlyNavigation && (pointAreas[pursuer] > 0)) {
+                allowedArea = pointAreas[pursuer];
+                if (pointAreas[target] != allowedArea) {
+                    return replan(pursuerPoint, targetPoint, useIslandOnlyNavigation);
+                }
+            }
+            SearchContext context = planner.getSearchContext();
+            int reached = context.searchToPath(target, pathPoints, pathLength, allowedArea, REPAIR_EXPANSION_LIMIT);
+            lastExpansionCount = context.getLastExpansionCount();
+            if (reached == -1) {
+                return replan(pursuerPoint, targetPoint, useIslandOnlyNavigation);
+            }
+
+            //keep the path up to the point reached, then follow the search back to the target
+            int position = 0;
+            while (pathPoints[position] != reached) {
+                position++;
+            }
+            pathLength = position + 1;
+            for (int point = context.getParentPoint(reached); point != -1; point = context.getParentPoint(point)) {
+                addPathPoint(point);
+            }
+            repairCount++;
+
+            if ((pathLength - 1) - getStepEstimate(pursuer, target) > plannedDetour + REPAIR_DETOUR_LIMIT) {
+                return replan(pursuerPoint, targetPoint, useIslandOnlyNavigation);
+            }
+        }
+        return getPath();
+    }
+
+    /**
+     * Gets the number of points expanded by the last update
+     *
+     * @return int containing the number of expanded points
+     */
+    public int getLastExpansionCount() {
+        return lastExpansionCount;
+    }
+
+    /**
+     * Gets the number of times the path was repaired after the target moved
+     *
+     * @return int containing the repair count
+     */
+    public int getRepairCount() {
+        return repairCount;
+    }
+
+    /**
+     * Gets the number of full searches done
+     *
+     * @return int containing the full search count
+     */
+    public int getReplanCount() {
+        return replanCount;
+    }
+
+    /**
+     * Searches the whole path again
+     */
+    private ArrayList<Point> replan(Point pursuerPoint, Point targetPoint, boolean useIslandOnlyNavigation) {
+        graph = planner.getGraph();
+        this.useIslandOnlyNavigation = useIslandOnlyNavigation;
+        replanCount++;
+        ArrayList<Point> pathFound;
+        try {
+            pathFound = planner.findPath(pursuerPoint, targetPoint, useIslandOnlyNavigation);
+        } catch (Exception e) {
+            pathFound = null;
+        }
+        lastExpansionCount += planner.getLastExpansionCount();
+        storePath(pathFound);
+        return (pathFound == null) ? null : getPath();
+    }
+
+    /**
+     * Stores a path given target first as element numbers starting at the pursuer
+     */
+    private void storePath(List<Point> pathFound) {
+        pathLength = 0;
+        plannedDetour = 0;
+        if (pathFound == null) {
+            return;
+        }
+        int gridWidth = graph.getGridWidth();
+        for (int i = pathFound.size() - 1; i >= 0; i--) {
+            addPathPoint((pathFound.get(i).y * gridWidth) + pathFound.get(i).x);
+        }
+        plannedDetour = Math.max(0, (pathLength - 1) - getStepEstimate(pathPoints[0], pathPoints[pathLength - 1]));
+    }
+
+    private void addPathPoint(int point) {
+        if (pathLength == pathPoints.length) {
+            int[] grown = new int[pathPoints.length * 2];
+            System.arraycopy(pathPoints, 0, grown, 0, pathLength);
+            pathPoints = grown;
+        }
+        pathPoints[pathLength++] = point;
+    }
+
+    /**
+     * Gets the current path in the order MovementPlanner returns paths, target first
+     */
+    private ArrayList<Point> getPath() {
+        int gridWidth = graph.getGridWidth();
+        ArrayList<Point> path = new ArrayList<>(pathLength);
+        for (int i = pathLength - 1; i >= 0; i--) {
+            path.add(new Point(pathPoints[i] % gridWidth, pathPoints[i] / gridWidth));
+        }
+        return path;
+    }
+
+    /**
+     * Gets the least number of steps between two points, ignoring obstacles. The grid wraps around at its edges.
+     */
+    private int getStepEstimate(int from, int to) {
+        int gridWidth = graph.getGridWidth();
+        int gridHeight = graph.getGridHeight();
+        int dx = Math.abs((from % gridWidth) - (to % gridWidth));
+        int dy = Math.abs((from / gridWidth) - (to / gridWidth));
+        return Math.max(Math.min(dx, gridWidth - dx), Math.min(dy, gridHeight - dy));
+    }
+}
@@ -0,0 +1,59 @@
+package ModelPackage;
+
+/**
+ * Limits the work a single path query may do, so no query can search the whole grid. A query stops once it has
+ * expanded the maximum number of points, and never looks at points further from the startpoint than the maximum
+ * radius.
+ */
+public class SearchBudget {
+
+    private final int maxExpansions;
+    private final int maxRadius;
+    private final boolean returnPartialPath;
+
+    /**
+     * Creates a budget
+     *
+     * @param maxExpansions     maximum number of points a query may expand, 0 for no limit
+     * @param maxRadius         maximum number of steps from the startpoint a query may look, 0 for no limit
+     * @param returnPartialPath true to return the path to the point closest to the target when the budget runs out
+     */
+    public SearchBudget(int maxExpansions, int maxRadius, boolean returnPartialPath) {
+        if (maxExpansions < 0) {
+            throw new IllegalArgumentException("MaxExpansions can not be negative");
+        }
+        if (maxRadius < 0) {
+            throw new IllegalArgumentException("MaxRadius can not be negative");
+        }
+        this.maxExpansions = maxExpansions;
+        this.maxRadius = maxRadius;
+        this.returnPartialPath = returnPartialPath;
+    }
+
+    /**
+     * Gets the maximum number of points a query may expand
+     *
+     * @return int containing the limit, 0 for no limit
+     */
+    public int getMaxExpansions() {
+        return maxExpansions;
+    }
+
+    /**
+     * Gets the maximum number of steps from the startpoint a query may look
+     *
+     * @return int containing the limit, 0 for no limit
+     */
+    public int getMaxRadius() {
+        return maxRadius;
+    }
+
+    /**
+     * Checks whether a query returns a partial path when the budget runs out
+     *
+     * @return true to return a partial path, false to return no path
+     */
+    public boolean getReturnPartialPath() {
+        return returnPartialPath;
+    }
+}
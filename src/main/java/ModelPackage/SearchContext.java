@@ -0,0 +1,1496 @@
+package ModelPackage;
+
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/**
+ * Search state for path queries on one PlannerGraph, together with the search algorithms that use it. A context is
+ * used by one thread at a time; MovementPlanner keeps one per thread, so queries from different threads can run at
+ * the same time on the same graph.
+ */
+class SearchContext {
+
+    //every step costs the same, diagonal or not
+    private static final int STRAIGHT_STEP_COST = 1;
+    private static final int DIAGONAL_STEP_COST = 1;
+
+    //jump point search needs diagonal steps to be longer than straight ones
+    //hierarchical paths up to this many steps apart are searched again with A* when they came out much longer than
+    //a straight line, at this distance A* is cheap and the detours through the cluster entrances weigh the most
+    private static final int HIERARCHICAL_CHECK_DISTANCE = 4 * HierarchicalPlanner.CLUSTER_SIZE;
+
+    private static final int JUMP_STRAIGHT_COST = 10;
+    private static final int JUMP_DIAGONAL_COST = 14;
+    private static final int[] JUMP_X = {1, 1, 0, -1, -1, -1, 0, 1};
+    private static final int[] JUMP_Y = {0, 1, 1, 1, 0, -1, -1, -1};
+
+    //searches that have no layers record a trace frame every this many expanded points
+    private static final int TRACE_EXPANSION_INTERVAL = 32;
+
+    private final PlannerGraph graph;
+    private final int gridWidth;
+    private final int gridHeight;
+    private final int[] adjacencyOffsets;
+    private final int[] adjacentPoints;
+    private final int[] pointAreas;
+    private final LandmarkTable landmarks;
+    private final JumpPointLines jumpLines;
+
+    //search state, allocated once per graph so pathfinding itself does not allocate
+    private int[] searchQueue;
+    private int[] deferredQueue;
+    private int[] parentPoints;
+    private int[] pointDistances;
+    private int[] visitedGeneration;
+    private int[] closedGeneration;
+    private int searchGeneration;
+    private PointHeap openHeap;
+    private BucketQueue bucketQueue;
+    private byte[] jumpDirections;
+    private int lastExpansionCount;
+    private int lastScanCount;
+
+    //own copy of the hierarchical planner, sharing the abstract graph of the planner graph
+    private HierarchicalPlanner hierarchicalPlanner;
+
+    //state of routes between living areas over the portal graph, allocated on the first such query
+    private PortalGraph portalGraph;
+    private int[] portalDistances;
+    private int[] portalParents;
+    private int[] portalGeneration;
+    private int[] portalEndDistances;
+
+    //step costs of the current weighted query
+    private MovementCostProfile costProfile;
+
+    //trace of the current query, null when it is not traced
+    private PathTraceRecorder.QueryTrace trace;
+
+    //limits of the current query, 0 for no limit, see SearchBudget
+    private int expansionLimit;
+    private int radiusLimit;
+    private boolean budgetExhausted;
+
+    //expanded point closest to the target of the current budgeted query, for partial paths
+    private int closestPoint;
+    private int closestHeuristic;
+
+    //points marked as targets in the current generation, for searches with more than one target
+    private int[] targetGeneration;
+
+    //state of the current batch search: the queries waiting for each target, and whether the search runs from the
+    //targets of the queries towards their startpoints
+    private HashMap<Integer, ArrayList<Integer>> batchTargets;
+    private List<ArrayList<Point>> batchResults;
+    private boolean batchReversed;
+    private int batchPending;
+
+    /**
+     * Creates the search state for a graph
+     *
+     * @param graph graph to search on
+     */
+    SearchContext(PlannerGraph graph) {
+        this.graph = graph;
+        gridWidth = graph.getGridWidth();
+        gridHeight = graph.getGridHeight();
+        adjacencyOffsets = graph.getAdjacencyOffsets();
+        adjacentPoints = graph.getAdjacentPoints();
+        pointAreas = graph.getPointAreas();
+        landmarks = graph.getLandmarks();
+        jumpLines = graph.getJumpLines();
+
+        int pointCount = graph.getPointCount();
+        searchQueue = new int[pointCount];
+        deferredQueue = new int[pointCount];
+        parentPoints = new int[pointCount];
+        pointDistances = new int[pointCount];
+        visitedGeneration = new int[pointCount];
+        closedGeneration = new int[pointCount];
+        searchGeneration = 0;
+        openHeap = new PointHeap(pointCount);
+        jumpDirections = new byte[pointCount];
+    }
+
+    /**
+     * Gets the graph this context searches on
+     *
+     * @return the graph
+     */
+    PlannerGraph getGraph() {
+        return graph;
+    }
+
+    /**
+     * Generate a path towards the endpoint. Searches over the element numbers of the plannable grid.
+     * When island only navigation is requested and the startpoint lies on a living area, that area is searched
+     * completely first. Only when the target is not found there the search continues from the points bordering it.
+     * Breadth first and A* return a path of the same length, jump point search the shortest path when diagonal steps
+     * count as longer. Hierarchical search returns a path that is close to, but not always, the shortest. The
+     * weighted search returns the path with the lowest total step cost of the cost profile.
+     * <p>
+     * With a budget, jump point search is replaced by A*, since its jumps scan points without expanding them. The
+     * hierarchical search uses A* for short paths, paths limited by a radius, and when its abstract graph fails;
+     * the budget only stops those searches.
+     *
+     * @param startPoint    First point of the path
+     * @param targetPoint   Last point of the path
+     * @param mode          search algorithm to use for this path
+     * @param traceRecorder recorder that may trace this query, null if none
+     * @param budget        limits for this query, null for no limits
+     * @param costProfile   step costs for the weighted search, null for uniform costs; other modes ignore it
+     * @param usePortals    true to route between two living areas over the portal graph, see findPortalPath
+     * @return the path and how the search ended. The path is null if no path was found or the startpoint was the
+     * endpoint
+     */
+    PathResult findPath(Point startPoint, Point targetPoint, boolean useIslandOnlyNavigation, PathfindingMode mode, PathTraceRecorder traceRecorder, SearchBudget budget, MovementCostProfile costProfile, boolean usePortals) {
+        if ((startPoint.getX() == targetPoint.getX()) && (startPoint.getY() == targetPoint.getY())) {
+            return new PathResult(null, PathOutcome.Found, 0);
+        }
+
+        int start = getPointNumber(startPoint);
+        int target = getPointNumber(targetPoint);
+
+        //only use a primary search area if the startpoint is not in the water
+        int primaryArea = -1;
+        if (useIslandOnlyNavigation && (pointAreas[start] > 0)) {
+            primaryArea = pointAreas[start];
+        }
+
+        startSearchGeneration();
+        lastExpansionCount = 0;
+        lastScanCount = 0;
+        startBudget(budget, start, target);
+        if ((budget != null) && ((mode == PathfindingMode.JumpPoint) || ((mode == PathfindingMode.Hierarchical) && (radiusLimit > 0)))) {
+            mode = PathfindingMode.AStar;
+        }
+        trace = (traceRecorder != null) ? traceRecorder.beginQuery(startPoint, targetPoint, mode, graph) : null;
+
+        //routes between living areas go over the portals, unless the query has a radius, is traced or is weighted;
+        //the points expanded for the portal route count against the budget of the search that follows it
+        if (usePortals && (radiusLimit == 0) && (trace == null) && (mode != PathfindingMode.Weighted) &&
+                (pointAreas[start] > 0) && (pointAreas[target] > 0) && (pointAreas[start] != pointAreas[target])) {
+            ArrayList<Point> pathFound = findPortalPath(start, target);
+            if (pathFound != null) {
+                return new PathResult(pathFound, PathOutcome.Found, lastExpansionCount);
+            }
+            //no portal route, the search below looks at the grid itself
+            startSearchGeneration();
+        }
+
+        boolean found;
+        switch (mode) {
+            case AStar:
+                found = searchAStar(start, target, primaryArea);
+                break;
+            case JumpPoint:
+                found = searchJumpPoint(start, target, primaryArea);
+                break;
+            case Hierarchical:
+                found = searchHierarchical(start, target, primaryArea);
+                break;
+            case Weighted:
+                this.costProfile = (costProfile == null) ? MovementCostProfile.UNIFORM : costProfile;
+                found = searchWeighted(start, target, primaryArea);
+                break;
+            default:
+                found = searchBreadthFirst(start, target, primaryArea);
+                break;
+        }
+        if (!found) {
+            PathResult result;
+            if (!budgetExhausted) {
+                result = new PathResult(null, PathOutcome.Unreachable, lastExpansionCount);
+            } else if (budget.getReturnPartialPath() && (closestPoint != start)) {
+                result = new PathResult(getPathFound(closestPoint), PathOutcome.Partial, lastExpansionCount);
+            } else {
+                result = new PathResult(null, PathOutcome.BudgetExceeded, lastExpansionCount);
+            }
+            if (trace != null) {
+                trace.end(result.getPath());
+                trace = null;
+            }
+            expansionLimit = 0;
+            radiusLimit = 0;
+            return result;
+        }
+        expansionLimit = 0;
+        radiusLimit = 0;
+
+        ArrayList<Point> pathFound = getPathFound(target);
+        if (trace != null) {
+            trace.end(pathFound);
+            trace = null;
+        }
+        return new PathResult(pathFound, PathOutcome.Found, lastExpansionCount);
+    }
+
+    /**
+     * Sets the limits for the next query
+     *
+     * @param budget limits for the query, null for no limits
+     * @param start  element number of the startpoint
+     * @param target element number of the target
+     */
+    private void startBudget(SearchBudget budget, int start, int target) {
+        expansionLimit = (budget == null) ? 0 : budget.getMaxExpansions();
+        radiusLimit = (budget == null) ? 0 : budget.getMaxRadius();
+        budgetExhausted = false;
+        closestPoint = start;
+        closestHeuristic = getHeuristic(start, target % gridWidth, target / gridWidth, STRAIGHT_STEP_COST, DIAGONAL_STEP_COST);
+    }
+
+    /**
+     * Checks whether the current query may expand another point, marking the budget as exhausted when not
+     *
+     * @return true if the point may be expanded
+     */
+    private boolean isWithinExpansionLimit() {
+        if ((expansionLimit > 0) && (lastExpansionCount >= expansionLimit)) {
+            budgetExhausted = true;
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Checks whether the current query may look at a point this far from the startpoint, marking the budget as
+     * exhausted when not
+     *
+     * @param distance steps from the startpoint
+     * @return true if the point is within the radius
+     */
+    private boolean isWithinRadius(int distance) {
+        if ((radiusLimit > 0) && (distance > radiusLimit)) {
+            budgetExhausted = true;
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Remembers an expanded point when it is the closest to the target so far, as end of a partial path
+     *
+     * @param point  element number of the point
+     * @param target element number of the target
+     */
+    private void updateClosestPoint(int point, int target) {
+        int heuristic = getHeuristic(point, target % gridWidth, target / gridWidth, STRAIGHT_STEP_COST, DIAGONAL_STEP_COST);
+        if (heuristic < closestHeuristic) {
+            closestHeuristic = heuristic;
+            closestPoint = point;
+        }
+    }
+
+    /**
+     * Generate the paths for a batch of queries. Queries sharing a startpoint and navigation mode are answered by a
+     * single breadth first search that runs until all their targets are reached. The remaining queries without
+     * island only navigation that share a target are answered by a single search from that target, which is
+     * possible because every step can be taken in both directions. Each path is the one a breadth first findPath
+     * would return for the same query.
+     *
+     * @param queries the queries
+     * @return the paths in the order of the queries, null for queries without a path or with the startpoint as target
+     */
+    List<ArrayList<Point>> findPaths(List<PathQuery> queries) {
+        allocateTargetGeneration();
+        batchResults = new ArrayList<>(Collections.nCopies(queries.size(), (ArrayList<Point>) null));
+
+        //group by startpoint and navigation mode, keeping the order of the queries
+        LinkedHashMap<Long, ArrayList<Integer>> startGroups = new LinkedHashMap<>();
+        for (int i = 0; i < queries.size(); i++) {
+            PathQuery query = queries.get(i);
+            if (query.getStartPoint().equals(query.getTargetPoint())) {
+                continue;
+            }
+            long key = ((long) getPointNumber(query.getStartPoint()) << 1) | (query.getUseIslandOnlyNavigation() ? 1 : 0);
+            startGroups.computeIfAbsent(key, k -> new ArrayList<>()).add(i);
+        }
+
+        //queries alone at their startpoint can still share a target
+        LinkedHashMap<Integer, ArrayList<Integer>> targetGroups = new LinkedHashMap<>();
+        for (ArrayList<Integer> group : startGroups.values()) {
+            PathQuery query = queries.get(group.get(0));
+            if ((group.size() == 1) && !query.getUseIslandOnlyNavigation()) {
+                targetGroups.computeIfAbsent(getPointNumber(query.getTargetPoint()), k -> new ArrayList<>()).add(group.get(0));
+            }
+        }
+        int expansions = 0;
+        for (ArrayList<Integer> group : targetGroups.values()) {
+            if (group.size() > 1) {
+                searchBatch(queries, group, true);
+                expansions += lastExpansionCount;
+            }
+        }
+        for (ArrayList<Integer> group : startGroups.values()) {
+            PathQuery query = queries.get(group.get(0));
+            if ((group.size() > 1) || query.getUseIslandOnlyNavigation() || (targetGroups.get(getPointNumber(query.getTargetPoint())).size() == 1)) {
+                searchBatch(queries, group, false);
+                expansions += lastExpansionCount;
+            }
+        }
+        lastExpansionCount = expansions;
+
+        List<ArrayList<Point>> results = batchResults;
+        batchResults = null;
+        batchTargets = null;
+        return results;
+    }
+
+    /**
+     * Answers a group of queries sharing a startpoint, or with reversed set, sharing a target
+     *
+     * @param queries  all queries of the batch
+     * @param group    positions of the queries in this group
+     * @param reversed true to search from the shared target towards the startpoints
+     */
+    private void searchBatch(List<PathQuery> queries, List<Integer> group, boolean reversed) {
+        startSearchGeneration();
+        lastExpansionCount = 0;
+        lastScanCount = 0;
+        batchReversed = reversed;
+        batchTargets = new HashMap<>();
+        for (int i : group) {
+            PathQuery query = queries.get(i);
+            int point = getPointNumber(reversed ? query.getStartPoint() : query.getTargetPoint());
+            batchTargets.computeIfAbsent(point, k -> new ArrayList<>()).add(i);
+            targetGeneration[point] = searchGeneration;
+        }
+        batchPending = batchTargets.size();
+
+        PathQuery first = queries.get(group.get(0));
+        int root = getPointNumber(reversed ? first.getTargetPoint() : first.getStartPoint());
+        int primaryArea = -1;
+        if (!reversed && first.getUseIslandOnlyNavigation() && (pointAreas[root] > 0)) {
+            primaryArea = pointAreas[root];
+        }
+        searchBreadthFirst(root, -1, primaryArea);
+    }
+
+    /**
+     * Stores the path to a batch target the moment the search reaches it
+     *
+     * @param point element number of the point reached
+     * @return true if every target of the batch is reached
+     */
+    private boolean reachBatchTarget(int point) {
+        targetGeneration[point] = 0;
+        ArrayList<Point> pathFound;
+        if (batchReversed) {
+            //the tree is rooted at the target, so the parents lead from the startpoint to the target
+            pathFound = new ArrayList<>();
+            for (int parentPoint = point; parentPoint != -1; parentPoint = parentPoints[parentPoint]) {
+                pathFound.add(new Point(parentPoint % gridWidth, parentPoint / gridWidth));
+            }
+            Collections.reverse(pathFound);
+        } else {
+            pathFound = getPathFound(point);
+        }
+        for (int query : batchTargets.get(point)) {
+            batchResults.set(query, new ArrayList<>(pathFound));
+        }
+        batchPending--;
+        return batchPending == 0;
+    }
+
+    /**
+     * Breadth first search from a point until it reaches any point of an existing path, used to repair a path after
+     * its target moved. The parent points lead from the point reached back to the startpoint.
+     *
+     * @param start         element number of the startpoint
+     * @param pathPoints    element numbers of the path
+     * @param pathLength    number of points of the path to use
+     * @param allowedArea   area the search has to stay in, -1 to search everywhere
+     * @param maxExpansions number of points to expand before giving up
+     * @return element number of the path point reached, -1 if none was reached in time
+     */
+    int searchToPath(int start, int[] pathPoints, int pathLength, int allowedArea, int maxExpansions) {
+        allocateTargetGeneration();
+        startSearchGeneration();
+        lastExpansionCount = 0;
+        lastScanCount = 0;
+        for (int i = 0; i < pathLength; i++) {
+            targetGeneration[pathPoints[i]] = searchGeneration;
+        }
+        parentPoints[start] = -1;
+        if (targetGeneration[start] == searchGeneration) {
+            return start;
+        }
+
+        int queueHead = 0;
+        int queueTail = 0;
+        visitedGeneration[start] = searchGeneration;
+        searchQueue[queueTail++] = start;
+        while ((queueHead < queueTail) && (lastExpansionCount < maxExpansions)) {
+            int currentPoint = searchQueue[queueHead++];
+            lastExpansionCount++;
+            for (int i = adjacencyOffsets[currentPoint]; i < adjacencyOffsets[currentPoint + 1]; i++) {
+                int adjacentPoint = adjacentPoints[i];
+                if ((visitedGeneration[adjacentPoint] == searchGeneration) ||
+                        ((allowedArea != -1) && (pointAreas[adjacentPoint] != allowedArea))) {
+                    continue;
+                }
+                visitedGeneration[adjacentPoint] = searchGeneration;
+                parentPoints[adjacentPoint] = currentPoint;
+                if (targetGeneration[adjacentPoint] == searchGeneration) {
+                    return adjacentPoint;
+                }
+                searchQueue[queueTail++] = adjacentPoint;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Gets the point a point was reached from in the last search
+     *
+     * @param point element number of the point
+     * @return element number of the parent, -1 for the startpoint
+     */
+    int getParentPoint(int point) {
+        return parentPoints[point];
+    }
+
+    /**
+     * Allocates the target marks on first use, most contexts never need them
+     */
+    private void allocateTargetGeneration() {
+        if (targetGeneration == null) {
+            targetGeneration = new int[graph.getPointCount()];
+        }
+    }
+
+    /**
+     * Generate a path towards the nearest point accepted by the filter. The search runs breadth first from the
+     * startpoint and stops at the first accepted point it reaches, so its cost depends on the distance to that point
+     * and not on the size of the grid. With island only navigation from a living area the search stays inside that
+     * area; from the water only points in the water are accepted.
+     *
+     * @param startPoint  First point of the path, never accepted as target itself
+     * @param filter      decides which points are targets
+     * @param maxDistance   maximum number of steps to the target, 0 for no limit
+     * @param maxExpansions maximum number of points to expand, 0 for no limit
+     * @param costProfile   step costs to find the cheapest target with instead, null to find the nearest one
+     * @return ArrayList of points, in the right order that lead to the target. Returns null if no target was found
+     */
+    ArrayList<Point> findNearestTarget(Point startPoint, ITargetFilter filter, boolean useIslandOnlyNavigation, int maxDistance, int maxExpansions, MovementCostProfile costProfile) {
+        int start = getPointNumber(startPoint);
+        int targetArea = useIslandOnlyNavigation ? pointAreas[start] : -1;
+
+        startSearchGeneration();
+        lastExpansionCount = 0;
+        lastScanCount = 0;
+        budgetExhausted = false;
+        if (costProfile != null) {
+            this.costProfile = costProfile;
+            return findCheapestTarget(start, filter, targetArea, maxDistance, maxExpansions);
+        }
+
+        int queueHead = 0;
+        int queueTail = 0;
+        visitedGeneration[start] = searchGeneration;
+        parentPoints[start] = -1;
+        pointDistances[start] = 0;
+        searchQueue[queueTail++] = start;
+
+        int target = -1;
+        while ((target == -1) && (queueHead < queueTail)) {
+            int currentPoint = searchQueue[queueHead++];
+            if ((maxDistance > 0) && (pointDistances[currentPoint] >= maxDistance)) {
+                //the queue is ordered by distance, so every point left is too far as well
+                break;
+            }
+            if ((maxExpansions > 0) && (lastExpansionCount >= maxExpansions)) {
+                budgetExhausted = true;
+                break;
+            }
+            lastExpansionCount++;
+
+            for (int i = adjacencyOffsets[currentPoint]; i < adjacencyOffsets[currentPoint + 1]; i++) {
+                int adjacentPoint = adjacentPoints[i];
+                if (visitedGeneration[adjacentPoint] == searchGeneration) {
+                    continue;
+                }
+                if ((targetArea > 0) && (pointAreas[adjacentPoint] != targetArea)) {
+                    continue;
+                }
+                visitedGeneration[adjacentPoint] = searchGeneration;
+                parentPoints[adjacentPoint] = currentPoint;
+                pointDistances[adjacentPoint] = pointDistances[currentPoint] + 1;
+
+                if (((targetArea == -1) || (pointAreas[adjacentPoint] == targetArea)) &&
+                        filter.isTarget(adjacentPoint % gridWidth, adjacentPoint / gridWidth)) {
+                    target = adjacentPoint;
+                    break;
+                }
+                searchQueue[queueTail++] = adjacentPoint;
+            }
+        }
+        if (target == -1) {
+            return null;
+        }
+
+        ArrayList<Point> pathFound = getPathFound(target);
+        return pathFound;
+    }
+
+    /**
+     * Generate a path towards the point accepted by the filter that is cheapest to reach with the current cost
+     * profile, see findNearestTarget. The maximum distance limits the steps along both axes instead of the steps of
+     * the path, since the weighted search does not count steps.
+     */
+    private ArrayList<Point> findCheapestTarget(int start, ITargetFilter filter, int targetArea, int maxDistance, int maxExpansions) {
+        ITargetFilter acceptedFilter = filter;
+        if (targetArea != -1) {
+            acceptedFilter = (x, y) -> (pointAreas[(y * gridWidth) + x] == targetArea) && filter.isTarget(x, y);
+        }
+        expansionLimit = maxExpansions;
+        radiusLimit = maxDistance;
+        int target = searchWeightedInArea(start, -1, (targetArea > 0) ? targetArea : -1, acceptedFilter);
+        expansionLimit = 0;
+        radiusLimit = 0;
+        if (target == -1) {
+            return null;
+        }
+
+        ArrayList<Point> pathFound = getPathFound(target);
+        return pathFound;
+    }
+
+    /**
+     * Generate a path from one living area to another over the portal graph. Breadth first searches around the
+     * startpoint and the target find the portals near them, an A* search over the portal links chooses the
+     * route between those portals, and A* searches that stay on the area or in the water of each link fill in the
+     * points. The path is close to, but not always, the shortest.
+     *
+     * @param start  element number of the startpoint, on a living area
+     * @param target element number of the target, on another living area
+     * @return ArrayList of points, target first, or null if the portals do not connect the two points
+     */
+    private ArrayList<Point> findPortalPath(int start, int target) {
+        if (portalGraph != graph.getPortalGraph()) {
+            portalGraph = graph.getPortalGraph();
+            int portalCount = portalGraph.getPortalCount();
+            portalDistances = new int[portalCount];
+            portalParents = new int[portalCount];
+            portalGeneration = new int[portalCount];
+            portalEndDistances = new int[portalCount];
+        }
+        int startArea = pointAreas[start];
+        int targetArea = pointAreas[target];
+
+        //distances from both ends to the portals of their area
+        fillPortalEndDistances(start, startArea);
+        fillPortalEndDistances(target, targetArea);
+
+        //A* over the portals; a link is never shorter than the steps along the axes between its ends
+        int targetX = target % gridWidth;
+        int targetY = target / gridWidth;
+        startSearchGeneration();
+        openHeap.clear();
+        for (int portal = portalGraph.getFirstPortal(startArea); portal < portalGraph.getFirstPortal(startArea + 1); portal++) {
+            if (portalEndDistances[portal] != -1) {
+                portalGeneration[portal] = searchGeneration;
+                portalDistances[portal] = portalEndDistances[portal];
+                portalParents[portal] = -1;
+                openHeap.push(portal, getPortalPriority(portal, targetX, targetY));
+            }
+        }
+        int[] linkOffsets = portalGraph.getLinkOffsets();
+        int[] linkedPortals = portalGraph.getLinkedPortals();
+        int[] linkCosts = portalGraph.getLinkCosts();
+        int lastPortal = -1;
+        long lastCost = Long.MAX_VALUE;
+        while (!openHeap.isEmpty() && ((openHeap.peekPriority() >>> 32) < lastCost)) {
+            int portal = openHeap.pop();
+            lastExpansionCount++;
+            if ((pointAreas[portalGraph.getPortalPoint(portal)] == targetArea) && (portalEndDistances[portal] != -1) &&
+                    (portalDistances[portal] + portalEndDistances[portal] < lastCost)) {
+                lastPortal = portal;
+                lastCost = portalDistances[portal] + portalEndDistances[portal];
+            }
+            for (int i = linkOffsets[portal]; i < linkOffsets[portal + 1]; i++) {
+                int linkedPortal = linkedPortals[i];
+                int distance = portalDistances[portal] + linkCosts[i];
+                if ((portalGeneration[linkedPortal] != searchGeneration) || (distance < portalDistances[linkedPortal])) {
+                    portalGeneration[linkedPortal] = searchGeneration;
+                    portalDistances[linkedPortal] = distance;
+                    portalParents[linkedPortal] = portal;
+                    openHeap.push(linkedPortal, getPortalPriority(linkedPortal, targetX, targetY));
+                }
+            }
+        }
+        openHeap.clear();
+        if (lastPortal == -1) {
+            return null;
+        }
+
+        //the points of the route from the target back to the startpoint, one leg at a time
+        ArrayList<Integer> waypoints = new ArrayList<>();
+        waypoints.add(target);
+        for (int portal = lastPortal; portal != -1; portal = portalParents[portal]) {
+            waypoints.add(portalGraph.getPortalPoint(portal));
+        }
+        waypoints.add(start);
+        ArrayList<Point> pathFound = new ArrayList<>();
+        pathFound.add(new Point(target % gridWidth, target / gridWidth));
+        for (int i = 1; i < waypoints.size(); i++) {
+            int legStart = waypoints.get(i);
+            int legEnd = waypoints.get(i - 1);
+            if (legStart == legEnd) {
+                continue;
+            }
+            //a leg between two areas crosses the water, any other leg stays on its area
+            int allowedArea = (pointAreas[legStart] == pointAreas[legEnd]) ? pointAreas[legStart] : 0;
+            if (!searchLeg(legStart, legEnd, allowedArea)) {
+                return null;
+            }
+            for (int point = parentPoints[legEnd]; point != -1; point = parentPoints[point]) {
+                pathFound.add(new Point(point % gridWidth, point / gridWidth));
+            }
+        }
+        return pathFound;
+    }
+
+    /**
+     * Gets the heap priority of a portal for the A* search over the portals
+     */
+    private long getPortalPriority(int portal, int targetX, int targetY) {
+        int heuristic = getHeuristic(portalGraph.getPortalPoint(portal), targetX, targetY, STRAIGHT_STEP_COST, DIAGONAL_STEP_COST);
+        return getAStarPriority(portalDistances[portal], heuristic);
+    }
+
+    /**
+     * Stores the distance from a point to every portal of its area, -1 for portals further than the link radius
+     */
+    private void fillPortalEndDistances(int point, int area) {
+        startSearchGeneration();
+        int queueHead = 0;
+        int queueTail = 0;
+        visitedGeneration[point] = searchGeneration;
+        pointDistances[point] = 0;
+        searchQueue[queueTail++] = point;
+        while (queueHead < queueTail) {
+            int currentPoint = searchQueue[queueHead++];
+            lastExpansionCount++;
+            if (pointDistances[currentPoint] == PortalGraph.LINK_RADIUS) {
+                continue;
+            }
+            for (int i = adjacencyOffsets[currentPoint]; i < adjacencyOffsets[currentPoint + 1]; i++) {
+                int adjacentPoint = adjacentPoints[i];
+                if ((visitedGeneration[adjacentPoint] != searchGeneration) && (pointAreas[adjacentPoint] == area)) {
+                    visitedGeneration[adjacentPoint] = searchGeneration;
+                    pointDistances[adjacentPoint] = pointDistances[currentPoint] + 1;
+                    searchQueue[queueTail++] = adjacentPoint;
+                }
+            }
+        }
+        for (int portal = portalGraph.getFirstPortal(area); portal < portalGraph.getFirstPortal(area + 1); portal++) {
+            int portalPoint = portalGraph.getPortalPoint(portal);
+            portalEndDistances[portal] = (visitedGeneration[portalPoint] == searchGeneration) ? pointDistances[portalPoint] : -1;
+        }
+    }
+
+    /**
+     * A* search for one leg of a portal route, filling the parent points. Only the points of one area and the end
+     * of the leg can be entered.
+     *
+     * @param start       element number of the first point of the leg
+     * @param target      element number of the last point of the leg
+     * @param allowedArea area the leg stays on
+     * @return true if the end of the leg was reached, false otherwise
+     */
+    private boolean searchLeg(int start, int target, int allowedArea) {
+        int targetX = target % gridWidth;
+        int targetY = target / gridWidth;
+        startSearchGeneration();
+        openHeap.clear();
+        visitedGeneration[start] = searchGeneration;
+        parentPoints[start] = -1;
+        pointDistances[start] = 0;
+        openHeap.push(start, getAStarPriority(0, getHeuristic(start, targetX, targetY, STRAIGHT_STEP_COST, DIAGONAL_STEP_COST)));
+        while (!openHeap.isEmpty()) {
+            int currentPoint = openHeap.pop();
+            if (currentPoint == target) {
+                openHeap.clear();
+                return true;
+            }
+            closedGeneration[currentPoint] = searchGeneration;
+            lastExpansionCount++;
+            int adjacentDistance = pointDistances[currentPoint] + 1;
+            for (int i = adjacencyOffsets[currentPoint]; i < adjacencyOffsets[currentPoint + 1]; i++) {
+                int adjacentPoint = adjacentPoints[i];
+                if ((closedGeneration[adjacentPoint] == searchGeneration) ||
+                        ((pointAreas[adjacentPoint] != allowedArea) && (adjacentPoint != target))) {
+                    continue;
+                }
+                if ((visitedGeneration[adjacentPoint] == searchGeneration) && (pointDistances[adjacentPoint] <= adjacentDistance)) {
+                    continue;
+                }
+                visitedGeneration[adjacentPoint] = searchGeneration;
+                parentPoints[adjacentPoint] = currentPoint;
+                pointDistances[adjacentPoint] = adjacentDistance;
+                openHeap.push(adjacentPoint, getAStarPriority(adjacentDistance, getHeuristic(adjacentPoint, targetX, targetY, STRAIGHT_STEP_COST, DIAGONAL_STEP_COST)));
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Starts a new search generation, which invalidates all points visited by previous searches without clearing
+     * the arrays
+     */
+    private void startSearchGeneration() {
+        searchGeneration++;
+        if (searchGeneration == Integer.MAX_VALUE) {
+            Arrays.fill(visitedGeneration, 0);
+            Arrays.fill(closedGeneration, 0);
+            if (targetGeneration != null) {
+                Arrays.fill(targetGeneration, 0);
+            }
+            if (portalGeneration != null) {
+                Arrays.fill(portalGeneration, 0);
+            }
+            searchGeneration = 1;
+        }
+    }
+
+    /**
+     * Hands the current state of the search to the trace recorder
+     */
+    private void recordTraceFrame() {
+        trace.recordFrame(visitedGeneration, closedGeneration, searchGeneration, parentPoints);
+    }
+
+    /**
+     * Breadth first search from the startpoint, filling the parent points until the target is reached.
+     * With target -1 the search answers a batch instead, see findPaths.
+     *
+     * @param start       element number of the startpoint
+     * @param target      element number of the target, -1 to stop once every batch target is reached
+     * @param primaryArea area to search completely before any other point, -1 to search everywhere at once
+     * @return true if the target was reached, false otherwise
+     */
+    private boolean searchBreadthFirst(int start, int target, int primaryArea) {
+        //every point is queued at most once, so neither queue has to wrap around
+        int queueHead = 0;
+        int queueTail = 0;
+        int deferredHead = 0;
+        int deferredTail = 0;
+
+        visitedGeneration[start] = searchGeneration;
+        parentPoints[start] = -1;
+        pointDistances[start] = 0;
+        searchQueue[queueTail++] = start;
+
+        int distanceCounter = 0;
+        //trace frame for start situation
+        if (trace != null) {
+            recordTraceFrame();
+        }
+
+        while (true) {
+            int currentPoint;
+            boolean deferredAvailable = (primaryArea == -1) && (deferredHead < deferredTail);
+            if ((queueHead < queueTail) && (!deferredAvailable || (pointDistances[searchQueue[queueHead]] <= pointDistances[deferredQueue[deferredHead]]))) {
+                currentPoint = searchQueue[queueHead++];
+            } else if (deferredAvailable) {
+                //both queues are ordered by distance, merging them keeps the search breadth first
+                currentPoint = deferredQueue[deferredHead++];
+            } else if ((primaryArea != -1) && (deferredTail > 0)) {
+                //no new points in primary area, start getting points from secondary area
+                primaryArea = -1;
+                continue;
+            } else {
+                return false;
+            }
+            if (closedGeneration[currentPoint] == searchGeneration) {
+                //a deferred point that was reached sooner from outside the primary area
+                continue;
+            }
+            if (!isWithinExpansionLimit()) {
+                return false;
+            }
+            closedGeneration[currentPoint] = searchGeneration;
+            lastExpansionCount++;
+            if ((expansionLimit > 0) || (radiusLimit > 0)) {
+                updateClosestPoint(currentPoint, target);
+            }
+
+            if ((trace != null) && (pointDistances[currentPoint] > distanceCounter)) {
+                distanceCounter = pointDistances[currentPoint];
+                recordTraceFrame();
+            }
+
+            for (int i = adjacencyOffsets[currentPoint]; i < adjacencyOffsets[currentPoint + 1]; i++) {
+                int adjacentPoint = adjacentPoints[i];
+                if (visitedGeneration[adjacentPoint] == searchGeneration) {
+                    //deferred points only got a distance through the primary area, which may be shortened by now
+                    if ((primaryArea != -1) || (closedGeneration[adjacentPoint] == searchGeneration) ||
+                            (pointDistances[adjacentPoint] <= pointDistances[currentPoint] + 1)) {
+                        continue;
+                    }
+                }
+                if (!isWithinRadius(pointDistances[currentPoint] + 1)) {
+                    continue;
+                }
+                visitedGeneration[adjacentPoint] = searchGeneration;
+                parentPoints[adjacentPoint] = currentPoint;
+                pointDistances[adjacentPoint] = pointDistances[currentPoint] + 1;
+
+                if (adjacentPoint == target) {
+                    return true;
+                }
+                if ((target == -1) && (targetGeneration[adjacentPoint] == searchGeneration) && reachBatchTarget(adjacentPoint)) {
+                    return true;
+                }
+
+                if ((primaryArea == -1) || (pointAreas[adjacentPoint] == primaryArea)) {
+                    searchQueue[queueTail++] = adjacentPoint;
+                } else {
+                    deferredQueue[deferredTail++] = adjacentPoint;
+                }
+            }
+        }
+    }
+
+    /**
+     * A* search from the startpoint, filling the parent points until the target is reached. Points outside the
+     * primary area are kept aside with their best distance so far and only added to the open set once the primary
+     * area is exhausted, which keeps the result equal in length to the breadth first search.
+     *
+     * @param start       element number of the startpoint
+     * @param target      element number of the target
+     * @param primaryArea area to search completely before any other point, -1 to search everywhere at once
+     * @return true if the target was reached, false otherwise
+     */
+    private boolean searchAStar(int start, int target, int primaryArea) {
+        int targetX = target % gridWidth;
+        int targetY = target / gridWidth;
+        int deferredTail = 0;
+
+        openHeap.clear();
+        visitedGeneration[start] = searchGeneration;
+        parentPoints[start] = -1;
+        pointDistances[start] = 0;
+        openHeap.push(start, getAStarPriority(0, getAStarHeuristic(start, target, targetX, targetY)));
+
+        while (true) {
+            //like the breadth first search, a target bordering the primary area is taken as soon as no point in the
+            //primary area can still shorten the way to it
+            if ((primaryArea != -1) && (visitedGeneration[target] == searchGeneration) &&
+                    (openHeap.isEmpty() || ((openHeap.peekPriority() >>> 32) >= pointDistances[target]))) {
+                return true;
+            }
+            if (openHeap.isEmpty()) {
+                if ((primaryArea == -1) || (deferredTail == 0)) {
+                    return false;
+                }
+                //no new points in primary area, start getting points from secondary area
+                primaryArea = -1;
+                for (int i = 0; i < deferredTail; i++) {
+                    int deferredPoint = deferredQueue[i];
+                    openHeap.push(deferredPoint, getAStarPriority(pointDistances[deferredPoint], getAStarHeuristic(deferredPoint, target, targetX, targetY)));
+                }
+                continue;
+            }
+
+            int currentPoint = openHeap.pop();
+            if (currentPoint == target) {
+                return true;
+            }
+            if (!isWithinExpansionLimit()) {
+                return false;
+            }
+            closedGeneration[currentPoint] = searchGeneration;
+            lastExpansionCount++;
+            if ((expansionLimit > 0) || (radiusLimit > 0)) {
+                updateClosestPoint(currentPoint, target);
+            }
+            if ((trace != null) && (lastExpansionCount % TRACE_EXPANSION_INTERVAL == 0)) {
+                recordTraceFrame();
+            }
+
+            int adjacentDistance = pointDistances[currentPoint] + 1;
+            if (!isWithinRadius(adjacentDistance)) {
+                continue;
+            }
+            for (int i = adjacencyOffsets[currentPoint]; i < adjacencyOffsets[currentPoint + 1]; i++) {
+                int adjacentPoint = adjacentPoints[i];
+                if (closedGeneration[adjacentPoint] == searchGeneration) {
+                    continue;
+                }
+                boolean seen = visitedGeneration[adjacentPoint] == searchGeneration;
+                if (seen && (pointDistances[adjacentPoint] <= adjacentDistance)) {
+                    continue;
+                }
+                visitedGeneration[adjacentPoint] = searchGeneration;
+                parentPoints[adjacentPoint] = currentPoint;
+                pointDistances[adjacentPoint] = adjacentDistance;
+
+                if ((primaryArea == -1) || (pointAreas[adjacentPoint] == primaryArea)) {
+                    openHeap.push(adjacentPoint, getAStarPriority(adjacentDistance, getAStarHeuristic(adjacentPoint, target, targetX, targetY)));
+                } else if (!seen) {
+                    deferredQueue[deferredTail++] = adjacentPoint;
+                }
+            }
+        }
+    }
+
+    /**
+     * Dijkstra search from the startpoint over the step costs of the current cost profile, filling the parent points
+     * until the target is reached. The costs are small whole numbers, so a bucket queue replaces the heap.
+     * When island only navigation is requested and the target lies in the primary area, the primary area is tried
+     * first, then the whole grid.
+     *
+     * @param start       element number of the startpoint
+     * @param target      element number of the target
+     * @param primaryArea area to search before the rest of the grid, -1 to search everywhere at once
+     * @return true if the target was reached, false otherwise
+     */
+    private boolean searchWeighted(int start, int target, int primaryArea) {
+        if ((primaryArea != -1) && (pointAreas[target] == primaryArea)) {
+            if (searchWeightedInArea(start, target, primaryArea, null) != -1) {
+                return true;
+            }
+            if (budgetExhausted) {
+                return false;
+            }
+            startSearchGeneration();
+        }
+        return searchWeightedInArea(start, target, -1, null) != -1;
+    }
+
+    /**
+     * Runs a single weighted search in which only the points of one area can be entered. Points are settled in the
+     * order of their cost, so the first target settled is the cheapest to reach.
+     *
+     * @param start       element number of the startpoint
+     * @param target      element number of the target, -1 to stop at the first point accepted by the filter
+     * @param allowedArea only points of this area can be entered, -1 for all points except obstacles
+     * @param filter      decides which points are targets when target is -1, never accepting the startpoint
+     * @return element number of the target reached, -1 if none was reached
+     */
+    private int searchWeightedInArea(int start, int target, int allowedArea, ITargetFilter filter) {
+        int startX = start % gridWidth;
+        int startY = start / gridWidth;
+        if (bucketQueue == null) {
+            bucketQueue = new BucketQueue(graph.getPointCount(), costProfile.getMaxStepCost());
+        } else {
+            bucketQueue.clear();
+            bucketQueue.setMaxStepCost(costProfile.getMaxStepCost());
+        }
+
+        visitedGeneration[start] = searchGeneration;
+        parentPoints[start] = -1;
+        pointDistances[start] = 0;
+        bucketQueue.push(start, 0);
+
+        while (!bucketQueue.isEmpty()) {
+            int currentPoint = bucketQueue.pop();
+            if ((currentPoint == target) || ((target == -1) && (currentPoint != start) &&
+                    filter.isTarget(currentPoint % gridWidth, currentPoint / gridWidth))) {
+                return currentPoint;
+            }
+            if (!isWithinExpansionLimit()) {
+                return -1;
+            }
+            closedGeneration[currentPoint] = searchGeneration;
+            lastExpansionCount++;
+            if ((target != -1) && ((expansionLimit > 0) || (radiusLimit > 0))) {
+                updateClosestPoint(currentPoint, target);
+            }
+            if ((trace != null) && (lastExpansionCount % TRACE_EXPANSION_INTERVAL == 0)) {
+                recordTraceFrame();
+            }
+
+            //a step is charged for the point it leaves, like Creature.MovementCost does
+            int adjacentDistance = pointDistances[currentPoint] + costProfile.getStepCost(pointAreas[currentPoint]);
+            for (int i = adjacencyOffsets[currentPoint]; i < adjacencyOffsets[currentPoint + 1]; i++) {
+                int adjacentPoint = adjacentPoints[i];
+                if (closedGeneration[adjacentPoint] == searchGeneration) {
+                    continue;
+                }
+                if ((allowedArea != -1) && (pointAreas[adjacentPoint] != allowedArea)) {
+                    continue;
+                }
+                if ((visitedGeneration[adjacentPoint] == searchGeneration) && (pointDistances[adjacentPoint] <= adjacentDistance)) {
+                    continue;
+                }
+                //the weighted search does not count steps, the radius limits the steps along both axes instead
+                if (!isWithinRadius(getHeuristic(adjacentPoint, startX, startY, STRAIGHT_STEP_COST, DIAGONAL_STEP_COST))) {
+                    continue;
+                }
+                visitedGeneration[adjacentPoint] = searchGeneration;
+                parentPoints[adjacentPoint] = currentPoint;
+                pointDistances[adjacentPoint] = adjacentDistance;
+                bucketQueue.push(adjacentPoint, adjacentDistance);
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Jump point search from the startpoint. Instead of adding every adjacent point to the open set, straight and
+     * diagonal lines are followed until a point is found where the shortest paths may turn: a point next to an
+     * obstacle, the target itself, or a diagonal point from which a straight line reaches such a point. Only those
+     * jump points are added to the open set, which on open water or ground skips most of the grid.
+     * Diagonal steps cost 14 and straight steps 10 here, since the pruning relies on diagonal steps being longer.
+     * Around obstacles the path found can therefore contain more steps than the breadth first path.
+     * When island only navigation is requested the primary area is tried first, then the whole grid.
+     *
+     * @param start       element number of the startpoint
+     * @param target      element number of the target
+     * @param primaryArea area to search before the rest of the grid, -1 to search everywhere at once
+     * @return true if the target was reached, false otherwise
+     */
+    private boolean searchJumpPoint(int start, int target, int primaryArea) {
+        if (searchJumpPointInArea(start, target, primaryArea)) {
+            return true;
+        }
+        if (primaryArea == -1) {
+            return false;
+        }
+        startSearchGeneration();
+        return searchJumpPointInArea(start, target, -1);
+    }
+
+    /**
+     * Runs a single jump point search in which only the points of one area can be entered
+     *
+     * @param start       element number of the startpoint
+     * @param target      element number of the target
+     * @param allowedArea only points of this area can be entered, -1 for all points except obstacles
+     * @return true if the target was reached, false otherwise
+     */
+    private boolean searchJumpPointInArea(int start, int target, int allowedArea) {
+        int targetX = target % gridWidth;
+        int targetY = target / gridWidth;
+
+        openHeap.clear();
+        visitedGeneration[start] = searchGeneration;
+        parentPoints[start] = -1;
+        pointDistances[start] = 0;
+        jumpDirections[start] = -1;
+        openHeap.push(start, getAStarPriority(0, getHeuristic(start, targetX, targetY, JUMP_STRAIGHT_COST, JUMP_DIAGONAL_COST)));
+
+        while (!openHeap.isEmpty()) {
+            int currentPoint = openHeap.pop();
+            if (currentPoint == target) {
+                fillJumpedPoints(target);
+                return true;
+            }
+            closedGeneration[currentPoint] = searchGeneration;
+            lastExpansionCount++;
+            if ((trace != null) && (lastExpansionCount % TRACE_EXPANSION_INTERVAL == 0)) {
+                recordTraceFrame();
+            }
+
+            int x = currentPoint % gridWidth;
+            int y = currentPoint / gridWidth;
+            int direction = jumpDirections[currentPoint];
+            for (int successor = 0; successor < 8; successor++) {
+                if ((direction != -1) && !isJumpSuccessor(x, y, direction, successor, allowedArea)) {
+                    continue;
+                }
+                int jumpPoint = jump(x, y, JUMP_X[successor], JUMP_Y[successor], target, allowedArea);
+                if ((jumpPoint == -1) || (closedGeneration[jumpPoint] == searchGeneration)) {
+                    continue;
+                }
+                int distance = pointDistances[currentPoint] + getHeuristic(jumpPoint, x, y, JUMP_STRAIGHT_COST, JUMP_DIAGONAL_COST);
+                if ((visitedGeneration[jumpPoint] == searchGeneration) && (pointDistances[jumpPoint] <= distance)) {
+                    continue;
+                }
+                visitedGeneration[jumpPoint] = searchGeneration;
+                parentPoints[jumpPoint] = currentPoint;
+                pointDistances[jumpPoint] = distance;
+                jumpDirections[jumpPoint] = (byte) successor;
+                openHeap.push(jumpPoint, getAStarPriority(distance, getHeuristic(jumpPoint, targetX, targetY, JUMP_STRAIGHT_COST, JUMP_DIAGONAL_COST)));
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks whether a direction has to be searched from a jump point that was reached in a certain direction.
+     * These are the natural neighbours (the same direction and, for diagonals, both straight parts of it) and the
+     * forced neighbours that only exist because a blocked point cuts off the shorter way around.
+     *
+     * @param x           X coordinate of the jump point
+     * @param y           Y coordinate of the jump point
+     * @param direction   direction the jump point was reached in
+     * @param successor   direction to check
+     * @param allowedArea only points of this area can be entered, -1 for all points except obstacles
+     * @return true if the direction has to be searched
+     */
+    private boolean isJumpSuccessor(int x, int y, int direction, int successor, int allowedArea) {
+        int dx = JUMP_X[direction];
+        int dy = JUMP_Y[direction];
+        int sx = JUMP_X[successor];
+        int sy = JUMP_Y[successor];
+        if (dx == 0) {
+            //vertical: straight on, or diagonally past a blocked side
+            return ((sx == 0) && (sy == dy)) ||
+                    ((sy == dy) && !isWalkable(x + sx, y, allowedArea) && isWalkable(x + sx, y + dy, allowedArea));
+        }
+        if (dy == 0) {
+            //horizontal: straight on, or diagonally past a blocked side
+            return ((sy == 0) && (sx == dx)) ||
+                    ((sx == dx) && !isWalkable(x, y + sy, allowedArea) && isWalkable(x + dx, y + sy, allowedArea));
+        }
+        //diagonal: both straight parts, the diagonal itself, or turning around a blocked point behind
+        if (((sx == dx) && (sy == dy)) || ((sx == dx) && (sy == 0)) || ((sx == 0) && (sy == dy))) {
+            return true;
+        }
+        if ((sx == -dx) && (sy == dy)) {
+            return !isWalkable(x - dx, y, allowedArea) && isWalkable(x - dx, y + dy, allowedArea);
+        }
+        if ((sx == dx) && (sy == -dy)) {
+            return !isWalkable(x, y - dy, allowedArea) && isWalkable(x + dx, y - dy, allowedArea);
+        }
+        return false;
+    }
+
+    /**
+     * Follows a line from a point until a jump point is found. Because the grid wraps around, a line would never
+     * end on an open grid; after half the grid the point reached is returned as a jump point instead, so the search
+     * can go on from there.
+     *
+     * @param x           X coordinate to jump from
+     * @param y           Y coordinate to jump from
+     * @param dx          step along the X axis (-1, 0 or 1)
+     * @param dy          step along the Y axis (-1, 0 or 1)
+     * @param target      element number of the target
+     * @param allowedArea only points of this area can be entered, -1 for all points except obstacles
+     * @return element number of the jump point, -1 if the line runs into a blocked point first
+     */
+    private int jump(int x, int y, int dx, int dy, int target, int allowedArea) {
+        if ((dx == 0) || (dy == 0)) {
+            return jumpStraight(x, y, dx, dy, target, allowedArea, true);
+        }
+
+        int maxSteps = Math.max(1, Math.min(gridWidth, gridHeight) / 2);
+        for (int step = 1; step <= maxSteps; step++) {
+            x = wrap(x + dx, gridWidth);
+            y = wrap(y + dy, gridHeight);
+            lastScanCount++;
+            if (!isWalkable(x, y, allowedArea)) {
+                return -1;
+            }
+            int point = getPointNumber(x, y);
+            if (point == target) {
+                return point;
+            }
+            if ((!isWalkable(x - dx, y, allowedArea) && isWalkable(x - dx, y + dy, allowedArea)) ||
+                    (!isWalkable(x, y - dy, allowedArea) && isWalkable(x + dx, y - dy, allowedArea))) {
+                return point;
+            }
+            //a diagonal point is a jump point when one of its straight parts reaches one
+            if ((jumpStraight(x, y, dx, 0, target, allowedArea, false) != -1) ||
+                    (jumpStraight(x, y, 0, dy, target, allowedArea, false) != -1)) {
+                return point;
+            }
+        }
+        return getPointNumber(x, y);
+    }
+
+    /**
+     * Follows a horizontal or vertical line from a point until a jump point is found. Only the points marked in the
+     * JumpPointLines of the graph and the target can stop a line, so the points in between are skipped.
+     * <p>
+     * The lines followed from every point of a diagonal only look for a reason to stop the diagonal, and reaching
+     * half the grid is none; a diagonal would otherwise stop after every step on an open grid.
+     *
+     * @param x           X coordinate to jump from
+     * @param y           Y coordinate to jump from
+     * @param dx          step along the X axis (-1, 0 or 1)
+     * @param dy          step along the Y axis (-1, 0 or 1), 0 when dx is not
+     * @param target      element number of the target
+     * @param allowedArea only points of this area can be entered, -1 for all points except obstacles
+     * @param endIsJump   true to return the point after half the grid as a jump point, false to return -1 there
+     * @return element number of the jump point, -1 if the line runs into a blocked point first
+     */
+    private int jumpStraight(int x, int y, int dx, int dy, int target, int allowedArea, boolean endIsJump) {
+        int size = (dy == 0) ? gridWidth : gridHeight;
+        int maxSteps = Math.max(1, size / 2);
+        int markSet = (allowedArea == -1) ? JumpPointLines.ALL_POINTS : JumpPointLines.GROUND;
+
+        //steps to the target if it lies on the line
+        int targetStep = -1;
+        int targetX = target % gridWidth;
+        int targetY = target / gridWidth;
+        if ((dy == 0) && (targetY == y)) {
+            targetStep = Math.floorMod((targetX - x) * dx, size);
+        } else if ((dx == 0) && (targetX == x)) {
+            targetStep = Math.floorMod((targetY - y) * dy, size);
+        }
+        if ((targetStep == 0) || (targetStep > maxSteps)) {
+            targetStep = -1;
+        }
+
+        int startX = x;
+        int startY = y;
+        int step = 0;
+        while (true) {
+            int markedStep = jumpLines.findMarkedStep(markSet, x, y, dx, dy, maxSteps - step);
+            if ((targetStep != -1) && ((markedStep == -1) || (step + markedStep > targetStep))) {
+                lastScanCount++;
+                return target;
+            }
+            if (markedStep == -1) {
+                return endIsJump ? getPointNumber(Math.floorMod(startX + (maxSteps * dx), gridWidth),
+                        Math.floorMod(startY + (maxSteps * dy), gridHeight)) : -1;
+            }
+            step += markedStep;
+            x = Math.floorMod(x + (markedStep * dx), gridWidth);
+            y = Math.floorMod(y + (markedStep * dy), gridHeight);
+            lastScanCount++;
+            if (!isWalkable(x, y, allowedArea)) {
+                return -1;
+            }
+            int point = getPointNumber(x, y);
+            if (point == target) {
+                return point;
+            }
+            if (dy == 0) {
+                if ((!isWalkable(x, y + 1, allowedArea) && isWalkable(x + dx, y + 1, allowedArea)) ||
+                        (!isWalkable(x, y - 1, allowedArea) && isWalkable(x + dx, y - 1, allowedArea))) {
+                    return point;
+                }
+            } else {
+                if ((!isWalkable(x + 1, y, allowedArea) && isWalkable(x + 1, y + dy, allowedArea)) ||
+                        (!isWalkable(x - 1, y, allowedArea) && isWalkable(x - 1, y + dy, allowedArea))) {
+                    return point;
+                }
+            }
+        }
+    }
+
+    /**
+     * Replaces the parent of every jump point on the path found by the point right before it, so the path can be
+     * read back point by point like the other searches.
+     *
+     * @param target element number of the target
+     */
+    private void fillJumpedPoints(int target) {
+        int jumpPoint = target;
+        while (parentPoints[jumpPoint] != -1) {
+            int parent = parentPoints[jumpPoint];
+            int dx = JUMP_X[jumpDirections[jumpPoint]];
+            int dy = JUMP_Y[jumpDirections[jumpPoint]];
+            int point = jumpPoint;
+            while (point != parent) {
+                int previous = getPointNumber(wrap((point % gridWidth) - dx, gridWidth), wrap((point / gridWidth) - dy, gridHeight));
+                parentPoints[point] = previous;
+                point = previous;
+            }
+            jumpPoint = parent;
+        }
+    }
+
+    /**
+     * Checks whether a point can be entered. Coordinates outside the grid wrap around to the other side.
+     *
+     * @param x           X coordinate, may be one step outside the grid
+     * @param y           Y coordinate, may be one step outside the grid
+     * @param allowedArea only points of this area can be entered, -1 for all points except obstacles
+     * @return true if the point can be entered
+     */
+    private boolean isWalkable(int x, int y, int allowedArea) {
+        int area = pointAreas[getPointNumber(wrap(x, gridWidth), wrap(y, gridHeight))];
+        if (allowedArea == -1) {
+            return area != -1;
+        }
+        return area == allowedArea;
+    }
+
+    /**
+     * Wraps a coordinate that is at most one grid size outside the grid around to the other side
+     *
+     * @param coordinate coordinate to wrap
+     * @param size       width or height of the grid
+     * @return coordinate inside the grid
+     */
+    private static int wrap(int coordinate, int size) {
+        if (coordinate < 0) {
+            return coordinate + size;
+        }
+        if (coordinate >= size) {
+            return coordinate - size;
+        }
+        return coordinate;
+    }
+
+    /**
+     * Hierarchical search from the startpoint. Paths longer than a cluster are found on the abstract graph of
+     * cluster entrances and then refined; shorter ones, and the rare ones the abstract graph misses, use A*. A
+     * refined path up to HIERARCHICAL_CHECK_DISTANCE steps long that takes more than a quarter more steps than a
+     * straight line is searched again with A*, which bounds the detours of short paths; longer paths stay within a
+     * few percent of the shortest on average, but a single one can still be a fifth longer or more.
+     * Island only navigation uses the graph of the living area when the target is in the same living area, since
+     * the path then never has to leave it. Otherwise the target can only be reached through the water anyway.
+     *
+     * @param start       element number of the startpoint
+     * @param target      element number of the target
+     * @param primaryArea area to search completely before any other point, -1 to search everywhere at once
+     * @return true if the target was reached, false otherwise
+     */
+    private boolean searchHierarchical(int start, int target, int primaryArea) {
+        if (pointAreas[target] == -1) {
+            //obstacles can not be entered, no need to search the grid to find out
+            return false;
+        }
+        if (getHeuristic(start, target % gridWidth, target / gridWidth, STRAIGHT_STEP_COST, DIAGONAL_STEP_COST) <= HierarchicalPlanner.CLUSTER_SIZE) {
+            return searchAStar(start, target, primaryArea);
+        }
+
+        if (hierarchicalPlanner == null) {
+            hierarchicalPlanner = new HierarchicalPlanner(graph.getHierarchicalPlanner());
+        }
+        boolean landOnly = (primaryArea != -1) && (pointAreas[target] == primaryArea);
+        int[] path = hierarchicalPlanner.findPath(start, target, landOnly);
+        lastExpansionCount += hierarchicalPlanner.getLastExpansionCount();
+        if (path == null) {
+            return searchAStar(start, target, primaryArea);
+        }
+        int estimate = getHeuristic(start, target % gridWidth, target / gridWidth, STRAIGHT_STEP_COST, DIAGONAL_STEP_COST);
+        if ((estimate <= HIERARCHICAL_CHECK_DISTANCE) && ((path.length - 1) * 4 > estimate * 5)) {
+            if (searchAStar(start, target, primaryArea)) {
+                return true;
+            }
+            //out of budget, the refined path will do
+            budgetExhausted = false;
+        }
+
+        parentPoints[start] = -1;
+        for (int i = 1; i < path.length; i++) {
+            parentPoints[path[i]] = path[i - 1];
+        }
+        pointDistances[target] = path.length - 1;
+        return true;
+    }
+
+    /**
+     * Estimates the number of steps between a point and the target with the octile distance. Since the grid wraps
+     * around, the distance along each axis is the shorter of going directly or across the edge. The estimate never
+     * exceeds the real number of steps, so A* still finds the shortest path.
+     *
+     * @param point        element number of the point to estimate from
+     * @param targetX      X coordinate of the target
+     * @param targetY      Y coordinate of the target
+     * @param straightCost cost of a straight step
+     * @param diagonalCost cost of a diagonal step
+     * @return estimated cost to the target
+     */
+    private int getHeuristic(int point, int targetX, int targetY, int straightCost, int diagonalCost) {
+        int dx = Math.abs((point % gridWidth) - targetX);
+        int dy = Math.abs((point / gridWidth) - targetY);
+        dx = Math.min(dx, gridWidth - dx);
+        dy = Math.min(dy, gridHeight - dy);
+        return (straightCost * (dx + dy)) + ((diagonalCost - (2 * straightCost)) * Math.min(dx, dy));
+    }
+
+    /**
+     * Estimates the number of steps to the target for A*, using the landmark distances when the graph has them
+     *
+     * @param point   element number of the point
+     * @param target  element number of the target
+     * @param targetX x coordinate of the target
+     * @param targetY y coordinate of the target
+     * @return the estimate, never more than the real number of steps
+     */
+    private int getAStarHeuristic(int point, int target, int targetX, int targetY) {
+        int heuristic = getHeuristic(point, targetX, targetY, STRAIGHT_STEP_COST, DIAGONAL_STEP_COST);
+        if (landmarks != null) {
+            heuristic = Math.max(heuristic, landmarks.getHeuristic(point, target));
+        }
+        return heuristic;
+    }
+
+    /**
+     * Combines the distance and the estimate into a single heap priority. Points with equal totals are ordered by
+     * the largest distance travelled, so the search keeps following the most promising path.
+     *
+     * @param distance  steps from the startpoint
+     * @param heuristic estimated steps to the target
+     * @return priority for the open set
+     */
+    private long getAStarPriority(int distance, int heuristic) {
+        return (((long) (distance + heuristic)) << 32) | (Integer.MAX_VALUE - distance);
+    }
+
+    /**
+     * Gets the number of points expanded by the last call to findPath
+     *
+     * @return int containing the number of expanded points
+     */
+    int getLastExpansionCount() {
+        return lastExpansionCount;
+    }
+
+    /**
+     * Gets the number of points the last call to findPath looked at one by one along the lines of a jump point
+     * search. These points are not expanded, so they are not part of getLastExpansionCount; the open stretches a
+     * line skips over the JumpPointLines are not counted either.
+     *
+     * @return int containing the number of scanned points, 0 for the other pathfinding modes
+     */
+    int getLastScanCount() {
+        return lastScanCount;
+    }
+
+    /**
+     * Checks whether the last search stopped because its budget or expansion limit ran out
+     *
+     * @return true if the budget was exhausted
+     */
+    boolean isBudgetExhausted() {
+        return budgetExhausted;
+    }
+
+    /**
+     * calulates the path back from the endpoint to the startpoint
+     *
+     * @param endPoint element number of the last point in the pathfinding sequence
+     * @return ArrayList cointainting the path back from the endpoint to the startpoint, including both
+     */
+    private ArrayList<Point> getPathFound(int endPoint) {
+        ArrayList<Point> pathFound = new ArrayList<>();
+        int parentPoint = endPoint;
+        //a path visits every point at most once, so it can never be longer than the grid
+        int infiniteProtection = 0;
+        while ((parentPoint != -1) && (infiniteProtection < parentPoints.length)) {
+            infiniteProtection++;
+
+            pathFound.add(new Point(parentPoint % gridWidth, parentPoint / gridWidth));
+            parentPoint = parentPoints[parentPoint];
+        }
+        return pathFound;
+    }
+
+    /**
+     * Gets the element number corresponding to this points coordinates.
+     *
+     * @param p Point to be used
+     * @return int element number in the pointList
+     */
+    private int getPointNumber(Point p) {
+        return getPointNumber((int) p.getX(), (int) p.getY());
+    }
+
+    /**
+     * Gets the element number corresponding to these coordinates.
+     *
+     * @param x X coordinate of the point
+     * @param y Y coordinate of the point
+     * @return int element number in the pointList
+     */
+    private int getPointNumber(int x, int y) {
+        return (gridWidth * (y + 1)) + (x - gridWidth);
+    }
+}
@@ -28,6 +28,13 @@ public abstract class SimObject implements Serializable {
 
     public abstract StatusObject step();
 
+    /**
+     * Checks whether the SimObject is alive
+     *
+     * @return true if it is alive
+     */
+    public abstract boolean isAlive();
+
     public StatusObject getStatus() {
         return status;
     }
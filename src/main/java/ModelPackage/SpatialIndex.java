@@ -0,0 +1,173 @@
+package ModelPackage;
+
+import java.awt.*;
+import java.util.Arrays;
+import java.util.function.Predicate;
+
+/**
+ * Uniform grid of the SimObjects on every point, so finding the objects on a point or around it only looks at those
+ * objects instead of all objects of the world. Every object gets the next slot number when it is added, and every
+ * point has a list of the slots standing on it, kept in slot order so the first match is the object added first.
+ * <p>
+ * Clearing the index only visits the points that hold objects, so an index can be cleared and filled again every
+ * step at the cost of the objects in it.
+ */
+class SpatialIndex implements ISimObjectIndex {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final int gridWidth;
+    private final int gridHeight;
+
+    //first slot on every point, -1 for none
+    private final int[] pointHeads;
+
+    //per slot: the object, the next slot on the same point and its point
+    private SimObject[] slotObjects;
+    private int[] nextSlots;
+    private int[] slotPoints;
+    private int size;
+
+    /**
+     * Creates an empty index
+     *
+     * @param gridWidth  width of the grid
+     * @param gridHeight height of the grid
+     */
+    SpatialIndex(int gridWidth, int gridHeight) {
+        this.gridWidth = gridWidth;
+        this.gridHeight = gridHeight;
+        pointHeads = new int[gridWidth * gridHeight];
+        Arrays.fill(pointHeads, -1);
+        slotObjects = new SimObject[INITIAL_CAPACITY];
+        nextSlots = new int[INITIAL_CAPACITY];
+        slotPoints = new int[INITIAL_CAPACITY];
+    }
+
+    /**
+     * Gets the number of objects in the index
+     *
+     * @return int containing the object count
+     */
+    int getSize() {
+        return size;
+    }
+
+    /**
+     * Adds an object on the point it stands on, after all objects added before
+     *
+     * @param simObject the object
+     */
+    void add(SimObject simObject) {
+        if (size == slotObjects.length) {
+            int capacity = size * 2;
+            slotObjects = Arrays.copyOf(slotObjects, capacity);
+            nextSlots = Arrays.copyOf(nextSlots, capacity);
+            slotPoints = Arrays.copyOf(slotPoints, capacity);
+        }
+        int slot = size++;
+        slotObjects[slot] = simObject;
+        link(slot, getPointNumber(simObject.getPoint()));
+    }
+
+    /**
+     * Moves an object to the point it stands on now
+     *
+     * @param simObject the object, already on its new point
+     * @param oldPoint  point it moved away from
+     */
+    void move(SimObject simObject, Point oldPoint) {
+        int oldPointNumber = getPointNumber(oldPoint);
+        int previousSlot = -1;
+        int slot = pointHeads[oldPointNumber];
+        while ((slot != -1) && (slotObjects[slot] != simObject)) {
+            previousSlot = slot;
+            slot = nextSlots[slot];
+        }
+        if (slot == -1) {
+            throw new IllegalArgumentException("SimObject is not in the index at " + oldPoint);
+        }
+        if (previousSlot == -1) {
+            pointHeads[oldPointNumber] = nextSlots[slot];
+        } else {
+            nextSlots[previousSlot] = nextSlots[slot];
+        }
+        link(slot, getPointNumber(simObject.getPoint()));
+    }
+
+    /**
+     * Removes all objects
+     */
+    void clear() {
+        for (int slot = 0; slot < size; slot++) {
+            pointHeads[slotPoints[slot]] = -1;
+            slotObjects[slot] = null;
+        }
+        size = 0;
+    }
+
+    @Override
+    public SimObject findFirstAt(Point point, Predicate<SimObject> filter) {
+        int slot = findFirstSlot(getPointNumber(point), filter);
+        return (slot == -1) ? null : slotObjects[slot];
+    }
+
+    @Override
+    public SimObject findFirstNear(Point point, Predicate<SimObject> filter) {
+        int firstSlot = -1;
+        for (int y = Math.max(0, point.y - 1); y <= Math.min(gridHeight - 1, point.y + 1); y++) {
+            for (int x = Math.max(0, point.x - 1); x <= Math.min(gridWidth - 1, point.x + 1); x++) {
+                int slot = findFirstSlot((y * gridWidth) + x, filter);
+                if ((slot != -1) && ((firstSlot == -1) || (slot < firstSlot))) {
+                    firstSlot = slot;
+                }
+            }
+        }
+        return (firstSlot == -1) ? null : slotObjects[firstSlot];
+    }
+
+    /**
+     * Checks whether any object on a point matches, without looking further than the point
+     *
+     * @param x      x coordinate of the point
+     * @param y      y coordinate of the point
+     * @param filter decides which objects match
+     * @return true if an object on the point matches
+     */
+    boolean containsAt(int x, int y, Predicate<SimObject> filter) {
+        int pointNumber = (y * gridWidth) + x;
+        return (pointHeads[pointNumber] != -1) && (findFirstSlot(pointNumber, filter) != -1);
+    }
+
+    private int findFirstSlot(int pointNumber, Predicate<SimObject> filter) {
+        for (int slot = pointHeads[pointNumber]; slot != -1; slot = nextSlots[slot]) {
+            if (filter.test(slotObjects[slot])) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Puts a slot in the list of a point, keeping the list in slot order
+     */
+    private void link(int slot, int pointNumber) {
+        slotPoints[slot] = pointNumber;
+        int previousSlot = -1;
+        int nextSlot = pointHeads[pointNumber];
+        while ((nextSlot != -1) && (nextSlot < slot)) {
+            previousSlot = nextSlot;
+            nextSlot = nextSlots[nextSlot];
+        }
+        nextSlots[slot] = nextSlot;
+        if (previousSlot == -1) {
+            pointHeads[pointNumber] = slot;
+        } else {
+            nextSlots[previousSlot] = slot;
+        }
+    }
+
+    private int getPointNumber(Point point) {
+        return (point.y * gridWidth) + point.x;
+    }
+}
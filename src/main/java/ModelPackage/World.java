@@ -6,21 +6,60 @@ import java.awt.*;
 import java.io.Serializable;
 import java.util.*;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.Predicate;
 
 /**
  * Acts as a mediator between the outside of the model and the inside. Keeps track of the motionplanner and communicates it to the simobjects
  */
 public class World implements Serializable, IWorld {
 
+    //from this many points on, the full searches of a pursuit are planned hierarchically instead of over the whole grid
+    private static final int HIERARCHICAL_POINT_COUNT = 250000;
+
+    //from this many creatures on, creatures follow shared flow fields to their food instead of planning paths
+    private static final int FLOW_FIELD_CREATURE_COUNT = 500;
+
+    //points a single path query may expand, which bounds the planning time of a step
+    private static final int SEARCH_EXPANSION_LIMIT = 50000;
+
+    //spreads the seeds of the creatures of a double-buffered step
+    private static final long CREATURE_SEED_STRIDE = 0x9E3779B97F4A7C15L;
+
+    //side of the square tiles the creatures are grouped in when a step is planned on several threads
+    private static final int STEP_TILE_SIZE = 32;
+
+    private static final Predicate<SimObject> IS_SIM_OBJECT = simObject -> true;
+
     private Grid grid;
     private MovementPlanner mPlanner;
+    private FlowFieldService flowFields;
     private List<SimObject> simObjects;
-    private List<ArrayList<Point>> livingAreas;
     private Random rnd;
     private int stepCount;
     private int extinctionTimer;
     private boolean extinctionEnabled;
-    protected List<SimObject> newSimObjectList; // to know which SimObject we already had when trying to eat or mate, without always choosing yourself
+    private int targetSearchRadius;
+    private boolean doubleBufferedSteps;
+    private int stepThreads;
+    //threads planning the tiles of a step, null when the step is planned on the calling thread
+    private transient ForkJoinPool stepPool;
+
+    //SimObjects by the point they stand on, so target searches can check a point without scanning simObjects
+    private SpatialIndex simObjectIndex;
+    //SimObjects that already did their step, and the ones born in it, to know which SimObject we already had when
+    //trying to eat or mate, without always choosing yourself
+    private SpatialIndex steppedSimObjects;
+
+    //points that may not have their terrain color: the points occupied at the end of the last step and the points
+    //colored in this one, every other point already has its terrain color once the first step is done
+    private int[] coloredPoints;
+    private int coloredPointCount;
+    private boolean[] pointColored;
+    private boolean firstColorResetDone;
 
     /**
      * Create a world with the parameters we get from LifePackage.
@@ -33,6 +72,23 @@ public class World implements Serializable, IWorld {
                  int energyNonivore, int staminaNonivore, int legsNonivore, int reproductionThresholdNonivore, int reproductionCostNonivore, int strengthNonivore, int swimThresholdNonivore, int motionThresholdNonivore, int howManyNonivore,
                  int energyOmnivore, int digestionBalanceOmnivore, int staminaOmnivore, int legsOmnivore, int reproductionThresholdOmnivore, int reproductionCostOmnivore, int strengthOmnivore, int swimThresholdOmnivore, int motionThresholdOmnivore, int howManyOmnivore,
                  Grid simulationGrid) {
+        this(energyPlant, howManyPlants, energyCarnivore, staminaCarnivore, legsCarnivore, reproductionThresholdCarnivore, reproductionCostCarnivore, strengthCarnivore, swimThresholdCarnivore, motionThresholdCarnivore, howManyCarnivore,
+                energyHerbivore, staminaHerbivore, legsHerbivore, reproductionThresholdHerbivore, reproductionCostHerbivore, strengthHerbivore, swimThresholdHerbivore, motionThresholdHerbivore, howManyHerbivore,
+                energyNonivore, staminaNonivore, legsNonivore, reproductionThresholdNonivore, reproductionCostNonivore, strengthNonivore, swimThresholdNonivore, motionThresholdNonivore, howManyNonivore,
+                energyOmnivore, digestionBalanceOmnivore, staminaOmnivore, legsOmnivore, reproductionThresholdOmnivore, reproductionCostOmnivore, strengthOmnivore, swimThresholdOmnivore, motionThresholdOmnivore, howManyOmnivore,
+                simulationGrid, new Random().nextLong());
+    }
+
+    /**
+     * Create a world like the constructor above, with every random choice of the world drawn from a seed: the
+     * points the SimObjects start on and, with double-buffered steps, every choice the creatures make. Two worlds
+     * with the same parameters and seed then run the same simulation.
+     */
+    public World(int energyPlant, int howManyPlants, int energyCarnivore, int staminaCarnivore, int legsCarnivore, int reproductionThresholdCarnivore, int reproductionCostCarnivore, int strengthCarnivore, int swimThresholdCarnivore, int motionThresholdCarnivore, int howManyCarnivore,
+                 int energyHerbivore, int staminaHerbivore, int legsHerbivore, int reproductionThresholdHerbivore, int reproductionCostHerbivore, int strengthHerbivore, int swimThresholdHerbivore, int motionThresholdHerbivore, int howManyHerbivore,
+                 int energyNonivore, int staminaNonivore, int legsNonivore, int reproductionThresholdNonivore, int reproductionCostNonivore, int strengthNonivore, int swimThresholdNonivore, int motionThresholdNonivore, int howManyNonivore,
+                 int energyOmnivore, int digestionBalanceOmnivore, int staminaOmnivore, int legsOmnivore, int reproductionThresholdOmnivore, int reproductionCostOmnivore, int strengthOmnivore, int swimThresholdOmnivore, int motionThresholdOmnivore, int howManyOmnivore,
+                 Grid simulationGrid, long randomSeed) {
 
         extinctionEnabled = true;
         extinctionTimer = 100;
@@ -42,40 +98,45 @@ public class World implements Serializable, IWorld {
 
         this.grid = simulationGrid;
         mPlanner = new MovementPlanner();
+        if (grid.getWidth() * grid.getHeight() >= HIERARCHICAL_POINT_COUNT) {
+            mPlanner.setPathfindingMode(PathfindingMode.Hierarchical);
+        } else {
+            mPlanner.setPathfindingMode(PathfindingMode.AStar);
+        }
+        mPlanner.setSearchBudget(new SearchBudget(SEARCH_EXPANSION_LIMIT, 0, true));
+        //creatures swimming after prey on another island are routed over the shores
+        mPlanner.setPortalRoutingEnabled(true);
+        mPlanner.setMetrics(new PlannerMetrics());
+        //no path cache: food is found with nearest target searches, which depend on where the SimObjects stand, and
+        //a pursuit only searches again when its prey moved, so the same start and target hardly ever come back
         try {
             if (!mPlanner.initializePlanner(grid)) {
                 throw new Exception("Failed to initialize movementplanner");
             }
-            livingAreas = mPlanner.getLivingAreas();
         } catch (Exception e) {
             //System.out.println("Failed to generate grid");
             e.printStackTrace();
         }
 
-        rnd = new Random();
+        rnd = new Random(randomSeed);
+        stepThreads = 1;
         simObjects = new ArrayList<>();
         stepCount = 0;
 
         //check if there are more plants than available land
         int landCount = 0;
-        for (int c = 1; c < livingAreas.size(); c++) {
-            landCount += livingAreas.get(c).size();
+        for (int c = 1; c < mPlanner.getLivingAreaCount(); c++) {
+            landCount += mPlanner.getLivingAreaSize(c);
         }
         if(landCount >= howManyPlants){
-            //generate plants
+            //generate plants, at most one per point
+            boolean[] occupiedPoints = new boolean[grid.getWidth() * grid.getHeight()];
             for (int i = 0; i < howManyPlants; i++) {
                 Point spawnPoint = findAvailableSpawnPoint();
-                //check if a plant is already present at this position
-                boolean found = true;
-                while(found){
-                    for (SimObject so : simObjects){
-                        if ((so.getPoint().getX() != spawnPoint.getX()) | (so.getPoint().getY() != spawnPoint.getY())){
-                            found = false;
-                        }
-                    }
+                while (occupiedPoints[spawnPoint.y * grid.getWidth() + spawnPoint.x]) {
                     spawnPoint = findAvailableSpawnPoint();
                 }
-                //not found, add to list
+                occupiedPoints[spawnPoint.y * grid.getWidth() + spawnPoint.x] = true;
                 simObjects.add(new Plant(spawnPoint, energyPlant));
             }
         }
@@ -102,6 +163,10 @@ public class World implements Serializable, IWorld {
                     swimThresholdOmnivore, motionThresholdNonivore, this));
         }
 
+        indexSimObjects();
+        if (howManyCarnivore + howManyHerbivore + howManyNonivore + howManyOmnivore >= FLOW_FIELD_CREATURE_COUNT) {
+            setFlowFieldsEnabled(true);
+        }
         System.out.println(simObjects.size() + " objects added to simobjects");
     }
 
@@ -126,9 +191,12 @@ public class World implements Serializable, IWorld {
         int carnivoreCount = 0;
         int omnivoreCount = 0;
         int plantCount = 0;
-        newSimObjectList = new ArrayList<>();
+        steppedSimObjects.clear();
 
         stepCount++;
+        if (flowFields != null) {
+            flowFields.update(simObjects);
+        }
 
         if (extinctionEnabled && extinctionTimer == 0) {
            extinction();
@@ -141,9 +209,19 @@ public class World implements Serializable, IWorld {
         }
 
 
+        boolean twoPhaseStep = doubleBufferedSteps || (stepPool != null);
+        if (twoPhaseStep) {
+            planCreatureSteps();
+        }
+        //carried out in the order of the SimObjects, which settles the intents of the tiles planned in parallel
         for (SimObject so : simObjects){
-            StatusObject statusObject = so.step();
+            Point oldPoint = so.getPoint();
+            StatusObject statusObject = (twoPhaseStep && (so instanceof Creature)) ? ((Creature) so).applyStep() : so.step();
+            if (so.getPoint() != oldPoint){
+                moveSimObject(so, oldPoint);
+            }
             grid.setColor(so.getPoint(), statusObject.getColor());
+            markColored(so.getPoint());
             if (so instanceof Creature){
                 switch (((Creature) so).getDigestion()){
                     case Carnivore:
@@ -178,22 +256,10 @@ public class World implements Serializable, IWorld {
                     energyPlants += statusObject.getEnergy();
                 }
             }
-            newSimObjectList.add(so);
+            steppedSimObjects.add(so);
         }
 
-        //revert empty gridpoints to original color
-        for (GridPoint gridPoint : grid.getPointList()){
-            boolean occupied = false;
-            for (SimObject simObject : simObjects){
-                if ((simObject.getPoint().getX() == gridPoint.getX()) && (simObject.getPoint().getY() == gridPoint.getY())){
-                    occupied = true;
-                    break;
-                }
-            }
-            if(!occupied){
-                gridPoint.resetColor();
-            }
-        }
+        resetEmptyPointColors();
         GridClone gridClone = new GridClone(grid.getPointList());
 
         return new StepResult(gridClone, nonivoreCount, herbivoreCount, carnivoreCount, omnivoreCount, plantCount, energyNonivore, energyCarnivore, energyOmnivore, energyHerbivore, energyPlants, stepCount, extinctionTimer);
@@ -214,62 +280,190 @@ public class World implements Serializable, IWorld {
         extinctionTimer = 0;
     }
 
-    public List<Point> findSimObjectTarget(Point currentLocation, Digestion searcherDigestion, boolean wantsToSwim){
-        if (searcherDigestion.equals(Digestion.Nonivore)){
-            return null;
+    /**
+     * Sets whether steps are double-buffered. Normally every SimObject steps in turn and sees what the ones before
+     * it did in the same step. In a double-buffered step all creatures first decide what to do from the state of
+     * the last step, and only then are their intents carried out, in the order of the SimObjects. The outcome no
+     * longer depends on the order in which creatures decide, and with a seeded world it is the same every run.
+     *
+     * @param doubleBufferedSteps true to decide and apply in two phases
+     */
+    public void setDoubleBufferedSteps(boolean doubleBufferedSteps) {
+        this.doubleBufferedSteps = doubleBufferedSteps;
+    }
+
+    /**
+     * Checks whether steps are double-buffered
+     *
+     * @return true if creatures decide from the state of the last step
+     */
+    public boolean isDoubleBufferedSteps() {
+        return doubleBufferedSteps;
+    }
+
+    /**
+     * Sets the number of threads planning a step. With more than one thread every step is double-buffered: the
+     * creatures are grouped in square tiles of the grid and the tiles decide in parallel from the state of the last
+     * step. Afterwards the intents are carried out one by one in the order of the SimObjects, which settles eating,
+     * mating and moving across the borders of the tiles the same way every time. The outcome does not depend on the
+     * number of threads.
+     *
+     * @param stepThreads number of threads, 1 to plan on the calling thread alone
+     */
+    public void setStepThreads(int stepThreads) {
+        if (stepThreads < 1) {
+            throw new IllegalArgumentException("StepThreads must be at least 1");
+        }
+        if (stepPool != null) {
+            stepPool.shutdown();
+        }
+        this.stepThreads = stepThreads;
+        stepPool = (stepThreads > 1) ? new ForkJoinPool(stepThreads) : null;
+    }
+
+    /**
+     * Gets the number of threads planning a step
+     *
+     * @return int containing the thread count, 1 by default
+     */
+    public int getStepThreads() {
+        return stepThreads;
+    }
+
+    /**
+     * Sets the search algorithm used when a pursuit has to plan the route to its prey over again. Food is found with
+     * a search that stops at the nearest food, see findSimObjectTarget, which does not use the mode.
+     *
+     * @param pathfindingMode search algorithm to use
+     */
+    public void setPathfindingMode(PathfindingMode pathfindingMode) {
+        mPlanner.setPathfindingMode(pathfindingMode);
+    }
+
+    /**
+     * Sets whether creatures move along shared flow fields to their food instead of planning their own paths
+     *
+     * @param enabled true to use flow fields
+     */
+    public void setFlowFieldsEnabled(boolean enabled) {
+        if (enabled && (flowFields == null)) {
+            flowFields = new FlowFieldService(mPlanner);
+            flowFields.update(simObjects);
+        } else if (!enabled) {
+            flowFields = null;
         }
+    }
+
+    /**
+     * Checks whether creatures move along shared flow fields to their food
+     *
+     * @return true if flow fields are used
+     */
+    public boolean isFlowFieldsEnabled() {
+        return flowFields != null;
+    }
 
-        SimObject target = null;
-        int selectArea = -1;
-        if(!wantsToSwim){
-            //find out what livingarea the creature is in
-            for (int i=0; i<livingAreas.size(); i++){
-                if (livingAreas.get(i).contains(currentLocation)){
-                    selectArea = i;
+    /**
+     * Gets the next point on the way to the nearest food from the flow fields. Only available when flow fields are
+     * enabled.
+     *
+     * @param currentLocation   point the searching creature stands on
+     * @param searcherDigestion Digestion of the searching creature, which creatures are food follows Creature.isPrey
+     * @param foodDigestion     Herbivore to look for plants, Carnivore for creatures, Omnivore for both
+     * @param wantsToSwim       false to stay on the ground
+     * @return the point to move to, null if there is no food to move to
+     */
+    public Point findFoodStep(Point currentLocation, Digestion searcherDigestion, Digestion foodDigestion, boolean wantsToSwim) {
+        int fieldMask = 0;
+        if ((foodDigestion == Digestion.Herbivore) || (foodDigestion == Digestion.Omnivore)) {
+            fieldMask |= FlowFieldService.PLANTS;
+        }
+        if ((foodDigestion == Digestion.Carnivore) || (foodDigestion == Digestion.Omnivore)) {
+            for (Digestion digestion : Digestion.values()) {
+                if (Creature.isPrey(searcherDigestion, digestion)) {
+                    fieldMask |= FlowFieldService.getCreatureMask(digestion);
                 }
             }
         }
+        if (fieldMask == 0) {
+            return null;
+        }
+        return flowFields.getNextStep(currentLocation, fieldMask, !wantsToSwim);
+    }
+
+    /**
+     * Sets the limits for every path query of the creatures. When a query runs out of budget the creature walks
+     * towards the point searched closest to its target.
+     *
+     * @param searchBudget the limits, null for no limits
+     */
+    public void setSearchBudget(SearchBudget searchBudget) {
+        mPlanner.setSearchBudget(searchBudget);
+    }
+
+    /**
+     * Gets the counters of the path queries of the creatures in this world
+     *
+     * @return the metrics of the movement planner
+     */
+    public PlannerMetrics getPlannerMetrics() {
+        return mPlanner.getMetrics();
+    }
+
+    /**
+     * Sets how far creatures look for food
+     *
+     * @param targetSearchRadius maximum number of steps to a target, 0 for no limit
+     */
+    public void setTargetSearchRadius(int targetSearchRadius) {
+        this.targetSearchRadius = targetSearchRadius;
+    }
+
+    /**
+     * Finds a route to the nearest reachable food. Target and route are found in one search that stops at the
+     * first point holding food, see MovementPlanner.findNearestTarget. The pathfinding mode of the world is not used.
+     * Food follows the same rule as for the flow fields, see Creature.isMeatFor and Creature.isPlantFood.
+     *
+     * @param currentLocation   point the searching creature stands on
+     * @param searcherDigestion Digestion of the searching creature
+     * @param foodDigestion     Herbivore to look for plants, Carnivore for creatures, Omnivore for both
+     * @param wantsToSwim       false to only look for food in the living area of the creature
+     * @return the route, target first, or null if no food was found
+     */
+    public List<Point> findSimObjectTarget(Point currentLocation, Digestion searcherDigestion, Digestion foodDigestion, boolean wantsToSwim){
+        return findSimObjectTarget(currentLocation, searcherDigestion, foodDigestion, wantsToSwim, null);
+    }
+
+    /**
+     * Finds a route to the food that costs the searching creature the least energy to reach, see
+     * MovementPlanner.findNearestTarget
+     *
+     * @param currentLocation   point the searching creature stands on
+     * @param searcherDigestion Digestion of the searching creature
+     * @param foodDigestion     Herbivore to look for plants, Carnivore for creatures, Omnivore for both
+     * @param wantsToSwim       false to only look for food in the living area of the creature
+     * @param costProfile       step costs of the creature, null for the nearest food in steps
+     * @return the route, target first, or null if no food was found
+     */
+    public List<Point> findSimObjectTarget(Point currentLocation, Digestion searcherDigestion, Digestion foodDigestion, boolean wantsToSwim, MovementCostProfile costProfile){
+        Predicate<SimObject> isMeat = simObject -> Creature.isMeatFor(searcherDigestion, simObject);
+        ITargetFilter filter;
+        switch (foodDigestion){
+            case Herbivore:
+                filter = (x, y) -> simObjectIndex.containsAt(x, y, Creature::isPlantFood);
+                break;
+            case Carnivore:
+                filter = (x, y) -> simObjectIndex.containsAt(x, y, isMeat);
+                break;
+            case Omnivore:
+                filter = (x, y) -> simObjectIndex.containsAt(x, y, Creature::isPlantFood) || simObjectIndex.containsAt(x, y, isMeat);
+                break;
+            default:
+                return null;
+        }
 
-        //return Route to first available simobject
         try{
-            for (SimObject simObject : simObjects){
-                if (selectArea != -1){
-                    if (!livingAreas.get(selectArea).contains(simObject.getPoint())){
-                        continue;
-                    }
-                }
-                switch (searcherDigestion){
-                    case Herbivore:
-                        if (simObject instanceof Plant){
-                            target = simObject;
-                        }
-                        break;
-                    case Carnivore:
-                        if (simObject instanceof Creature){
-                            target = simObject;
-                        }
-                        break;
-                    case Omnivore:
-                        Creature omnivore = (Creature) simObject;
-                        Random rnd = new Random();
-                        int whatToEat = rnd.nextInt(100);
-                        if ( omnivore.getDigestionBalance() < whatToEat) {
-                            if (simObject instanceof Plant){
-                                target = simObject;
-                            }
-                            break;
-                        }
-                        else {
-                            if (simObject instanceof Creature){
-                                target = simObject;
-                            }
-                            break;
-                        }
-                }
-            }
-            if (target != null){
-                return mPlanner.findPath(currentLocation, target.getPoint(), !wantsToSwim);
-            }
+            return mPlanner.findNearestTarget(currentLocation, filter, !wantsToSwim, targetSearchRadius, costProfile);
         }
         catch (Exception e)
         {
@@ -279,14 +473,235 @@ public class World implements Serializable, IWorld {
     return null;
     }
 
+    /**
+     * Finds a route to the food like findSimObjectTarget, encoded so a creature can keep it cheaply
+     *
+     * @param currentLocation   point the searching creature stands on
+     * @param searcherDigestion Digestion of the searching creature
+     * @param foodDigestion     Herbivore to look for plants, Carnivore for creatures, Omnivore for both
+     * @param wantsToSwim       false to only look for food in the living area of the creature
+     * @param costProfile       step costs of the creature, null for the nearest food in steps
+     * @return the route in walking order, or null if no food was found
+     */
+    public CompactPath findSimObjectPath(Point currentLocation, Digestion searcherDigestion, Digestion foodDigestion, boolean wantsToSwim, MovementCostProfile costProfile) {
+        return CompactPath.fromPath(findSimObjectTarget(currentLocation, searcherDigestion, foodDigestion, wantsToSwim, costProfile), grid.getWidth(), grid.getHeight());
+    }
+
+    /**
+     * Creates a planner that keeps the path of a creature chasing a moving target up to date
+     *
+     * @return a new PursuitPlanner on the grid of this world
+     */
+    public PursuitPlanner createPursuit() {
+        return new PursuitPlanner(mPlanner);
+    }
+
+    /**
+     * Finds a creature standing on a point that a hunter hunts, see Creature.isMeatFor
+     *
+     * @param point  the point
+     * @param hunter the hunting creature
+     * @return a creature on the point, null if there is none
+     */
+    public Creature findPreyAt(Point point, Creature hunter) {
+        return (Creature) simObjectIndex.findFirstAt(point, simObject -> Creature.isMeatFor(hunter.getDigestion(), simObject));
+    }
+
+    /**
+     * Gets the SimObjects that already did their step in the current step, and the creatures born in it. Creatures
+     * look for food and mates among these.
+     *
+     * @return the SimObjects by the point they stand on
+     */
+    public ISimObjectIndex getSteppedSimObjects() {
+        return steppedSimObjects;
+    }
+
+    /**
+     * Gets all SimObjects by the point they stand on. During the planning phase of a double-buffered step nothing
+     * moves, so this is the state of the last step.
+     *
+     * @return the SimObjects by the point they stand on
+     */
+    public ISimObjectIndex getSimObjectIndex() {
+        return simObjectIndex;
+    }
+
+    /**
+     * Lets every creature decide what to do in a double-buffered step. Each creature gets its own random source,
+     * seeded from the world and its place among the SimObjects, so its choices do not depend on the others nor on
+     * the thread that plans them.
+     */
+    private void planCreatureSteps() {
+        long stepSeed = rnd.nextLong();
+        if (stepPool == null) {
+            for (int i = 0; i < simObjects.size(); i++) {
+                planCreatureStep(i, stepSeed);
+            }
+            return;
+        }
+
+        //group the creatures by tile, keeping their order within a tile
+        int tilesX = (grid.getWidth() + STEP_TILE_SIZE - 1) / STEP_TILE_SIZE;
+        int tileCount = tilesX * ((grid.getHeight() + STEP_TILE_SIZE - 1) / STEP_TILE_SIZE);
+        int[] objectTiles = new int[simObjects.size()];
+        int[] tileOffsets = new int[tileCount + 1];
+        for (int i = 0; i < simObjects.size(); i++) {
+            SimObject so = simObjects.get(i);
+            objectTiles[i] = -1;
+            if (so instanceof Creature) {
+                objectTiles[i] = ((so.getPoint().y / STEP_TILE_SIZE) * tilesX) + (so.getPoint().x / STEP_TILE_SIZE);
+                tileOffsets[objectTiles[i] + 1]++;
+            }
+        }
+        for (int tile = 0; tile < tileCount; tile++) {
+            tileOffsets[tile + 1] += tileOffsets[tile];
+        }
+        int[] tileCreatures = new int[tileOffsets[tileCount]];
+        int[] tileFill = Arrays.copyOf(tileOffsets, tileCount);
+        for (int i = 0; i < simObjects.size(); i++) {
+            if (objectTiles[i] != -1) {
+                tileCreatures[tileFill[objectTiles[i]]++] = i;
+            }
+        }
+
+        //the flow fields are computed on first use, so compute them before the tiles read them
+        if (flowFields != null) {
+            flowFields.computeAllFields();
+        }
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (int tile = 0; tile < tileCount; tile++) {
+            int firstCreature = tileOffsets[tile];
+            int endCreature = tileOffsets[tile + 1];
+            if (firstCreature == endCreature) {
+                continue;
+            }
+            tasks.add(() -> {
+                for (int i = firstCreature; i < endCreature; i++) {
+                    planCreatureStep(tileCreatures[i], stepSeed);
+                }
+                return null;
+            });
+        }
+        try {
+            for (Future<Void> result : stepPool.invokeAll(tasks)) {
+                //rethrows what went wrong in the tile
+                result.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Planning the step was interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Planning a tile of the step failed", e.getCause());
+        }
+    }
+
+    /**
+     * Lets the SimObject at a place in simObjects decide what to do, if it is a creature
+     */
+    private void planCreatureStep(int index, long stepSeed) {
+        SimObject so = simObjects.get(index);
+        if (so instanceof Creature) {
+            ((Creature) so).planStep(new Random(stepSeed + (index * CREATURE_SEED_STRIDE)));
+        }
+    }
+
+    /**
+     * Adds a creature born in the current step, it can be found among the stepped SimObjects from now on
+     *
+     * @param child the new creature
+     */
+    public void addBornSimObject(SimObject child) {
+        steppedSimObjects.add(child);
+    }
+
+    /**
+     * Adds a SimObject after the ones already in the world, it steps from the next step on
+     *
+     * @param simObject the SimObject
+     */
+    void addSimObject(SimObject simObject) {
+        simObjects.add(simObject);
+        simObjectIndex.add(simObject);
+    }
+
+    /**
+     * Puts all SimObjects in the index again, in the order of simObjects
+     */
+    private void indexSimObjects() {
+        if (simObjectIndex == null) {
+            simObjectIndex = new SpatialIndex(grid.getWidth(), grid.getHeight());
+            steppedSimObjects = new SpatialIndex(grid.getWidth(), grid.getHeight());
+            pointColored = new boolean[grid.getWidth() * grid.getHeight()];
+            coloredPoints = new int[64];
+        }
+        simObjectIndex.clear();
+        for (SimObject simObject : simObjects) {
+            simObjectIndex.add(simObject);
+        }
+    }
+
+    /**
+     * Remembers that a point was colored in this step
+     *
+     * @param point the point
+     */
+    private void markColored(Point point) {
+        int pointNumber = (point.y * grid.getWidth()) + point.x;
+        if (!pointColored[pointNumber]) {
+            pointColored[pointNumber] = true;
+            if (coloredPointCount == coloredPoints.length) {
+                coloredPoints = Arrays.copyOf(coloredPoints, coloredPointCount * 2);
+            }
+            coloredPoints[coloredPointCount++] = pointNumber;
+        }
+    }
+
+    /**
+     * Reverts the points no SimObject stands on to the color of their terrain. Only the points colored in this step
+     * or still occupied from the last one are looked at, the points that stay occupied are kept for the next step.
+     * The first step looks at every point, since the grid may have been colored before.
+     */
+    private void resetEmptyPointColors() {
+        ArrayList<GridPoint> pointList = grid.getPointList();
+        if (!firstColorResetDone) {
+            for (GridPoint gridPoint : pointList) {
+                if (!simObjectIndex.containsAt(gridPoint.getX(), gridPoint.getY(), IS_SIM_OBJECT)) {
+                    gridPoint.resetColor();
+                }
+            }
+            firstColorResetDone = true;
+        }
+        int keptCount = 0;
+        for (int i = 0; i < coloredPointCount; i++) {
+            int pointNumber = coloredPoints[i];
+            if (simObjectIndex.containsAt(pointNumber % grid.getWidth(), pointNumber / grid.getWidth(), IS_SIM_OBJECT)) {
+                coloredPoints[keptCount++] = pointNumber;
+            } else {
+                pointList.get(pointNumber).resetColor();
+                pointColored[pointNumber] = false;
+            }
+        }
+        coloredPointCount = keptCount;
+    }
+
+    /**
+     * Updates the index after a SimObject moved
+     *
+     * @param simObject the SimObject, already on its new point
+     * @param oldPoint  point it moved away from
+     */
+    private void moveSimObject(SimObject simObject, Point oldPoint) {
+        simObjectIndex.move(simObject, oldPoint);
+    }
+
     private Point findAvailableSpawnPoint() {
         //exclude area 1 (water)
-        int areaNumber = rnd.nextInt(livingAreas.size() - 1) + 1;
-        List<Point> area = livingAreas.get(areaNumber);
+        int areaNumber = rnd.nextInt(mPlanner.getLivingAreaCount() - 1) + 1;
 
         //include all points
-        int pointNumber = rnd.nextInt(area.size() - 1);
-        return area.get(pointNumber);
+        int pointNumber = rnd.nextInt(mPlanner.getLivingAreaSize(areaNumber));
+        return mPlanner.getLivingAreaPoint(areaNumber, pointNumber);
     }
 
     public Color getColor(Point point) {
@@ -325,6 +740,7 @@ public class World implements Serializable, IWorld {
         survivors.addAll(SurviveExtinction(omnivores));
         survivors.addAll(SurviveExtinction(nonivores));
         simObjects = survivors;
+        indexSimObjects();
     }
 
     private List<SimObject> SurviveExtinction (List<SimObject> creatures) {
@@ -343,6 +759,10 @@ public class World implements Serializable, IWorld {
 
             newCreatureList.add(creatures.get(i));
         }
+        //the others leave the world, so whoever hunts them lets go
+        for (int i = size; i < creatures.size(); i++) {
+            ((Creature) creatures.get(i)).die();
+        }
         return newCreatureList;
     }
 
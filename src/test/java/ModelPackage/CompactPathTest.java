@@ -0,0 +1,77 @@
+package ModelPackage;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.*;
+import java.util.ArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.fail;
+
+class CompactPathTest {
+
+    @Test
+    void testRoundTrip() {
+        //target first, crossing the left and the top edge of a 10x10 grid
+        ArrayList<Point> pathFound = new ArrayList<>();
+        pathFound.add(new Point(8, 8));
+        pathFound.add(new Point(9, 9));
+        pathFound.add(new Point(0, 0));
+        pathFound.add(new Point(1, 0));
+        pathFound.add(new Point(2, 1));
+        CompactPath path = CompactPath.fromPath(pathFound, 10, 10);
+        assertEquals(4, path.getStepCount());
+        assertEquals(new Point(2, 1), path.getStartPoint());
+        assertEquals(new Point(8, 8), path.getTargetPoint());
+
+        PathCursor cursor = new PathCursor(path);
+        for (int i = pathFound.size() - 1; i >= 0; i--) {
+            assertEquals(i + 1, cursor.getRemainingPoints());
+            assertEquals(pathFound.get(i), cursor.next());
+        }
+        assertEquals(false, cursor.hasNext());
+
+        cursor = new PathCursor(path);
+        cursor.skip(3);
+        assertEquals(new Point(9, 9), cursor.next());
+
+        pathFound.add(new Point(4, 1));
+        try {
+            CompactPath.fromPath(pathFound, 10, 10);
+            fail("Expected an exception for points that are not neighbours");
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
+        }
+    }
+
+    @Test
+    void testLongPath() throws Exception {
+        Grid testGrid = new Grid(600, 10);
+        for (int x = 0; x < 600; x++) {
+            testGrid.setPointType(new Point(x, 5), GridPointType.Water);
+        }
+        MovementPlanner planner = new MovementPlanner();
+        planner.initializePlanner(testGrid);
+
+        for (PathfindingMode mode : PathfindingMode.values()) {
+            planner.setPathfindingMode(mode);
+            ArrayList<Point> pathFound = planner.findPath(new Point(0, 5), new Point(299, 5), false);
+            System.out.println(mode + " path of " + pathFound.size() + " points");
+            assertEquals(300, pathFound.size());
+
+            CompactPath path = CompactPath.fromPath(pathFound, 600, 10);
+            assertEquals(new Point(299, 5), path.getTargetPoint());
+            PathCursor cursor = new PathCursor(path);
+            for (int i = pathFound.size() - 1; i >= 0; i--) {
+                assertEquals(pathFound.get(i), cursor.next());
+            }
+
+            //one byte per step against a reference and a Point object per point
+            int compactBytes = path.getStepCount();
+            int listBytes = pathFound.size() * (4 + 24);
+            if (compactBytes * 10 > listBytes) {
+                fail("Compact path of " + compactBytes + " bytes against " + listBytes);
+            }
+        }
+    }
+}
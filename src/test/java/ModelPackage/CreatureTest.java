@@ -75,4 +75,41 @@ public class CreatureTest {
        // assertEquals(600, beast3.getHunger());
     }
 
-}
\ No newline at end of file
+    @Test
+    public void testPreyDiesDuringChase () {
+        int testGridSize = 30;
+        Grid grid = new Grid(testGridSize, testGridSize);
+        for (int x = 0; x < testGridSize; x++) {
+            for (int y = 0; y < testGridSize; y++) {
+                grid.setPointType(new Point(x, y), GridPointType.Ground);
+            }
+        }
+        World world = new World(500,0,
+                1500,1500,4, 600, 500,900,400,300, 0,
+                1400, 1400, 6, 700, 500, 750, 400, 300, 0,
+                2000, 1750, 8, 1000, 800, 500, 300, 200, 0,
+                1750, 45, 2500, 2, 500, 400, 1500, 600, 300, 0,
+                grid, 13);
+        //a hungry carnivore and two sated herbivores that stay where they are
+        Creature hunter = new Creature(new Point(5, 5), 1000, Digestion.Carnivore, 100, 1500, 4, 600, 500, 900, 400, 300, world);
+        Creature nearPrey = new Creature(new Point(15, 5), 1000, Digestion.Herbivore, 0, 1000, 6, 700, 500, 750, 400, 2000, world);
+        Creature farPrey = new Creature(new Point(5, 20), 1000, Digestion.Herbivore, 0, 1000, 6, 700, 500, 750, 400, 2000, world);
+        world.addSimObject(hunter);
+        world.addSimObject(nearPrey);
+        world.addSimObject(farPrey);
+
+        world.doStep();
+        assertEquals(nearPrey, hunter.getPrey());
+
+        //eaten up by someone else, the hunter goes after the other one
+        nearPrey.energy = 0;
+        world.doStep();
+        assertEquals(farPrey, hunter.getPrey());
+
+        //left the world in an extinction
+        farPrey.die();
+        world.doStep();
+        assertEquals(null, hunter.getPrey());
+    }
+
+}
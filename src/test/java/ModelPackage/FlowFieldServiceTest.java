@@ -0,0 +1,106 @@
+package ModelPackage;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.fail;
+
+class FlowFieldServiceTest {
+
+    @Test
+    void testDistancesMatchNearestTarget() {
+        int testGridWidth = 40;
+        int testGridHeight = 40;
+        Random random = new Random(7);
+        Grid testGrid = new Grid(testGridWidth, testGridHeight);
+        for (int i = 0; i < 500; i++) {
+            testGrid.setPointType(new Point(random.nextInt(testGridWidth), random.nextInt(testGridHeight)),
+                    (i % 5 == 0) ? GridPointType.Obstacle : GridPointType.Ground);
+        }
+        MovementPlanner planner = new MovementPlanner();
+        planner.initializePlanner(testGrid);
+
+        List<SimObject> simObjects = new ArrayList<>();
+        boolean[] plants = new boolean[testGridWidth * testGridHeight];
+        while (simObjects.size() < 15) {
+            Point point = new Point(random.nextInt(testGridWidth), random.nextInt(testGridHeight));
+            if (testGrid.getPointType(point) != GridPointType.Obstacle) {
+                simObjects.add(new Plant(point, 10));
+                plants[point.y * testGridWidth + point.x] = true;
+            }
+        }
+        FlowFieldService flowFields = new FlowFieldService(planner);
+        flowFields.update(simObjects);
+
+        for (int i = 0; i < 100; i++) {
+            Point from = new Point(random.nextInt(testGridWidth), random.nextInt(testGridHeight));
+            if ((testGrid.getPointType(from) == GridPointType.Obstacle) || plants[from.y * testGridWidth + from.x]) {
+                continue;
+            }
+            for (boolean landOnly : new boolean[]{false, true}) {
+                boolean onGround = testGrid.getPointType(from) == GridPointType.Ground;
+                ArrayList<Point> path = planner.findNearestTarget(from, (x, y) -> plants[y * testGridWidth + x], landOnly && onGround, 0);
+                int expected = (path == null) ? Integer.MAX_VALUE : path.size() - 1;
+                assertEquals(expected, flowFields.getDistance(from, FlowFieldService.PLANTS, landOnly && onGround), "Distance from " + from);
+
+                //following the field reaches a plant in exactly that many steps
+                Point current = from;
+                int steps = 0;
+                Point next = flowFields.getNextStep(current, FlowFieldService.PLANTS, landOnly && onGround);
+                while (next != null) {
+                    if (testGrid.getPointType(next) == GridPointType.Obstacle) {
+                        fail("Flow field leads into an obstacle at " + next);
+                    }
+                    if (landOnly && onGround && (testGrid.getPointType(next) != GridPointType.Ground)) {
+                        fail("Flow field over the ground leads into the water at " + next);
+                    }
+                    current = next;
+                    steps++;
+                    next = flowFields.getNextStep(current, FlowFieldService.PLANTS, landOnly && onGround);
+                }
+                if (path != null) {
+                    assertEquals(expected, steps, "Steps from " + from);
+                    assertEquals(true, plants[current.y * testGridWidth + current.x]);
+                } else {
+                    assertEquals(0, steps);
+                }
+            }
+        }
+        //the plant field was computed once for each mode, the creature fields never
+        assertEquals(2, flowFields.getComputedFieldCount());
+    }
+
+    @Test
+    void testCreatureFields() {
+        int testGridWidth = 20;
+        int testGridHeight = 20;
+        MovementPlanner planner = new MovementPlanner();
+        planner.initializePlanner(new Grid(testGridWidth, testGridHeight));
+
+        List<SimObject> simObjects = new ArrayList<>();
+        simObjects.add(new Creature(new Point(3, 3), 100, Digestion.Herbivore, 0, 100, 4, 50, 10, 10, 10, 10, null));
+        simObjects.add(new Creature(new Point(10, 3), 100, Digestion.Carnivore, 100, 100, 4, 50, 10, 10, 10, 10, null));
+        FlowFieldService flowFields = new FlowFieldService(planner);
+        flowFields.update(simObjects);
+
+        assertEquals(4, flowFields.getDistance(new Point(6, 3), FlowFieldService.getCreatureMask(Digestion.Carnivore), false));
+        assertEquals(3, flowFields.getDistance(new Point(6, 3), FlowFieldService.getCreatureMask(Digestion.Herbivore), false));
+        assertEquals(3, flowFields.getDistance(new Point(6, 3), FlowFieldService.getCreatureMask(Digestion.Herbivore) |
+                FlowFieldService.getCreatureMask(Digestion.Carnivore), false));
+        assertEquals(Integer.MAX_VALUE, flowFields.getDistance(new Point(6, 3), FlowFieldService.PLANTS, false));
+        Point next = flowFields.getNextStep(new Point(6, 3), FlowFieldService.getCreatureMask(Digestion.Carnivore), false);
+        assertEquals(7, next.x);
+        assertEquals(3, flowFields.getDistance(next, FlowFieldService.getCreatureMask(Digestion.Carnivore), false));
+
+        //positions are only taken over on the next update
+        simObjects.get(1).point = new Point(6, 6);
+        assertEquals(4, flowFields.getDistance(new Point(6, 3), FlowFieldService.getCreatureMask(Digestion.Carnivore), false));
+        flowFields.update(simObjects);
+        assertEquals(3, flowFields.getDistance(new Point(6, 3), FlowFieldService.getCreatureMask(Digestion.Carnivore), false));
+    }
+}
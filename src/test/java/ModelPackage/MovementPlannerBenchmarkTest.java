@@ -0,0 +1,235 @@
+package ModelPackage;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.*;
+import java.util.ArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Compares the pathfinding modes on the maps used in MovementPlannerTest. Every query is run with each mode, the
+ * path length, expanded points and time are printed, and the points the jump point search scans along its lines
+ * have to stay within a small fraction of the points the breadth first search expands on open maps. A* with landmarks is compared with plain
+ * A* on a map of long detours.
+ */
+class MovementPlannerBenchmarkTest {
+
+    private static final int RUNS = 3;
+
+    @Test
+    void testOpenGrid() {
+        MovementPlanner planner = new MovementPlanner();
+        planner.initializePlanner(new Grid(10, 10));
+        Point[][] testPaths = {
+                {new Point(5, 5), new Point(6, 5)},
+                {new Point(5, 5), new Point(0, 5)},
+                {new Point(5, 5), new Point(9, 9)},
+                {new Point(0, 0), new Point(9, 9)},
+                {new Point(2, 3), new Point(7, 9)}
+        };
+        runBenchmark("open 10x10", planner, testPaths, true);
+    }
+
+    @Test
+    void testEdgeObstacles() {
+        Grid testGrid = new Grid(10, 10);
+        for (int x = 0; x < 10; x++) {
+            for (int y = 0; y < 10; y++) {
+                if ((y == 0) || (x == 0) || (x == 9) || (y == 9)) {
+                    testGrid.setPointType(new Point(x, y), GridPointType.Obstacle);
+                }
+            }
+        }
+        MovementPlanner planner = new MovementPlanner();
+        planner.initializePlanner(testGrid);
+        Point[][] testPaths = {
+                {new Point(3, 5), new Point(6, 5)},
+                {new Point(6, 5), new Point(3, 5)},
+                {new Point(1, 1), new Point(8, 8)}
+        };
+        runBenchmark("edge obstacles 10x10", planner, testPaths, true);
+    }
+
+    @Test
+    void testDemoGrid() {
+        Grid testGrid = new Grid(50, 50);
+        for (int x = 15; x < 34; x++) {
+            if ((x != 17) && (x != 18) && (x != 29)) {
+                testGrid.setPointType(new Point(x, 25), GridPointType.Obstacle);
+            }
+        }
+        MovementPlanner planner = new MovementPlanner();
+        planner.initializePlanner(testGrid);
+        Point[][] testPaths = {
+                {new Point(20, 20), new Point(30, 30)},
+                {new Point(25, 20), new Point(25, 30)},
+                {new Point(5, 5), new Point(45, 40)}
+        };
+        runBenchmark("demo 50x50", planner, testPaths, true);
+    }
+
+    @Test
+    void testLargeOpenGrid() throws Exception {
+        MovementPlanner planner = new MovementPlanner();
+        planner.initializePlanner(new Grid(200, 200));
+        Point[][] testPaths = {
+                {new Point(100, 100), new Point(130, 110)},
+                {new Point(20, 20), new Point(90, 60)}
+        };
+        int[] expansions = runBenchmark("open 200x200", planner, testPaths, false);
+
+        //the lines of the jump point search scan points without expanding them, so count those instead
+        int scanned = 0;
+        for (Point[] testPath : testPaths) {
+            planner.findPath(testPath[0], testPath[1], false, PathfindingMode.JumpPoint);
+            scanned += planner.getLastScanCount();
+        }
+        System.out.println("open 200x200 JumpPoint: " + scanned + " points scanned");
+        if (scanned * 20 > expansions[0]) {
+            fail("Jump point search scanned " + scanned + " points, breadth first expanded " + expansions[0]);
+        }
+    }
+
+    @Test
+    void testLandmarks() throws Exception {
+        //walls across the whole grid with a single gap, alternating sides, so paths wind back and forth
+        int testGridSize = 200;
+        Grid testGrid = new Grid(testGridSize, testGridSize);
+        for (int y = 10; y < testGridSize; y += 20) {
+            int gap = ((y / 20) % 2 == 0) ? 20 : 120;
+            for (int x = 0; x < testGridSize; x++) {
+                if ((x < gap) || (x > gap + 1)) {
+                    testGrid.setPointType(new Point(x, y), GridPointType.Obstacle);
+                }
+            }
+        }
+        MovementPlanner planner = new MovementPlanner();
+        planner.setPathfindingMode(PathfindingMode.AStar);
+        planner.initializePlanner(testGrid);
+        MovementPlanner landmarkPlanner = new MovementPlanner();
+        landmarkPlanner.setPathfindingMode(PathfindingMode.AStar);
+        landmarkPlanner.setLandmarkCount(8);
+        landmarkPlanner.initializePlanner(testGrid);
+        LandmarkTable landmarks = landmarkPlanner.getLandmarkTable();
+
+        Point[][] testPaths = {
+                {new Point(70, 5), new Point(70, 105)},
+                {new Point(20, 20), new Point(150, 140)},
+                {new Point(170, 60), new Point(10, 175)}
+        };
+        int expansions = 0;
+        int landmarkExpansions = 0;
+        long time = 0;
+        long landmarkTime = 0;
+        for (Point[] testPath : testPaths) {
+            for (int run = 0; run < RUNS; run++) {
+                long startTime = System.nanoTime();
+                ArrayList<Point> path = planner.findPath(testPath[0], testPath[1], false);
+                time += System.nanoTime() - startTime;
+                startTime = System.nanoTime();
+                ArrayList<Point> landmarkPath = landmarkPlanner.findPath(testPath[0], testPath[1], false);
+                landmarkTime += System.nanoTime() - startTime;
+                assertEquals(path.size(), landmarkPath.size(), "Landmarks changed the path length");
+                if (run == 0) {
+                    expansions += planner.getLastExpansionCount();
+                    landmarkExpansions += landmarkPlanner.getLastExpansionCount();
+                }
+            }
+        }
+        System.out.println("landmarks 200x200: " + landmarks.getLandmarkCount() + " landmarks built in "
+                + (landmarks.getBuildTime() / 1000000) + "ms, " + (landmarks.getMemoryBytes() / 1024) + "kB");
+        System.out.println("landmarks 200x200 AStar: " + expansions + " points expanded, " + (time / (RUNS * testPaths.length * 1000)) + "us per path");
+        System.out.println("landmarks 200x200 AStar with landmarks: " + landmarkExpansions + " points expanded, "
+                + (landmarkTime / (RUNS * testPaths.length * 1000)) + "us per path");
+        assertEquals(testGridSize * testGridSize * 8 * Short.BYTES, landmarks.getMemoryBytes());
+        if (landmarkExpansions * 3 > expansions) {
+            fail("A* with landmarks expanded " + landmarkExpansions + " points, without " + expansions);
+        }
+    }
+
+    /**
+     * Runs every test path with every pathfinding mode and prints the results
+     *
+     * @param name       name of the map to print
+     * @param planner    initialized planner for the map
+     * @param testPaths  start and target of each query
+     * @param islandOnly whether island only navigation is requested
+     * @return total expanded points per pathfinding mode, in the order of PathfindingMode.values()
+     */
+    private int[] runBenchmark(String name, MovementPlanner planner, Point[][] testPaths, boolean islandOnly) {
+        PathfindingMode[] modes = PathfindingMode.values();
+        int[] expansions = new int[modes.length];
+        long[] times = new long[modes.length];
+        //the abstract graph is built ahead, like initializePlanner does in hierarchical mode, and not timed
+        planner.buildHierarchicalGraph();
+        try {
+            for (Point[] testPath : testPaths) {
+                int breadthFirstSize = -1;
+                for (int i = 0; i < modes.length; i++) {
+                    ArrayList<Point> resultList = null;
+                    long startTime = System.nanoTime();
+                    for (int run = 0; run < RUNS; run++) {
+                        resultList = planner.findPath(testPath[0], testPath[1], islandOnly, modes[i]);
+                    }
+                    times[i] += System.nanoTime() - startTime;
+                    expansions[i] += planner.getLastExpansionCount();
+                    if (modes[i] == PathfindingMode.BreadthFirst) {
+                        breadthFirstSize = resultList.size();
+                    } else if (resultList.size() < breadthFirstSize) {
+                        fail(modes[i] + " found a path shorter than the breadth first search");
+                    }
+                    //on open maps the shortest path is the same for every mode, hierarchical paths are only close
+                    if (!islandOnly && (modes[i] != PathfindingMode.Hierarchical)) {
+                        assertEquals(breadthFirstSize, resultList.size(), modes[i] + " path length differs");
+                    }
+                }
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+            fail("Pathfinding threw an exception");
+        }
+        for (int i = 0; i < modes.length; i++) {
+            System.out.println(name + " " + modes[i] + ": " + expansions[i] + " points expanded, "
+                    + (times[i] / (RUNS * testPaths.length * 1000)) + "us per path");
+        }
+        return expansions;
+    }
+
+    @Test
+    void testInitializationScaling() {
+        //large map of islands in a grid pattern, initialized with more and more threads
+        int testGridSize = 1024;
+        Grid testGrid = new Grid(testGridSize, testGridSize);
+        for (int x = 0; x < testGridSize; x++) {
+            for (int y = 0; y < testGridSize; y++) {
+                if (((x % 64) < 40) && ((y % 64) < 40)) {
+                    testGrid.setPointType(new Point(x, y), GridPointType.Ground);
+                } else if (((x + y) % 97) == 0) {
+                    testGrid.setPointType(new Point(x, y), GridPointType.Obstacle);
+                }
+            }
+        }
+
+        int processors = Runtime.getRuntime().availableProcessors();
+        int areaCount = -1;
+        int adjacentCount = -1;
+        for (int threads = 1; (threads == 1) || (threads <= processors); threads *= 2) {
+            MovementPlanner planner = new MovementPlanner();
+            planner.setInitializationThreads(threads);
+            long startTime = System.nanoTime();
+            planner.initializePlanner(testGrid);
+            long time = System.nanoTime() - startTime;
+            System.out.println("initialization 1024x1024 with " + threads + " of " + processors + " processors: "
+                    + (time / 1000000) + "ms");
+            if (areaCount == -1) {
+                areaCount = planner.getLivingAreaCount();
+                adjacentCount = planner.getTotalAdjacentCount();
+            }
+            assertEquals(areaCount, planner.getLivingAreaCount());
+            assertEquals(adjacentCount, planner.getTotalAdjacentCount());
+        }
+        assertEquals(16 * 16 + 1, areaCount);
+    }
+}
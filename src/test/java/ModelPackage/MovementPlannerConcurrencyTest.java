@@ -0,0 +1,102 @@
+package ModelPackage;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Runs many path queries at the same time on one shared MovementPlanner and checks every path against the one
+ * found when the same query runs alone.
+ */
+class MovementPlannerConcurrencyTest {
+
+    private static final int QUERY_COUNT = 100;
+    private static final int ROUNDS = 4;
+
+    @Test
+    void testParallelQueries() throws Exception {
+        int testGridWidth = 120;
+        int testGridHeight = 120;
+        Random random = new Random(42);
+        Grid testGrid = new Grid(testGridWidth, testGridHeight);
+        for (int island = 0; island < 30; island++) {
+            int centerX = random.nextInt(testGridWidth);
+            int centerY = random.nextInt(testGridHeight);
+            int radius = 3 + random.nextInt(10);
+            for (int x = -radius; x <= radius; x++) {
+                for (int y = -radius; y <= radius; y++) {
+                    if ((x * x) + (y * y) <= radius * radius) {
+                        Point point = new Point((centerX + x + testGridWidth) % testGridWidth, (centerY + y + testGridHeight) % testGridHeight);
+                        testGrid.setPointType(point, (random.nextInt(8) == 0) ? GridPointType.Obstacle : GridPointType.Ground);
+                    }
+                }
+            }
+        }
+
+        MovementPlanner planner = new MovementPlanner();
+        planner.initializePlanner(testGrid);
+
+        //expected results, one query at a time
+        List<Point[]> queries = new ArrayList<>();
+        List<Boolean> islandOnly = new ArrayList<>();
+        PathfindingMode[] modes = PathfindingMode.values();
+        int[][] expectedSizes = new int[QUERY_COUNT][modes.length];
+        while (queries.size() < QUERY_COUNT) {
+            Point start = new Point(random.nextInt(testGridWidth), random.nextInt(testGridHeight));
+            Point target = new Point(random.nextInt(testGridWidth), random.nextInt(testGridHeight));
+            if ((testGrid.getPointType(start) == GridPointType.Obstacle) || start.equals(target)) {
+                continue;
+            }
+            int query = queries.size();
+            queries.add(new Point[]{start, target});
+            islandOnly.add(random.nextBoolean());
+            for (int mode = 0; mode < modes.length; mode++) {
+                ArrayList<Point> path = planner.findPath(start, target, islandOnly.get(query), modes[mode]);
+                expectedSizes[query][mode] = (path == null) ? -1 : path.size();
+            }
+        }
+
+        ConcurrentLinkedQueue<String> failures = new ConcurrentLinkedQueue<>();
+        ForkJoinPool pool = new ForkJoinPool(8);
+        for (int round = 0; round < ROUNDS; round++) {
+            for (int query = 0; query < QUERY_COUNT; query++) {
+                for (int mode = 0; mode < modes.length; mode++) {
+                    int queryNumber = query;
+                    int modeNumber = mode;
+                    pool.execute(() -> {
+                        Point[] points = queries.get(queryNumber);
+                        try {
+                            ArrayList<Point> path = planner.findPath(points[0], points[1], islandOnly.get(queryNumber), modes[modeNumber]);
+                            int size = (path == null) ? -1 : path.size();
+                            if (size != expectedSizes[queryNumber][modeNumber]) {
+                                failures.add(modes[modeNumber] + " from " + points[0] + " to " + points[1] + ": " + size + " points, expected " + expectedSizes[queryNumber][modeNumber]);
+                            } else if ((path != null) && !path.get(0).equals(points[1])) {
+                                failures.add(modes[modeNumber] + " from " + points[0] + " to " + points[1] + " ends at " + path.get(0));
+                            }
+                        } catch (Exception e) {
+                            failures.add(modes[modeNumber] + " from " + points[0] + " to " + points[1] + " threw " + e);
+                        }
+                    });
+                }
+            }
+        }
+        pool.shutdown();
+        if (!pool.awaitTermination(5, TimeUnit.MINUTES)) {
+            fail("Parallel queries did not finish");
+        }
+
+        for (String failure : failures) {
+            System.out.println(failure);
+        }
+        assertEquals(0, failures.size(), "Paths found in parallel differ from the ones found alone");
+    }
+}
@@ -3,7 +3,12 @@ package ModelPackage;
 import org.junit.jupiter.api.Test;
 
 import java.awt.*;
+import java.io.File;
+import java.nio.file.Files;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.fail;
@@ -571,4 +576,756 @@ class MovementPlannerTest {
         }
         System.out.println("TP11 completed");
     }
-}
\ No newline at end of file
+
+    @Test
+    void testAStarMatchesBreadthFirst() {
+        int testGridWidth = 20;
+        int testGridHeight = 20;
+        Grid testGrid = new Grid(testGridWidth, testGridHeight);
+
+        //island with a wall, forcing a detour on land
+        for (int x = 2; x < 12; x++) {
+            for (int y = 2; y < 12; y++) {
+                testGrid.setPointType(new Point(x, y), GridPointType.Ground);
+            }
+        }
+        for (int y = 2; y < 10; y++) {
+            testGrid.setPointType(new Point(7, y), GridPointType.Obstacle);
+        }
+        //second island, only reachable by swimming
+        for (int x = 15; x < 18; x++) {
+            for (int y = 15; y < 18; y++) {
+                testGrid.setPointType(new Point(x, y), GridPointType.Ground);
+            }
+        }
+
+        MovementPlanner planner = new MovementPlanner();
+        planner.initializePlanner(testGrid);
+
+        Point[][] testPaths = {
+                {new Point(3, 3), new Point(10, 3)},
+                {new Point(10, 3), new Point(3, 3)},
+                {new Point(3, 3), new Point(16, 16)},
+                {new Point(16, 16), new Point(3, 3)},
+                {new Point(0, 0), new Point(19, 19)},
+                {new Point(3, 10), new Point(11, 2)}
+        };
+        try {
+            for (Point[] testPath : testPaths) {
+                for (boolean islandOnly : new boolean[]{true, false}) {
+                    ArrayList<Point> breadthFirst = planner.findPath(testPath[0], testPath[1], islandOnly, PathfindingMode.BreadthFirst);
+                    ArrayList<Point> aStar = planner.findPath(testPath[0], testPath[1], islandOnly, PathfindingMode.AStar);
+                    assertEquals(breadthFirst.size(), aStar.size(), "A* path length differs from " + testPath[0] + " to " + testPath[1]);
+                }
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+            fail("Pathfinding threw an exception");
+        }
+    }
+
+    @Test
+    void testAStarExpandsLess() {
+        int testGridWidth = 200;
+        int testGridHeight = 200;
+        MovementPlanner planner = new MovementPlanner();
+        planner.initializePlanner(new Grid(testGridWidth, testGridHeight));
+
+        ArrayList<Point> breadthFirst = null;
+        ArrayList<Point> aStar = null;
+        int breadthFirstExpansions = 0;
+        int aStarExpansions = 0;
+        try {
+            breadthFirst = planner.findPath(new Point(100, 100), new Point(130, 110), false, PathfindingMode.BreadthFirst);
+            breadthFirstExpansions = planner.getLastExpansionCount();
+            aStar = planner.findPath(new Point(100, 100), new Point(130, 110), false, PathfindingMode.AStar);
+            aStarExpansions = planner.getLastExpansionCount();
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+        System.out.println("Expanded points, breadth first: " + breadthFirstExpansions + ", A*: " + aStarExpansions);
+        assertEquals(31, breadthFirst.size());
+        assertEquals(31, aStar.size());
+        if (aStarExpansions * 10 > breadthFirstExpansions) {
+            fail("A* expanded " + aStarExpansions + " points, breadth first " + breadthFirstExpansions);
+        }
+    }
+
+    @Test
+    void testHierarchicalPath() {
+        int testGridWidth = 100;
+        int testGridHeight = 100;
+        Grid testGrid = new Grid(testGridWidth, testGridHeight);
+
+        //island with a wall through most of it
+        for (int x = 10; x < 70; x++) {
+            for (int y = 10; y < 70; y++) {
+                testGrid.setPointType(new Point(x, y), GridPointType.Ground);
+            }
+        }
+        for (int y = 10; y < 60; y++) {
+            testGrid.setPointType(new Point(40, y), GridPointType.Obstacle);
+        }
+
+        MovementPlanner planner = new MovementPlanner();
+        planner.initializePlanner(testGrid);
+
+        Point[][] testPaths = {
+                {new Point(15, 15), new Point(65, 15)},
+                {new Point(65, 15), new Point(15, 15)},
+                {new Point(15, 15), new Point(90, 90)},
+                {new Point(5, 50), new Point(95, 52)}
+        };
+        try {
+            for (Point[] testPath : testPaths) {
+                ArrayList<Point> aStar = planner.findPath(testPath[0], testPath[1], true, PathfindingMode.AStar);
+                ArrayList<Point> hierarchical = planner.findPath(testPath[0], testPath[1], true, PathfindingMode.Hierarchical);
+                System.out.println("Path from " + testPath[0] + " to " + testPath[1] + ", A*: " + aStar.size() + ", hierarchical: " + hierarchical.size());
+                assertEquals(testPath[1], hierarchical.get(0));
+                assertEquals(testPath[0], hierarchical.get(hierarchical.size() - 1));
+                for (int i = 1; i < hierarchical.size(); i++) {
+                    Point from = hierarchical.get(i - 1);
+                    Point to = hierarchical.get(i);
+                    int dx = Math.abs(from.x - to.x);
+                    int dy = Math.abs(from.y - to.y);
+                    if ((Math.min(dx, testGridWidth - dx) > 1) || (Math.min(dy, testGridHeight - dy) > 1)) {
+                        fail("Hierarchical path jumps from " + from + " to " + to);
+                    }
+                    if (testGrid.getPointType(to) == GridPointType.Obstacle) {
+                        fail("Hierarchical path crosses obstacle at " + to);
+                    }
+                }
+                //both points on the island, so the path has to stay on it
+                if ((testGrid.getPointType(testPath[0]) == GridPointType.Ground) && (testGrid.getPointType(testPath[1]) == GridPointType.Ground)) {
+                    for (Point point : hierarchical) {
+                        assertEquals(GridPointType.Ground, testGrid.getPointType(point), "Hierarchical path left the island");
+                    }
+                }
+                if (hierarchical.size() * 10 > aStar.size() * 12) {
+                    fail("Hierarchical path of " + hierarchical.size() + " points is too long, A* found " + aStar.size());
+                }
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+            fail("Pathfinding threw an exception");
+        }
+    }
+
+    @Test
+    void testHierarchicalShortPathDetours() throws Exception {
+        int testGridSize = 120;
+        Random random = new Random(5);
+        Grid testGrid = new Grid(testGridSize, testGridSize);
+        for (int i = 0; i < 4; i++) {
+            int centerX = random.nextInt(testGridSize);
+            int centerY = random.nextInt(testGridSize);
+            for (int x = -25; x <= 25; x++) {
+                for (int y = -25; y <= 25; y++) {
+                    if ((x * x) + (y * y) <= 625) {
+                        testGrid.setPointType(new Point(Math.floorMod(centerX + x, testGridSize), Math.floorMod(centerY + y, testGridSize)), GridPointType.Ground);
+                    }
+                }
+            }
+        }
+        for (int i = 0; i < 1500; i++) {
+            testGrid.setPointType(new Point(random.nextInt(testGridSize), random.nextInt(testGridSize)), GridPointType.Obstacle);
+        }
+        MovementPlanner planner = new MovementPlanner();
+        planner.setPathfindingMode(PathfindingMode.Hierarchical);
+        planner.initializePlanner(testGrid);
+
+        //past a cluster and within four, where the detours through the cluster entrances weigh the most
+        int queryCount = 0;
+        int totalAStarSteps = 0;
+        int totalHierarchicalSteps = 0;
+        while (queryCount < 200) {
+            Point start = new Point(random.nextInt(testGridSize), random.nextInt(testGridSize));
+            Point target = new Point(Math.floorMod(start.x + random.nextInt(129) - 64, testGridSize),
+                    Math.floorMod(start.y + random.nextInt(129) - 64, testGridSize));
+            boolean islandOnly = random.nextBoolean();
+            ArrayList<Point> aStar = planner.findPath(start, target, islandOnly, PathfindingMode.AStar);
+            if ((aStar == null) || (aStar.size() <= HierarchicalPlanner.CLUSTER_SIZE + 1)) {
+                continue;
+            }
+            ArrayList<Point> hierarchical = planner.findPath(start, target, islandOnly, PathfindingMode.Hierarchical);
+            if ((hierarchical.size() - 1) * 4 > (aStar.size() - 1) * 5) {
+                fail("Hierarchical path from " + start + " to " + target + " takes " + (hierarchical.size() - 1)
+                        + " steps, A* takes " + (aStar.size() - 1));
+            }
+            totalAStarSteps += aStar.size() - 1;
+            totalHierarchicalSteps += hierarchical.size() - 1;
+            queryCount++;
+        }
+        System.out.println("Short paths: hierarchical " + totalHierarchicalSteps + " steps, A* " + totalAStarSteps);
+        if (totalHierarchicalSteps * 100 > totalAStarSteps * 103) {
+            fail("Hierarchical paths are " + totalHierarchicalSteps + " steps, A* paths " + totalAStarSteps);
+        }
+    }
+
+    @Test
+    void testLivingAreaLabels() {
+        int testGridWidth = 20;
+        int testGridHeight = 10;
+        Grid testGrid = new Grid(testGridWidth, testGridHeight);
+
+        //island across the left and right edge of the grid
+        for (int y = 2; y < 5; y++) {
+            testGrid.setPointType(new Point(0, y), GridPointType.Ground);
+            testGrid.setPointType(new Point(19, y), GridPointType.Ground);
+        }
+        //two islands only touching diagonally, which makes them one area
+        testGrid.setPointType(new Point(5, 5), GridPointType.Ground);
+        testGrid.setPointType(new Point(6, 6), GridPointType.Ground);
+        //island cut in two by an obstacle
+        testGrid.setPointType(new Point(10, 1), GridPointType.Ground);
+        testGrid.setPointType(new Point(11, 1), GridPointType.Obstacle);
+        testGrid.setPointType(new Point(12, 1), GridPointType.Ground);
+
+        MovementPlanner planner = new MovementPlanner();
+        planner.initializePlanner(testGrid);
+
+        assertEquals(5, planner.getLivingAreaCount());
+        assertEquals(testGridWidth * testGridHeight - 11, planner.getLivingAreaSize(0));
+        assertEquals(0, planner.getLivingAreaId(new Point(3, 3)));
+        assertEquals(-1, planner.getLivingAreaId(new Point(11, 1)));
+        assertEquals(planner.getLivingAreaId(new Point(0, 2)), planner.getLivingAreaId(new Point(19, 4)));
+        assertEquals(6, planner.getLivingAreaSize(planner.getLivingAreaId(new Point(0, 3))));
+        assertEquals(planner.getLivingAreaId(new Point(5, 5)), planner.getLivingAreaId(new Point(6, 6)));
+        if (planner.getLivingAreaId(new Point(10, 1)) == planner.getLivingAreaId(new Point(12, 1))) {
+            fail("Islands separated by an obstacle share an area");
+        }
+
+        //areas are numbered in the order their first point appears in the grid
+        assertEquals(1, planner.getLivingAreaId(new Point(10, 1)));
+        assertEquals(2, planner.getLivingAreaId(new Point(12, 1)));
+        assertEquals(3, planner.getLivingAreaId(new Point(0, 2)));
+        assertEquals(4, planner.getLivingAreaId(new Point(5, 5)));
+        for (int area = 0; area < planner.getLivingAreaCount(); area++) {
+            for (int i = 0; i < planner.getLivingAreaSize(area); i++) {
+                assertEquals(area, planner.getLivingAreaId(planner.getLivingAreaPoint(area, i)));
+            }
+        }
+    }
+
+    @Test
+    void testTraceRecorder() throws Exception {
+        int testGridWidth = 20;
+        int testGridHeight = 20;
+        MovementPlanner planner = new MovementPlanner();
+        planner.initializePlanner(new Grid(testGridWidth, testGridHeight));
+
+        File outputDirectory = Files.createTempDirectory("trace").toFile();
+        PathTraceRecorder recorder = new PathTraceRecorder(3, outputDirectory);
+        recorder.setCellSize(4);
+        planner.setTraceRecorder(recorder);
+
+        //nothing is recorded without a sample interval or filter
+        planner.findPath(new Point(2, 2), new Point(12, 8), false);
+        assertEquals(true, recorder.awaitWritten(10000));
+        assertEquals(0, recorder.getWrittenImageCount());
+
+        //only the query accepted by the filter is recorded, keeping the last frames and the path found
+        recorder.setFilter((startPoint, targetPoint, mode) -> targetPoint.equals(new Point(12, 8)));
+        planner.findPath(new Point(2, 2), new Point(15, 15), false);
+        planner.findPath(new Point(2, 2), new Point(12, 8), false);
+        assertEquals(true, recorder.awaitWritten(10000));
+        assertEquals(3, recorder.getWrittenImageCount());
+        String[] images = outputDirectory.list();
+        assertEquals(3, images.length);
+        for (String image : images) {
+            new File(outputDirectory, image).delete();
+        }
+        outputDirectory.delete();
+    }
+
+    @Test
+    void testNearestTarget() {
+        int testGridWidth = 30;
+        int testGridHeight = 30;
+        Grid testGrid = new Grid(testGridWidth, testGridHeight);
+        //island with the searcher on it, a wall across the whole grid leaves a gap at y = 14
+        for (int x = 2; x < 15; x++) {
+            for (int y = 2; y < 15; y++) {
+                testGrid.setPointType(new Point(x, y), GridPointType.Ground);
+            }
+        }
+        for (int y = 0; y < testGridHeight; y++) {
+            if (y != 14) {
+                testGrid.setPointType(new Point(8, y), GridPointType.Obstacle);
+            }
+        }
+        //second island, close by over the water across the left edge
+        testGrid.setPointType(new Point(28, 5), GridPointType.Ground);
+
+        MovementPlanner planner = new MovementPlanner();
+        planner.initializePlanner(testGrid);
+        boolean[] targets = new boolean[testGridWidth * testGridHeight];
+        targets[5 * testGridWidth + 10] = true;
+        targets[5 * testGridWidth + 28] = true;
+        ITargetFilter filter = (x, y) -> targets[y * testGridWidth + x];
+
+        //over the water the other island is nearest, the target behind the wall needs a detour
+        ArrayList<Point> path = planner.findNearestTarget(new Point(6, 5), filter, false, 0);
+        assertEquals(new Point(28, 5), path.get(0));
+        assertEquals(9, path.size());
+
+        //on the island only the target behind the wall counts
+        path = planner.findNearestTarget(new Point(6, 5), filter, true, 0);
+        assertEquals(new Point(10, 5), path.get(0));
+        assertEquals(new Point(6, 5), path.get(path.size() - 1));
+        try {
+            assertEquals(planner.findPath(new Point(6, 5), new Point(10, 5), true).size(), path.size());
+        } catch (Exception e) {
+            e.printStackTrace();
+            fail("Pathfinding threw an exception");
+        }
+
+        //nothing within reach
+        if (planner.findNearestTarget(new Point(6, 5), filter, true, 5) != null) {
+            fail("Target found beyond the maximum distance");
+        }
+        targets[5 * testGridWidth + 10] = false;
+        if (planner.findNearestTarget(new Point(6, 5), filter, true, 0) != null) {
+            fail("Target found outside the living area");
+        }
+    }
+
+    @Test
+    void testPathCache() throws Exception {
+        int testGridWidth = 20;
+        int testGridHeight = 20;
+        Grid testGrid = new Grid(testGridWidth, testGridHeight);
+        MovementPlanner planner = new MovementPlanner();
+        planner.initializePlanner(testGrid);
+        PathCache cache = new PathCache(2, 1000);
+        planner.setPathCache(cache);
+
+        ArrayList<Point> first = planner.findPath(new Point(2, 2), new Point(12, 8), false);
+        ArrayList<Point> second = planner.findPath(new Point(2, 2), new Point(12, 8), false);
+        assertEquals(first, second);
+        assertEquals(1, cache.getMissCount());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(first.size(), cache.getStoredPointCount());
+
+        //the island flag and the mode are part of the key
+        planner.findPath(new Point(2, 2), new Point(12, 8), true);
+        planner.findPath(new Point(2, 2), new Point(12, 8), false, PathfindingMode.AStar);
+        assertEquals(3, cache.getMissCount());
+        assertEquals(2, cache.getSize());
+        assertEquals(1, cache.getEvictionCount());
+
+        //the least recently used path was dropped
+        planner.findPath(new Point(2, 2), new Point(12, 8), false);
+        assertEquals(4, cache.getMissCount());
+
+        //the planner sees a terrain edit once it is initialized again, which drops everything
+        planner.findPath(new Point(2, 2), new Point(12, 8), false);
+        assertEquals(2, cache.getHitCount());
+        testGrid.setPointType(new Point(15, 15), GridPointType.Obstacle);
+        planner.findPath(new Point(2, 2), new Point(12, 8), false);
+        assertEquals(3, cache.getHitCount());
+        planner.initializePlanner(testGrid);
+        planner.findPath(new Point(2, 2), new Point(12, 8), false);
+        assertEquals(5, cache.getMissCount());
+        assertEquals(1, cache.getSize());
+        assertEquals(2, cache.getEvictionCount());
+    }
+
+    @Test
+    void testBatchPaths() throws Exception {
+        int testGridWidth = 40;
+        int testGridHeight = 40;
+        Random random = new Random(3);
+        Grid testGrid = new Grid(testGridWidth, testGridHeight);
+        for (int i = 0; i < 600; i++) {
+            testGrid.setPointType(new Point(random.nextInt(testGridWidth), random.nextInt(testGridHeight)),
+                    (i % 4 == 0) ? GridPointType.Obstacle : GridPointType.Ground);
+        }
+        MovementPlanner planner = new MovementPlanner();
+        planner.initializePlanner(testGrid);
+
+        //a few shared startpoints and targets among random queries
+        Point[] shared = new Point[4];
+        for (int i = 0; i < shared.length; i++) {
+            do {
+                shared[i] = new Point(random.nextInt(testGridWidth), random.nextInt(testGridHeight));
+            } while (testGrid.getPointType(shared[i]) == GridPointType.Obstacle);
+        }
+        List<PathQuery> queries = new ArrayList<>();
+        while (queries.size() < 60) {
+            Point start = new Point(random.nextInt(testGridWidth), random.nextInt(testGridHeight));
+            Point target = new Point(random.nextInt(testGridWidth), random.nextInt(testGridHeight));
+            if (random.nextInt(3) == 0) {
+                start = shared[random.nextInt(shared.length)];
+            } else if (random.nextInt(2) == 0) {
+                target = shared[random.nextInt(shared.length)];
+            }
+            if (testGrid.getPointType(start) != GridPointType.Obstacle) {
+                queries.add(new PathQuery(start, target, random.nextInt(4) == 0));
+            }
+        }
+
+        int singleExpansions = 0;
+        List<ArrayList<Point>> expected = new ArrayList<>();
+        for (PathQuery query : queries) {
+            expected.add(planner.findPath(query.getStartPoint(), query.getTargetPoint(), query.getUseIslandOnlyNavigation(), PathfindingMode.BreadthFirst));
+            singleExpansions += planner.getLastExpansionCount();
+        }
+        List<ArrayList<Point>> results = planner.findPaths(queries);
+        System.out.println("Batch expansions " + planner.getLastExpansionCount() + ", single " + singleExpansions);
+        if (planner.getLastExpansionCount() >= singleExpansions) {
+            fail("Batch did not share any expansions");
+        }
+
+        assertEquals(queries.size(), results.size());
+        for (int i = 0; i < queries.size(); i++) {
+            if (expected.get(i) == null) {
+                assertEquals(null, results.get(i), "Query " + i);
+                continue;
+            }
+            ArrayList<Point> path = results.get(i);
+            assertEquals(expected.get(i).size(), path.size(), "Query " + i);
+            assertEquals(queries.get(i).getTargetPoint(), path.get(0));
+            assertEquals(queries.get(i).getStartPoint(), path.get(path.size() - 1));
+            for (int j = 1; j < path.size(); j++) {
+                int dx = Math.abs(path.get(j).x - path.get(j - 1).x);
+                int dy = Math.abs(path.get(j).y - path.get(j - 1).y);
+                if ((Math.min(dx, testGridWidth - dx) > 1) || (Math.min(dy, testGridHeight - dy) > 1)) {
+                    fail("Query " + i + " jumps from " + path.get(j - 1) + " to " + path.get(j));
+                }
+            }
+        }
+    }
+
+    @Test
+    void testSearchBudget() {
+        int testGridWidth = 60;
+        int testGridHeight = 60;
+        Grid testGrid = new Grid(testGridWidth, testGridHeight);
+        //target walled in by obstacles, so an unlimited search floods the whole grid
+        for (int x = 39; x <= 41; x++) {
+            for (int y = 39; y <= 41; y++) {
+                if ((x != 40) || (y != 40)) {
+                    testGrid.setPointType(new Point(x, y), GridPointType.Obstacle);
+                }
+            }
+        }
+        MovementPlanner planner = new MovementPlanner();
+        planner.initializePlanner(testGrid);
+        Point start = new Point(10, 10);
+        Point target = new Point(40, 40);
+
+        for (PathfindingMode mode : new PathfindingMode[]{PathfindingMode.BreadthFirst, PathfindingMode.AStar}) {
+            PathResult result = planner.findPath(start, target, false, mode, null);
+            assertEquals(PathOutcome.Unreachable, result.getOutcome());
+            assertEquals(testGridWidth * testGridHeight - 9, result.getExpansionCount());
+
+            //the budget stops the search and leads towards the target
+            result = planner.findPath(start, target, false, mode, new SearchBudget(100, 0, true));
+            assertEquals(PathOutcome.Partial, result.getOutcome());
+            assertEquals(100, result.getExpansionCount());
+            ArrayList<Point> path = result.getPath();
+            assertEquals(start, path.get(path.size() - 1));
+            int dx = Math.abs(path.get(0).x - 40);
+            int dy = Math.abs(path.get(0).y - 40);
+            if (Math.max(Math.min(dx, testGridWidth - dx), Math.min(dy, testGridHeight - dy)) >= 30) {
+                fail(mode + " partial path does not get closer to the target: " + path.get(0));
+            }
+
+            result = planner.findPath(start, target, false, mode, new SearchBudget(100, 0, false));
+            assertEquals(PathOutcome.BudgetExceeded, result.getOutcome());
+            assertEquals(null, result.getPath());
+
+            //a radius limits the length of the path
+            result = planner.findPath(start, new Point(30, 20), false, mode, new SearchBudget(0, 10, true));
+            assertEquals(PathOutcome.Partial, result.getOutcome());
+            assertEquals(11, result.getPath().size());
+            result = planner.findPath(start, new Point(30, 20), false, mode, new SearchBudget(0, 20, true));
+            assertEquals(PathOutcome.Found, result.getOutcome());
+            assertEquals(21, result.getPath().size());
+        }
+    }
+
+    @Test
+    void testWeightedPath() {
+        int testGridWidth = 30;
+        int testGridHeight = 30;
+        Random random = new Random(5);
+        Grid testGrid = new Grid(testGridWidth, testGridHeight);
+        for (int x = 0; x < testGridWidth; x++) {
+            for (int y = 0; y < testGridHeight; y++) {
+                int dice = random.nextInt(10);
+                if (dice < 6) {
+                    testGrid.setPointType(new Point(x, y), GridPointType.Ground);
+                } else if (dice < 7) {
+                    testGrid.setPointType(new Point(x, y), GridPointType.Obstacle);
+                }
+            }
+        }
+        MovementPlanner planner = new MovementPlanner();
+        planner.initializePlanner(testGrid);
+        MovementCostProfile profile = new MovementCostProfile(2, 7);
+
+        int queries = 0;
+        while (queries < 40) {
+            Point start = new Point(random.nextInt(testGridWidth), random.nextInt(testGridHeight));
+            Point target = new Point(random.nextInt(testGridWidth), random.nextInt(testGridHeight));
+            if ((testGrid.getPointType(start) == GridPointType.Obstacle) || (testGrid.getPointType(target) == GridPointType.Obstacle) || start.equals(target)) {
+                continue;
+            }
+            queries++;
+            int[] cheapest = getCheapestCosts(testGrid, start, profile);
+            ArrayList<Point> path = planner.findWeightedPath(start, target, false, profile);
+            int expected = cheapest[(target.y * testGridWidth) + target.x];
+            if (expected == Integer.MAX_VALUE) {
+                assertEquals(null, path);
+                continue;
+            }
+            assertEquals(target, path.get(0));
+            assertEquals(start, path.get(path.size() - 1));
+            assertEquals(expected, getPathCost(testGrid, path, profile), "Cost of the path from " + start + " to " + target);
+
+            //with uniform costs the weighted search finds the shortest path in steps
+            try {
+                ArrayList<Point> uniformPath = planner.findWeightedPath(start, target, false, MovementCostProfile.UNIFORM);
+                assertEquals(planner.findPath(start, target, false, PathfindingMode.BreadthFirst).size(), uniformPath.size());
+            } catch (Exception e) {
+                fail("Breadth first search threw " + e);
+            }
+
+            //the cheapest food is found, which need not be the nearest
+            ITargetFilter filter = (x, y) -> ((x * 7) + (y * 13)) % 31 == 0;
+            int cheapestFood = Integer.MAX_VALUE;
+            for (int point = 0; point < cheapest.length; point++) {
+                if ((point != (start.y * testGridWidth) + start.x) && filter.isTarget(point % testGridWidth, point / testGridWidth)) {
+                    cheapestFood = Math.min(cheapestFood, cheapest[point]);
+                }
+            }
+            path = planner.findNearestTarget(start, filter, false, 0, profile);
+            assertEquals(cheapestFood, getPathCost(testGrid, path, profile), "Cost of the food found from " + start);
+        }
+    }
+
+    /**
+     * Gets the least cost to reach every point of a grid by relaxing all steps until nothing changes
+     */
+    private int[] getCheapestCosts(Grid testGrid, Point start, MovementCostProfile profile) {
+        int width = testGrid.getWidth();
+        int height = testGrid.getHeight();
+        int[] costs = new int[width * height];
+        java.util.Arrays.fill(costs, Integer.MAX_VALUE);
+        costs[(start.y * width) + start.x] = 0;
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int point = 0; point < costs.length; point++) {
+                Point from = new Point(point % width, point / width);
+                if ((costs[point] == Integer.MAX_VALUE) || (testGrid.getPointType(from) == GridPointType.Obstacle)) {
+                    continue;
+                }
+                int cost = costs[point] + ((testGrid.getPointType(from) == GridPointType.Water) ? profile.getWaterStepCost() : profile.getGroundStepCost());
+                for (int dx = -1; dx <= 1; dx++) {
+                    for (int dy = -1; dy <= 1; dy++) {
+                        Point to = new Point((from.x + dx + width) % width, (from.y + dy + height) % height);
+                        int next = (to.y * width) + to.x;
+                        if ((testGrid.getPointType(to) != GridPointType.Obstacle) && (cost < costs[next])) {
+                            costs[next] = cost;
+                            changed = true;
+                        }
+                    }
+                }
+            }
+        }
+        return costs;
+    }
+
+    /**
+     * Gets the cost of a path given target first, charging every step for the point it leaves
+     */
+    private int getPathCost(Grid testGrid, ArrayList<Point> path, MovementCostProfile profile) {
+        int cost = 0;
+        for (int i = 1; i < path.size(); i++) {
+            cost += (testGrid.getPointType(path.get(i)) == GridPointType.Water) ? profile.getWaterStepCost() : profile.getGroundStepCost();
+        }
+        return cost;
+    }
+
+    @Test
+    void testPortalRouting() throws Exception {
+        //islands of 10x10 every 20 points, in water with obstacles
+        int testGridSize = 160;
+        Random random = new Random(3);
+        Grid testGrid = new Grid(testGridSize, testGridSize);
+        ArrayList<Point> islandPoints = new ArrayList<>();
+        for (int x = 0; x < testGridSize; x++) {
+            for (int y = 0; y < testGridSize; y++) {
+                if (((x % 20) < 10) && ((y % 20) < 10)) {
+                    testGrid.setPointType(new Point(x, y), GridPointType.Ground);
+                    islandPoints.add(new Point(x, y));
+                } else if (random.nextInt(10) < 3) {
+                    testGrid.setPointType(new Point(x, y), GridPointType.Obstacle);
+                }
+            }
+        }
+        MovementPlanner planner = new MovementPlanner();
+        planner.initializePlanner(testGrid);
+
+        int expansions = 0;
+        int portalExpansions = 0;
+        for (int query = 0; query < 40; query++) {
+            Point start = islandPoints.get(random.nextInt(islandPoints.size()));
+            Point target = islandPoints.get(random.nextInt(islandPoints.size()));
+            if (planner.getLivingAreaId(start) == planner.getLivingAreaId(target)) {
+                continue;
+            }
+            boolean islandOnly = random.nextBoolean();
+            planner.setPortalRoutingEnabled(false);
+            ArrayList<Point> shortest = planner.findPath(start, target, islandOnly);
+            expansions += planner.getLastExpansionCount();
+            planner.setPortalRoutingEnabled(true);
+            ArrayList<Point> path = planner.findPath(start, target, islandOnly);
+            portalExpansions += planner.getLastExpansionCount();
+            if (shortest == null) {
+                assertEquals(null, path);
+                continue;
+            }
+
+            assertEquals(target, path.get(0));
+            assertEquals(start, path.get(path.size() - 1));
+            for (int i = 1; i < path.size(); i++) {
+                int dx = Math.abs(path.get(i).x - path.get(i - 1).x);
+                int dy = Math.abs(path.get(i).y - path.get(i - 1).y);
+                if ((Math.min(dx, testGridSize - dx) > 1) || (Math.min(dy, testGridSize - dy) > 1) || ((dx == 0) && (dy == 0))) {
+                    fail("Path jumps from " + path.get(i - 1) + " to " + path.get(i));
+                }
+                if (testGrid.getPointType(path.get(i)) == GridPointType.Obstacle) {
+                    fail("Path crosses an obstacle at " + path.get(i));
+                }
+            }
+            if (path.size() > (shortest.size() * 5 / 4) + 4) {
+                fail("Portal path from " + start + " to " + target + " has " + path.size() + " points, the shortest " + shortest.size());
+            }
+        }
+        System.out.println("Portal routing expanded " + portalExpansions + " points, searching the grid " + expansions);
+        if (portalExpansions * 10 > expansions) {
+            fail("Portal routing expanded " + portalExpansions + " points, searching the grid " + expansions);
+        }
+    }
+
+    @Test
+    void testParallelInitialization() throws Exception {
+        //random islands, obstacles and a few rows so strips have to be joined over their borders and the wrap
+        int testGridWidth = 97;
+        int testGridHeight = 131;
+        Grid testGrid = new Grid(testGridWidth, testGridHeight);
+        Random random = new Random(20);
+        for (int x = 0; x < testGridWidth; x++) {
+            for (int y = 0; y < testGridHeight; y++) {
+                int type = random.nextInt(10);
+                if (type < 4) {
+                    testGrid.setPointType(new Point(x, y), GridPointType.Ground);
+                } else if (type == 4) {
+                    testGrid.setPointType(new Point(x, y), GridPointType.Obstacle);
+                }
+            }
+        }
+        for (int x = 0; x < testGridWidth; x++) {
+            testGrid.setPointType(new Point(x, 0), GridPointType.Ground);
+            testGrid.setPointType(new Point(x, testGridHeight - 1), GridPointType.Ground);
+        }
+
+        MovementPlanner planner = new MovementPlanner();
+        planner.setInitializationThreads(1);
+        planner.initializePlanner(testGrid);
+        MovementPlanner parallelPlanner = new MovementPlanner();
+        parallelPlanner.setInitializationThreads(4);
+        parallelPlanner.initializePlanner(testGrid);
+
+        System.out.println("Living areas: " + planner.getLivingAreaCount());
+        assertEquals(planner.getLivingAreaCount(), parallelPlanner.getLivingAreaCount());
+        assertEquals(planner.getTotalAdjacentCount(), parallelPlanner.getTotalAdjacentCount());
+        assertEquals(Arrays.toString(planner.getGraph().getAdjacentPoints()),
+                Arrays.toString(parallelPlanner.getGraph().getAdjacentPoints()));
+        assertEquals(Arrays.toString(planner.getGraph().getPointAreas()),
+                Arrays.toString(parallelPlanner.getGraph().getPointAreas()));
+        assertEquals(Arrays.toString(planner.getGraph().getAreaPoints()),
+                Arrays.toString(parallelPlanner.getGraph().getAreaPoints()));
+        //the rows at the top and the bottom edge wrap around into one area
+        assertEquals(planner.getLivingAreaId(new Point(0, 0)), planner.getLivingAreaId(new Point(50, testGridHeight - 1)));
+
+        for (int i = 0; i < 20; i++) {
+            Point start = new Point(random.nextInt(testGridWidth), random.nextInt(testGridHeight));
+            Point target = new Point(random.nextInt(testGridWidth), random.nextInt(testGridHeight));
+            assertEquals(planner.findPath(start, target, false), parallelPlanner.findPath(start, target, false));
+        }
+
+        try {
+            planner.setInitializationThreads(0);
+            fail("Expected an exception for 0 threads");
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
+        }
+    }
+
+    @Test
+    void testPlannerMetrics() throws Exception {
+        int testGridSize = 30;
+        Grid testGrid = new Grid(testGridSize, testGridSize);
+        //a wall around (20, 20) so it can not be reached
+        for (int x = 18; x < 23; x++) {
+            for (int y = 18; y < 23; y++) {
+                if ((x == 18) || (x == 22) || (y == 18) || (y == 22)) {
+                    testGrid.setPointType(new Point(x, y), GridPointType.Obstacle);
+                }
+            }
+        }
+        MovementPlanner planner = new MovementPlanner();
+        planner.initializePlanner(testGrid);
+        PlannerMetrics metrics = new PlannerMetrics();
+        planner.setMetrics(metrics);
+        planner.setPathfindingMode(PathfindingMode.AStar);
+
+        planner.findPath(new Point(0, 0), new Point(10, 0), false);
+        planner.findPath(new Point(0, 0), new Point(10, 5), false);
+        planner.findPath(new Point(3, 3), new Point(3, 3), false);
+        planner.findPath(new Point(0, 0), new Point(20, 20), false);
+        planner.findPath(new Point(0, 0), new Point(15, 0), false, PathfindingMode.AStar, new SearchBudget(5, 0, false));
+        planner.findPath(new Point(0, 0), new Point(10, 0), false, PathfindingMode.BreadthFirst);
+        planner.findNearestTarget(new Point(0, 0), (x, y) -> (x == 4) && (y == 4), false, 0);
+        planner.findPath(new Point(0, 0), new Point(10, 0), true);
+        planner.findPaths(List.of(new PathQuery(new Point(0, 0), new Point(0, 6), true)));
+        System.out.print(metrics.getSummary());
+
+        assertEquals(9, metrics.getQueryCount());
+        assertEquals(5, metrics.getQueryCount(PathfindingMode.AStar, false));
+        assertEquals(1, metrics.getTrivialCount(PathfindingMode.AStar, false));
+        assertEquals(2, metrics.getOutcomeCount(PathfindingMode.AStar, false, PathOutcome.Found));
+        assertEquals(1, metrics.getOutcomeCount(PathfindingMode.AStar, false, PathOutcome.Unreachable));
+        assertEquals(1, metrics.getOutcomeCount(PathfindingMode.AStar, false, PathOutcome.BudgetExceeded));
+        assertEquals(2, metrics.getOutcomeCount(PathfindingMode.BreadthFirst, false, PathOutcome.Found));
+        //island only queries are counted apart, batched ones as breadth first
+        assertEquals(1, metrics.getQueryCount(PathfindingMode.AStar, true));
+        assertEquals(1, metrics.getOutcomeCount(PathfindingMode.AStar, true, PathOutcome.Found));
+        assertEquals(10, metrics.getPathLengths(PathfindingMode.AStar, true).getTotal());
+        assertEquals(1, metrics.getOutcomeCount(PathfindingMode.BreadthFirst, true, PathOutcome.Found));
+
+        //trivial queries are left out of the histograms, paths are counted in steps
+        PlannerMetrics.Histogram pathLengths = metrics.getPathLengths(PathfindingMode.AStar, false);
+        assertEquals(2, pathLengths.getCount());
+        assertEquals(20, pathLengths.getTotal());
+        assertEquals(15, pathLengths.getPercentile(100));
+        assertEquals(4, metrics.getExpansions(PathfindingMode.AStar, false).getCount());
+        assertEquals(4, metrics.getLatencies(PathfindingMode.AStar, false).getCount());
+        assertEquals(4 + 10, metrics.getPathLengths(PathfindingMode.BreadthFirst, false).getTotal());
+        if (metrics.getExpansions(PathfindingMode.AStar, false).getTotal() < 20) {
+            fail("Expansions were not recorded");
+        }
+
+        metrics.reset();
+        assertEquals(0, metrics.getQueryCount());
+        assertEquals(0, metrics.getExpansions(PathfindingMode.AStar, false).getPercentile(50));
+        planner.setMetrics(null);
+        planner.findPath(new Point(0, 0), new Point(10, 0), false);
+        assertEquals(0, metrics.getQueryCount());
+    }
+}
@@ -0,0 +1,76 @@
+package ModelPackage;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.fail;
+
+class PursuitPlannerTest {
+
+    @Test
+    void testChase() throws Exception {
+        int testGridWidth = 100;
+        int testGridHeight = 100;
+        Random random = new Random(11);
+        Grid testGrid = new Grid(testGridWidth, testGridHeight);
+        for (int i = 0; i < 800; i++) {
+            testGrid.setPointType(new Point(random.nextInt(testGridWidth), random.nextInt(testGridHeight)), GridPointType.Obstacle);
+        }
+        testGrid.setPointType(new Point(5, 5), GridPointType.Water);
+        testGrid.setPointType(new Point(50, 50), GridPointType.Water);
+        MovementPlanner planner = new MovementPlanner();
+        planner.setPathfindingMode(PathfindingMode.AStar);
+        planner.initializePlanner(testGrid);
+
+        PursuitPlanner pursuit = new PursuitPlanner(planner);
+        Point hunter = new Point(5, 5);
+        Point prey = new Point(50, 50);
+        int pursuitExpansions = 0;
+        int replanExpansions = 0;
+        int steps = 0;
+        while (!hunter.equals(prey) && (steps < 300)) {
+            ArrayList<Point> path = pursuit.update(hunter, prey, false);
+            pursuitExpansions += pursuit.getLastExpansionCount();
+            ArrayList<Point> shortest = planner.findPath(hunter, prey, false);
+            replanExpansions += planner.getLastExpansionCount();
+
+            assertEquals(prey, path.get(0));
+            assertEquals(hunter, path.get(path.size() - 1));
+            for (int i = 1; i < path.size(); i++) {
+                int dx = Math.abs(path.get(i).x - path.get(i - 1).x);
+                int dy = Math.abs(path.get(i).y - path.get(i - 1).y);
+                if ((Math.min(dx, testGridWidth - dx) > 1) || (Math.min(dy, testGridHeight - dy) > 1)) {
+                    fail("Path jumps from " + path.get(i - 1) + " to " + path.get(i));
+                }
+                if (testGrid.getPointType(path.get(i)) == GridPointType.Obstacle) {
+                    fail("Path crosses an obstacle at " + path.get(i));
+                }
+            }
+            if (path.size() > shortest.size() + 10) {
+                fail("Repaired path of " + path.size() + " points, the shortest has " + shortest.size());
+            }
+
+            //the hunter takes a step, the prey wanders every other step
+            hunter = path.get(path.size() - 2);
+            if (steps % 2 == 0) {
+                Point next;
+                do {
+                    next = new Point((prey.x + random.nextInt(3) - 1 + testGridWidth) % testGridWidth,
+                            (prey.y + random.nextInt(3) - 1 + testGridHeight) % testGridHeight);
+                } while (testGrid.getPointType(next) == GridPointType.Obstacle);
+                prey = next;
+            }
+            steps++;
+        }
+        System.out.println("Caught after " + steps + " steps, pursuit expanded " + pursuitExpansions + " points with "
+                + pursuit.getRepairCount() + " repairs and " + pursuit.getReplanCount() + " full searches, planning every step expanded " + replanExpansions);
+        assertEquals(hunter, prey);
+        if (pursuitExpansions * 10 > replanExpansions) {
+            fail("Pursuit did not save enough work: " + pursuitExpansions + " against " + replanExpansions);
+        }
+    }
+}
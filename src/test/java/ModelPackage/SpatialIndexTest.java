@@ -0,0 +1,81 @@
+package ModelPackage;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.fail;
+
+class SpatialIndexTest {
+
+    @Test
+    void testMatchesListScan() {
+        //crowded small grid, so points hold several objects and neighbourhoods reach the edges
+        int testGridWidth = 12;
+        int testGridHeight = 9;
+        Random random = new Random(22);
+        ArrayList<SimObject> simObjects = new ArrayList<>();
+        SpatialIndex index = new SpatialIndex(testGridWidth, testGridHeight);
+        for (int i = 0; i < 300; i++) {
+            Point point = new Point(random.nextInt(testGridWidth), random.nextInt(testGridHeight));
+            SimObject simObject = (i % 3 == 0) ? new Plant(point, i) : new Creature(point, i, Digestion.values()[i % 4],
+                    0, 100, 4, 50, 10, i % 7, 10, 10, null);
+            simObjects.add(simObject);
+            index.add(simObject);
+        }
+        assertEquals(300, index.getSize());
+
+        for (int round = 0; round < 3; round++) {
+            //move a third of the creatures to a neighbouring point
+            for (SimObject simObject : simObjects) {
+                if ((simObject instanceof Creature) && (random.nextInt(3) == 0)) {
+                    Point oldPoint = simObject.point;
+                    simObject.point = new Point(Math.floorMod(oldPoint.x + random.nextInt(3) - 1, testGridWidth),
+                            Math.floorMod(oldPoint.y + random.nextInt(3) - 1, testGridHeight));
+                    index.move(simObject, oldPoint);
+                }
+            }
+
+            Predicate<SimObject> filter = simObject -> (simObject instanceof Creature) && (simObject.getEnergy() % 5 == 0);
+            for (int x = 0; x < testGridWidth; x++) {
+                for (int y = 0; y < testGridHeight; y++) {
+                    Point point = new Point(x, y);
+                    SimObject expectedAt = null;
+                    SimObject expectedNear = null;
+                    for (SimObject simObject : simObjects) {
+                        if ((expectedAt == null) && simObject.point.equals(point) && filter.test(simObject)) {
+                            expectedAt = simObject;
+                        }
+                        if ((expectedNear == null) && (Math.abs(simObject.point.x - x) <= 1) &&
+                                (Math.abs(simObject.point.y - y) <= 1) && filter.test(simObject)) {
+                            expectedNear = simObject;
+                        }
+                    }
+                    assertSame(expectedAt, index.findFirstAt(point, filter));
+                    assertSame(expectedNear, index.findFirstNear(point, filter));
+                    assertEquals(expectedAt != null, index.containsAt(x, y, filter));
+                }
+            }
+        }
+
+        try {
+            index.move(simObjects.get(0), new Point(simObjects.get(0).point.x, (simObjects.get(0).point.y + 1) % testGridHeight));
+            fail("Expected an exception for an object that is not on the old point");
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
+        }
+
+        index.clear();
+        assertEquals(0, index.getSize());
+        for (int x = 0; x < testGridWidth; x++) {
+            for (int y = 0; y < testGridHeight; y++) {
+                assertEquals(null, index.findFirstNear(new Point(x, y), simObject -> true));
+            }
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package ModelPackage;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.*;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Measures the steps per second of a crowded world planned on more and more threads. Every thread count has to run
+ * the same simulation as a double-buffered world planned on one thread.
+ */
+class WorldBenchmarkTest {
+
+    //steps left out of the time, while the code warms up
+    private static final int WARMUP_STEPS = 3;
+    private static final int STEPS = 10;
+
+    @Test
+    void testStepScaling() {
+        int processors = Runtime.getRuntime().availableProcessors();
+        String expectedHistory = null;
+        //more threads than processors still checks the outcome, it only does not scale
+        for (int threads = 1; threads <= Math.max(4, processors); threads *= 2) {
+            World world = createWorld();
+            if (threads == 1) {
+                world.setDoubleBufferedSteps(true);
+            } else {
+                world.setStepThreads(threads);
+            }
+            StringBuilder history = new StringBuilder();
+            long startTime = 0;
+            for (int step = 0; step < WARMUP_STEPS + STEPS; step++) {
+                if (step == WARMUP_STEPS) {
+                    startTime = System.nanoTime();
+                }
+                StepResult result = world.doStep();
+                history.append(result.getCarnivoreCount()).append(' ').append(result.getHerbivoreCount()).append(' ')
+                        .append(result.getOmnivoreCount()).append(' ').append(result.getNonivoreCount()).append(' ')
+                        .append(result.getPlantCount()).append(' ').append(result.getEnergyCarnivore()).append(' ')
+                        .append(result.getEnergyHerbivore()).append(' ').append(result.getEnergyOmnivore()).append(' ')
+                        .append(result.getEnergyNonivore()).append(' ').append(result.getEnergyPlants()).append('\n');
+            }
+            long time = System.nanoTime() - startTime;
+            System.out.println("steps 256x256 with " + threads + " of " + processors + " processors: "
+                    + String.format("%.1f", (STEPS * 1e9) / time) + " steps per second");
+            if (expectedHistory == null) {
+                expectedHistory = history.toString();
+                System.out.println(expectedHistory.substring(0, expectedHistory.indexOf('\n')));
+            }
+            assertEquals(expectedHistory, history.toString());
+        }
+    }
+
+    /**
+     * Creates a seeded world of 10000 creatures on islands of 48x48 points
+     */
+    private World createWorld() {
+        int testGridSize = 256;
+        Grid grid = new Grid(testGridSize, testGridSize);
+        for (int x = 0; x < testGridSize; x++) {
+            for (int y = 0; y < testGridSize; y++) {
+                if (((x % 64) < 48) && ((y % 64) < 48)) {
+                    grid.setPointType(new Point(x, y), GridPointType.Ground);
+                }
+            }
+        }
+        return new World(500, 2000,
+                1500, 1500, 4, 600, 500, 900, 400, 300, 2500,
+                1400, 1400, 6, 700, 500, 750, 400, 300, 2500,
+                2000, 1750, 8, 1000, 800, 500, 300, 200, 2500,
+                1750, 45, 2500, 2, 500, 400, 1500, 600, 300, 2500,
+                grid, 25);
+    }
+}
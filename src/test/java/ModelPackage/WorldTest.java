@@ -6,6 +6,9 @@ import org.junit.jupiter.api.BeforeEach;
 
 import java.awt.*;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.fail;
+
 public class WorldTest {
     MovementPlanner movement;
 
@@ -86,4 +89,152 @@ public class WorldTest {
                 1750, 45, 2500, 2, 500, 400, 1500, 600, 300, 5,
                 grid);
     }
+
+    @Test
+    public void testEmptyPointColors(){
+        int testGridSize = 30;
+        Grid grid = new Grid(testGridSize, testGridSize);
+        for (int x = 0; x < testGridSize; x++) {
+            for (int y = 0; y < testGridSize; y++) {
+                if ((x / 5 + y / 5) % 3 != 0) {
+                    grid.setPointType(new Point(x, y), GridPointType.Ground);
+                }
+            }
+        }
+        //colored before the first step, like a grid shown before the simulation starts
+        grid.setColor(new Point(0, 0), Color.green);
+
+        World world = new World(500,25,
+                1500,1500,4, 600, 500,900,400,300, 10,
+                1400, 1400, 6, 700, 500, 750, 400, 300, 10,
+                2000, 1750, 8, 1000, 800, 500, 300, 200, 10,
+                1750, 45, 2500, 2, 500, 400, 1500, 600, 300, 10,
+                grid);
+        for (int step = 0; step < 20; step++) {
+            world.doStep();
+            //every point holding no SimObject has the color of its terrain again
+            int occupiedCount = 0;
+            for (GridPoint gridPoint : grid.getPointList()) {
+                Point point = new Point(gridPoint.getX(), gridPoint.getY());
+                if (world.getSteppedSimObjects().findFirstAt(point, simObject -> true) != null) {
+                    occupiedCount++;
+                } else if (!gridPoint.getColor().equals(new GridPoint(point.x, point.y, gridPoint.getType()).getColor())) {
+                    fail("Point " + point.x + "," + point.y + " kept the color " + gridPoint.getColor());
+                }
+            }
+            if (occupiedCount == 0) {
+                fail("No SimObjects found");
+            }
+        }
+    }
+
+    @Test
+    public void testDoubleBufferedStepsAreReproducible(){
+        //two worlds from the same seed run the same simulation when the creatures decide from the last step
+        String[] runs = new String[2];
+        for (int run = 0; run < 2; run++) {
+            int testGridSize = 40;
+            Grid grid = new Grid(testGridSize, testGridSize);
+            for (int x = 0; x < testGridSize; x++) {
+                for (int y = 0; y < testGridSize; y++) {
+                    if ((x / 8 + y / 8) % 3 != 0) {
+                        grid.setPointType(new Point(x, y), GridPointType.Ground);
+                    }
+                }
+            }
+            World world = new World(500,60,
+                    1500,1500,4, 600, 500,900,400,300, 15,
+                    1400, 1400, 6, 700, 500, 750, 400, 300, 15,
+                    2000, 1750, 8, 1000, 800, 500, 300, 200, 15,
+                    1750, 45, 2500, 2, 500, 400, 1500, 600, 300, 15,
+                    grid, 24);
+            world.setDoubleBufferedSteps(true);
+            StringBuilder history = new StringBuilder();
+            for (int step = 0; step < 30; step++) {
+                StepResult result = world.doStep();
+                history.append(result.getCarnivoreCount()).append(' ').append(result.getHerbivoreCount()).append(' ')
+                        .append(result.getOmnivoreCount()).append(' ').append(result.getPlantCount()).append(' ')
+                        .append(result.getEnergyCarnivore()).append(' ').append(result.getEnergyHerbivore()).append(' ')
+                        .append(result.getEnergyOmnivore()).append(' ').append(result.getEnergyNonivore()).append(' ')
+                        .append(result.getEnergyPlants()).append('\n');
+                for (GridPoint gridPoint : grid.getPointList()) {
+                    if (world.getSimObjectIndex().findFirstAt(new Point(gridPoint.getX(), gridPoint.getY()), simObject -> true) != null) {
+                        history.append(gridPoint.getX()).append(',').append(gridPoint.getY()).append(' ');
+                    }
+                }
+                history.append('\n');
+            }
+            runs[run] = history.toString();
+        }
+        System.out.println(runs[0].substring(0, runs[0].indexOf('\n')));
+        assertEquals(runs[0], runs[1]);
+    }
+
+    @Test
+    public void testDoubleBufferedContendedMate(){
+        int testGridSize = 10;
+        Grid grid = new Grid(testGridSize, testGridSize);
+        for (int x = 0; x < testGridSize; x++) {
+            for (int y = 0; y < testGridSize; y++) {
+                grid.setPointType(new Point(x, y), GridPointType.Ground);
+            }
+        }
+        World world = new World(500,0,
+                1500,1500,4, 600, 500,900,400,300, 0,
+                1400, 1400, 6, 700, 500, 750, 400, 300, 0,
+                2000, 1750, 8, 1000, 800, 500, 300, 200, 0,
+                1750, 45, 2500, 2, 500, 400, 1500, 600, 300, 0,
+                grid, 24);
+        world.setDoubleBufferedSteps(true);
+        //three sated herbivores side by side all pick the first one as mate, mating leaves it below its threshold
+        Creature first = new Creature(new Point(4, 4), 1000, Digestion.Herbivore, 0, 1000, 6, 60, 950, 750, 400, 2000, world);
+        Creature second = new Creature(new Point(5, 4), 1000, Digestion.Herbivore, 0, 1000, 6, 60, 950, 750, 400, 2000, world);
+        Creature third = new Creature(new Point(4, 5), 1000, Digestion.Herbivore, 0, 1000, 6, 60, 950, 750, 400, 2000, world);
+        world.addSimObject(first);
+        world.addSimObject(second);
+        world.addSimObject(third);
+
+        world.doStep();
+        //the first mated with the second, which does not mate back, and the third finds its mate spent
+        assertEquals(50, first.getEnergy());
+        assertEquals(1000, second.getEnergy());
+        assertEquals(1000, third.getEnergy());
+        assertEquals(new Point(5, 4), second.getPoint());
+        assertEquals(new Point(4, 5), third.getPoint());
+    }
+
+    @Test
+    public void testSameFoodWithAndWithoutFlowFields(){
+        for (boolean flowFields : new boolean[]{false, true}) {
+            int testGridSize = 30;
+            Grid grid = new Grid(testGridSize, testGridSize);
+            for (int x = 0; x < testGridSize; x++) {
+                for (int y = 0; y < testGridSize; y++) {
+                    grid.setPointType(new Point(x, y), GridPointType.Ground);
+                }
+            }
+            World world = new World(500,0,
+                    1500,1500,4, 600, 500,900,400,300, 0,
+                    1400, 1400, 6, 700, 500, 750, 400, 300, 0,
+                    2000, 1750, 8, 1000, 800, 500, 300, 200, 0,
+                    1750, 45, 2500, 2, 500, 400, 1500, 600, 300, 0,
+                    grid, 10);
+            world.setFlowFieldsEnabled(flowFields);
+            //a hungry carnivore with a sated one of its own kind close by and a herbivore further away
+            Creature hunter = new Creature(new Point(5, 5), 1000, Digestion.Carnivore, 100, 1500, 4, 600, 500, 900, 400, 300, world);
+            Creature sameKind = new Creature(new Point(8, 5), 1500, Digestion.Carnivore, 100, 1500, 4, 600, 500, 900, 400, 2000, world);
+            Creature herbivore = new Creature(new Point(5, 12), 1000, Digestion.Herbivore, 0, 1000, 6, 700, 500, 750, 400, 2000, world);
+            world.addSimObject(hunter);
+            world.addSimObject(sameKind);
+            world.addSimObject(herbivore);
+
+            world.doStep();
+            if (flowFields) {
+                //one step down the flow field towards the herbivore
+                assertEquals(6, hunter.getPoint().y);
+            } else {
+                assertEquals(herbivore, hunter.getPrey());
+            }
+        }
+    }
 }